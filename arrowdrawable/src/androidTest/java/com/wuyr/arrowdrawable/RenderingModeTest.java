@@ -0,0 +1,335 @@
+package com.wuyr.arrowdrawable;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.os.Bundle;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 真机上的渲染方式对比：在固定的时间点渲染每个状态的帧，先用当前的实现(逐个圆画的弓、BlurMaskFilter的箭尾阴影)画，
+ * 再用其他渲染方式(图层缓存、预渲染帧、纹理线条、几何数据表、帧缓存)画同样的帧，跟当前实现的结果比较。
+ * 两边都是在同一台设备上渲染的，不依赖保存的参考图(当前实现跟参考图的比较在单元测试GoldenImageTest中，
+ * 不同设备、系统版本的光栅化本来就有差别，参考图只在固定的Robolectric环境中比较)。
+ * 每一项都会报告超出容差的像素比例、最大通道差、平均误差，以及渲染耗时跟当前实现的比值，
+ * 输出到logcat(tag: ArrowDrawableRenderingMode)和外部存储的files/rendering-mode-report.txt。
+ * <p>
+ * 容差可以用-e modeTolerance 通道容差(默认16)、-e modeMaxDiffRatio 允许超出容差的像素比例(默认0.005)调整
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午9:40
+ */
+@RunWith(AndroidJUnit4.class)
+public class RenderingModeTest {
+
+    private static final String TAG = "ArrowDrawableRenderingMode";
+    private static final int WIDTH = 300;
+    private static final int HEIGHT = 300;
+    private static final int BOW_LENGTH = 120;
+    private static final long FRAME_TIME = 16;
+    private static final long SEED = 20261019;//线条的位置是随机的，固定种子才能每次都一样
+    private static final int RUN_COUNT = 5;//渲染耗时取中位数
+
+    private static final Scene[] SCENES = {
+            Scene.drag("start", .1F),
+            Scene.drag("dragging", .6F),
+            Scene.drag("full", 1),
+            Scene.fire("firing", 60, Scene.EVENT_NONE),
+            Scene.fire("dancing", 1000, Scene.EVENT_NONE),
+            Scene.fire("hitting", 1100, Scene.EVENT_HIT),
+            Scene.fire("missing", 1200, Scene.EVENT_MISS),
+            Scene.fire("volley", 1100, Scene.EVENT_HIT).volley(3),
+    };
+
+    private static GeometryTable sGeometryTable;
+
+    private static final Mode[] MODES = {
+            new Mode("layer-cache") {
+                @Override
+                void apply(ArrowDrawable drawable) {
+                    drawable.setLayerCacheEnabled(true);
+                }
+            },
+            new Mode("sprite-strip") {
+                @Override
+                void apply(ArrowDrawable drawable) {
+                    drawable.setSpriteStripEnabled(true);
+                }
+            },
+            //纹理中的线条跟逐条画的本来就不一样，只比较其他部分
+            new Mode("line-shader", true) {
+                @Override
+                void apply(ArrowDrawable drawable) {
+                    drawable.setLineMode(ArrowDrawable.LINE_MODE_SHADER);
+                }
+            },
+            new Mode("geometry-table") {
+                @Override
+                void apply(ArrowDrawable drawable) {
+                    drawable.setGeometryTable(sGeometryTable);
+                }
+            },
+            new Mode("picture-cache") {
+                @Override
+                void apply(ArrowDrawable drawable) {
+                    drawable.setDraggingPictureCacheEnabled(true);
+                }
+            },
+    };
+
+    private final int mTolerance;
+    private final float mMaxDiffRatio;
+    private final File mOutputDir;
+    private final Bitmap mExpected = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+    private final Bitmap mActual = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+    private final int[] mExpectedPixels = new int[WIDTH * HEIGHT];
+    private final int[] mActualPixels = new int[WIDTH * HEIGHT];
+
+    public RenderingModeTest() {
+        Bundle arguments = InstrumentationRegistry.getArguments();
+        mTolerance = Integer.parseInt(arguments.getString("modeTolerance", "16"));
+        mMaxDiffRatio = Float.parseFloat(arguments.getString("modeMaxDiffRatio", ".005"));
+        mOutputDir = InstrumentationRegistry.getTargetContext().getExternalFilesDir(null);
+    }
+
+    @BeforeClass
+    public static void generateGeometryTable() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GeometryTable.generate(out, WIDTH, HEIGHT, BOW_LENGTH, 2);
+        sGeometryTable = GeometryTable.wrap(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    /**
+     * 其他渲染方式跟当前的实现比较
+     */
+    @Test
+    public void alternativeModes() throws IOException {
+        StringBuilder report = new StringBuilder();
+        StringBuilder failures = new StringBuilder();
+        for (Mode mode : MODES) {
+            for (Scene scene : SCENES) {
+                long referenceTime = renderTimed(scene, null, mode.hideLines, mExpected);
+                long modeTime = renderTimed(scene, mode, mode.hideLines, mActual);
+                Diff diff = compare(mExpected, mActual);
+                String line = String.format(Locale.US, "scene [%s] %s: %s, render time %.2fx",
+                        scene.name, mode.name, diff, referenceTime == 0 ? 0 : (float) modeTime / referenceTime);
+                append(report, line);
+                if (diff.getMismatchedRatio() > mMaxDiffRatio) {
+                    failures.append(line).append('\n');
+                }
+            }
+        }
+        writeReport("rendering-mode-report.txt", report);
+        assertTrue("Rendering modes differ from reference:\n" + failures, failures.length() == 0);
+    }
+
+    /**
+     * 渲染多次，取耗时的中位数
+     */
+    private long renderTimed(Scene scene, Mode mode, boolean hideLines, Bitmap out) {
+        //预热一次，排除类加载和第一次创建的对象
+        render(scene, mode, hideLines, out);
+        long[] times = new long[RUN_COUNT];
+        for (int i = 0; i < RUN_COUNT; i++) {
+            times[i] = render(scene, mode, hideLines, out);
+        }
+        Arrays.sort(times);
+        return times[RUN_COUNT / 2];
+    }
+
+    /**
+     * 从头开始按帧播放到场景的时间点，最后一帧留在out中
+     *
+     * @param mode 渲染方式，null为当前的实现
+     * @return 所有帧的渲染耗时
+     */
+    private long render(Scene scene, Mode mode, boolean hideLines, Bitmap out) {
+        SharedResources.RANDOM.setSeed(SEED);
+        ArrowDrawable drawable = ArrowDrawable.create(WIDTH, HEIGHT, BOW_LENGTH);
+        drawable.setBounds(0, 0, WIDTH, HEIGHT);
+        if (hideLines) {
+            drawable.setLineColor(Color.TRANSPARENT);
+        }
+        if (scene.volleyCount > 1) {
+            drawable.setVolleyCount(scene.volleyCount);
+        }
+        if (mode != null) {
+            mode.apply(drawable);
+        }
+        Canvas canvas = new Canvas(out);
+        long start = System.nanoTime();
+        drawable.setPlayTime(0);
+        drawable.setProgress(scene.progress);
+        drawFrame(drawable, canvas, out);
+        if (scene.fire) {
+            drawable.fire();
+            boolean eventSent = false;
+            for (long time = FRAME_TIME; time <= scene.time; time += FRAME_TIME) {
+                //先跳到这一帧的时间，命中/未命中才是从这一刻开始
+                drawable.setPlayTime(time);
+                if (!eventSent && scene.event != Scene.EVENT_NONE && time >= Scene.EVENT_TIME) {
+                    eventSent = true;
+                    if (scene.event == Scene.EVENT_HIT) {
+                        drawable.hit();
+                    } else {
+                        drawable.miss();
+                    }
+                }
+                drawFrame(drawable, canvas, out);
+            }
+        } else {
+            //静止的帧多画两次，缓存类的渲染方式第二、三帧才会用上缓存
+            for (int i = 1; i <= 2; i++) {
+                drawable.setPlayTime(i * FRAME_TIME);
+                drawFrame(drawable, canvas, out);
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void drawFrame(ArrowDrawable drawable, Canvas canvas, Bitmap out) {
+        //不透明的背景，比较时不用考虑预乘透明度；默认颜色都是白色，所以背景用黑色
+        out.eraseColor(Color.BLACK);
+        drawable.draw(canvas);
+    }
+
+    /**
+     * 逐个像素比较
+     */
+    private Diff compare(Bitmap expected, Bitmap actual) {
+        expected.getPixels(mExpectedPixels, 0, WIDTH, 0, 0, WIDTH, HEIGHT);
+        actual.getPixels(mActualPixels, 0, WIDTH, 0, 0, WIDTH, HEIGHT);
+        Diff diff = new Diff(mExpectedPixels.length);
+        for (int i = 0; i < mExpectedPixels.length; i++) {
+            int a = mExpectedPixels[i];
+            int b = mActualPixels[i];
+            int delta = 0;
+            for (int shift = 0; shift < 32; shift += 8) {
+                int channelDelta = Math.abs(((a >>> shift) & 0xFF) - ((b >>> shift) & 0xFF));
+                diff.errorSum += channelDelta;
+                delta = Math.max(delta, channelDelta);
+            }
+            diff.maxDelta = Math.max(diff.maxDelta, delta);
+            if (delta > mTolerance) {
+                diff.mismatched++;
+            }
+        }
+        return diff;
+    }
+
+    private static void append(StringBuilder report, String line) {
+        Log.i(TAG, line);
+        report.append(line).append('\n');
+    }
+
+    private void writeReport(String name, StringBuilder report) throws IOException {
+        Writer writer = new FileWriter(new File(mOutputDir, name));
+        try {
+            writer.write(report.toString());
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * 一个场景：拖动到某个进度，或者发射后(可能命中/未命中)播放到某个时间点
+     */
+    private static final class Scene {
+
+        static final int EVENT_NONE = 0;
+        static final int EVENT_HIT = 1;
+        static final int EVENT_MISS = 2;
+        static final long EVENT_TIME = 1000;//发射后多久命中/未命中(箭已经开始上下移动)
+
+        final String name;
+        final float progress;
+        final boolean fire;
+        final long time;
+        final int event;
+        int volleyCount = 1;
+
+        private Scene(String name, float progress, boolean fire, long time, int event) {
+            this.name = name;
+            this.progress = progress;
+            this.fire = fire;
+            this.time = time;
+            this.event = event;
+        }
+
+        static Scene drag(String name, float progress) {
+            return new Scene(name, progress, false, 0, EVENT_NONE);
+        }
+
+        static Scene fire(String name, long time, int event) {
+            return new Scene(name, 1, true, time, event);
+        }
+
+        Scene volley(int count) {
+            volleyCount = count;
+            return this;
+        }
+    }
+
+    /**
+     * 一种渲染方式
+     */
+    private abstract static class Mode {
+
+        final String name;
+        final boolean hideLines;//是否不比较坠落的线条
+
+        Mode(String name) {
+            this(name, false);
+        }
+
+        Mode(String name, boolean hideLines) {
+            this.name = name;
+            this.hideLines = hideLines;
+        }
+
+        abstract void apply(ArrowDrawable drawable);
+    }
+
+    /**
+     * 比较结果
+     */
+    private static final class Diff {
+
+        final int pixelCount;
+        int mismatched;//超出容差的像素数
+        int maxDelta;//最大的通道差
+        long errorSum;//所有通道差的和
+
+        Diff(int pixelCount) {
+            this.pixelCount = pixelCount;
+        }
+
+        float getMismatchedRatio() {
+            return (float) mismatched / pixelCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "mismatched %.3f%%, max delta %d, mean error %.4f%%",
+                    getMismatchedRatio() * 100, maxDelta, errorSum * 100F / (pixelCount * 4L * 255));
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.wuyr.arrowdrawable;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Bundle;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Locale;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 统计每个ArrowDrawable实例常驻的内存大小(1、100、1000个实例)，包括Java堆和Native堆
+ * (Path、Paint、Bitmap等的数据都在Native堆上)，结果输出到logcat(tag: ArrowDrawableBenchmark)。
+ * 实例数不少于{@link #MIN_ASSERTED_COUNT}时，每个实例的大小不能超过上限，上限可以通过instrumentation参数修改：
+ * -e maxRetainedBytes 65536 -e maxRetainedBytesLowFootprint 32768
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午3:30
+ */
+@RunWith(AndroidJUnit4.class)
+public class RetainedSizeBenchmark {
+
+    private static final String TAG = "ArrowDrawableBenchmark";
+    private static final int[] INSTANCE_COUNTS = {1, 100, 1000};
+    private static final int MIN_ASSERTED_COUNT = 100;//只有1个实例时误差太大，不检查
+    private static final int WIDTH = 300;
+    private static final int HEIGHT = 300;
+
+    private View mTargetView;
+    private Canvas mCanvas;
+    private long mMaxBytes;
+    private long mMaxBytesLowFootprint;
+
+    @Before
+    public void setUp() {
+        mTargetView = new View(InstrumentationRegistry.getTargetContext());
+        mCanvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+        Bundle arguments = InstrumentationRegistry.getArguments();
+        mMaxBytes = Long.parseLong(arguments.getString("maxRetainedBytes", "65536"));
+        mMaxBytesLowFootprint = Long.parseLong(arguments.getString("maxRetainedBytesLowFootprint", "32768"));
+    }
+
+    @Test
+    public void retainedSizeDefault() {
+        report("default", false, mMaxBytes);
+    }
+
+    @Test
+    public void retainedSizeLowFootprint() {
+        report("low-footprint", true, mMaxBytesLowFootprint);
+    }
+
+    private void report(String mode, boolean lowFootprint, long maxBytes) {
+        for (int count : INSTANCE_COUNTS) {
+            long[] bytes = measureRetainedBytes(count, lowFootprint);
+            long javaBytes = bytes[0] / count;
+            long nativeBytes = bytes[1] / count;
+            Log.i(TAG, String.format(Locale.US, "retained size [%s] %d instance(s): %d bytes/instance (java %d, native %d)",
+                    mode, count, javaBytes + nativeBytes, javaBytes, nativeBytes));
+            if (count >= MIN_ASSERTED_COUNT) {
+                assertTrue(String.format(Locale.US, "[%s] %d bytes/instance exceeds the ceiling of %d bytes",
+                        mode, javaBytes + nativeBytes, maxBytes), javaBytes + nativeBytes <= maxBytes);
+            }
+        }
+    }
+
+    /**
+     * 创建指定数量的实例，每个都像列表中被回收复用过的一样走一遍：拖动、发射、重置
+     *
+     * @return 这些实例一共常驻的内存大小：[Java堆, Native堆]
+     */
+    private long[] measureRetainedBytes(int count, boolean lowFootprint) {
+        ArrowDrawable[] drawables = new ArrowDrawable[count];
+        long before = getUsedMemory();
+        long nativeBefore = Debug.getNativeHeapAllocatedSize();
+        for (int i = 0; i < count; i++) {
+            ArrowDrawable drawable = ArrowDrawable.create(mTargetView, WIDTH, HEIGHT);
+            drawable.setLowFootprintEnabled(lowFootprint);
+            drawable.draw(mCanvas);
+            drawable.setProgress(1);
+            drawable.draw(mCanvas);
+            drawable.fire();
+            drawable.draw(mCanvas);
+            drawable.reset();
+            drawable.draw(mCanvas);
+            drawables[i] = drawable;
+        }
+        long after = getUsedMemory();
+        //Java对象回收后，对应的Native内存才会释放，所以在getUsedMemory之后统计
+        long nativeAfter = Debug.getNativeHeapAllocatedSize();
+        //保证在统计完之前不会被回收
+        assertNotNull(drawables[count - 1]);
+        return new long[]{after - before, nativeAfter - nativeBefore};
+    }
+
+    private static long getUsedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            runtime.gc();
+            runtime.runFinalization();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
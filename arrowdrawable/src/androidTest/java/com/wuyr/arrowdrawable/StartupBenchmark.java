@@ -0,0 +1,104 @@
+package com.wuyr.arrowdrawable;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Debug;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 统计创建1000个ArrowDrawable实例的耗时和分配的内存(只创建、只画第一帧)，结果输出到logcat(tag: ArrowDrawableBenchmark)。
+ * 分配的内存用ART的运行时统计(art.gc.bytes-allocated，API 23+)，每个实例平均分配的字节数不能超过上限，
+ * 上限可以通过instrumentation参数修改：-e maxConstructionBytes 16384 -e maxFirstFrameBytes 32768
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午5:40
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+
+    private static final String TAG = "ArrowDrawableBenchmark";
+    private static final int INSTANCE_COUNT = 1000;
+    private static final int RUN_COUNT = 5;//取中位数
+    private static final int WIDTH = 300;
+    private static final int HEIGHT = 300;
+    private static final String ALLOCATED_BYTES_STAT = "art.gc.bytes-allocated";
+
+    private long mMaxConstructionBytes;
+    private long mMaxFirstFrameBytes;
+
+    @Before
+    public void setUp() {
+        assumeTrue("Runtime stats need API 23+", Build.VERSION.SDK_INT >= Build.VERSION_CODES.M);
+        Bundle arguments = InstrumentationRegistry.getArguments();
+        mMaxConstructionBytes = Long.parseLong(arguments.getString("maxConstructionBytes", "16384"));
+        mMaxFirstFrameBytes = Long.parseLong(arguments.getString("maxFirstFrameBytes", "32768"));
+    }
+
+    @Test
+    public void construction() {
+        report("construction", false, mMaxConstructionBytes);
+    }
+
+    @Test
+    public void constructionAndFirstFrame() {
+        report("construction + first frame", true, mMaxFirstFrameBytes);
+    }
+
+    private void report(String name, boolean drawFirstFrame, long maxBytes) {
+        Canvas canvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+        //预热一次，排除类加载
+        run(canvas, drawFirstFrame);
+        long[] times = new long[RUN_COUNT];
+        long[] allocations = new long[RUN_COUNT];
+        for (int i = 0; i < RUN_COUNT; i++) {
+            long allocatedBefore = getAllocatedBytes();
+            long start = System.nanoTime();
+            run(canvas, drawFirstFrame);
+            times[i] = System.nanoTime() - start;
+            allocations[i] = getAllocatedBytes() - allocatedBefore;
+        }
+        Arrays.sort(times);
+        Arrays.sort(allocations);
+        long bytesPerInstance = allocations[RUN_COUNT / 2] / INSTANCE_COUNT;
+        Log.i(TAG, String.format(Locale.US, "startup [%s] %d instances: %.1f us/instance, %d bytes/instance",
+                name, INSTANCE_COUNT, times[RUN_COUNT / 2] / 1000F / INSTANCE_COUNT, bytesPerInstance));
+        assertTrue(String.format(Locale.US, "startup [%s] allocates %d bytes/instance, ceiling is %d bytes",
+                name, bytesPerInstance, maxBytes), bytesPerInstance <= maxBytes);
+    }
+
+    /**
+     * 进程到现在为止一共分配的字节数(包括其他线程，所以取多次运行的中位数)
+     */
+    private static long getAllocatedBytes() {
+        String value = Debug.getRuntimeStat(ALLOCATED_BYTES_STAT);
+        assertNotNull("Missing runtime stat: " + ALLOCATED_BYTES_STAT, value);
+        return Long.parseLong(value);
+    }
+
+    private void run(Canvas canvas, boolean drawFirstFrame) {
+        ArrowDrawable[] drawables = new ArrowDrawable[INSTANCE_COUNT];
+        for (int i = 0; i < INSTANCE_COUNT; i++) {
+            drawables[i] = ArrowDrawable.create(WIDTH, HEIGHT, (int) (WIDTH * .4F));
+            if (drawFirstFrame) {
+                drawables[i].draw(canvas);
+            }
+        }
+        assertNotNull(drawables[INSTANCE_COUNT - 1]);
+    }
+}
@@ -1,5 +1,7 @@
 package com.wuyr.arrowdrawable;
 
+import android.animation.TimeInterpolator;
+import android.graphics.Bitmap;
 import android.graphics.BlurMaskFilter;
 import android.graphics.Canvas;
 import android.graphics.Color;
@@ -8,19 +10,24 @@ import android.graphics.CornerPathEffect;
 import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.PathMeasure;
+import android.graphics.Picture;
 import android.graphics.PixelFormat;
 import android.graphics.PointF;
+import android.graphics.Rect;
 import android.graphics.RectF;
 import android.graphics.drawable.Drawable;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.SystemClock;
 import android.support.annotation.FloatRange;
+import android.support.annotation.IntRange;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.view.View;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
 
 /**
  * @author wuyr
@@ -56,7 +63,17 @@ public class ArrowDrawable extends Drawable {
     public static final int STATE_MISSING = 5;
 
     /**
-     * {@link #decomposePath(PathMeasure)}分解的点密度(单位: px)
+     * 坠落的线条：逐条画
+     */
+    public static final int LINE_MODE_STROKE = 0;
+
+    /**
+     * 坠落的线条：预先画好可平铺的纹理，每帧平移Shader
+     */
+    public static final int LINE_MODE_SHADER = 1;
+
+    /**
+     * {@link #decomposePath(PathMeasure, float[], int)}分解的点密度(单位: px)
      */
     private float mPrecision = 2;
 
@@ -78,7 +95,8 @@ public class ArrowDrawable extends Drawable {
     private float mArrowHeight;//箭嘴高
 
     private Path mBowPath = new Path();//弓
-    private float[] mBowPathPoints;//弓分解后的点
+    private float[] mBowPathPoints;//弓分解后的点(数组会复用，可能比实际的点数大)
+    private int mBowPointCount;//mBowPathPoints中有效的点数
     private Path mHandlePath = new Path();//握柄
     private Path mArrowPath = new Path();//箭
     private PointF mStringStartPoint = new PointF();//弦在弓左边的坐标点
@@ -120,21 +138,157 @@ public class ArrowDrawable extends Drawable {
     private float mHitDistance;//命中动画要移动的距离
 
     private float mSkewDuration = 25;//命中后每次左右摆动的时间
-    private float mSkewStartTime;//命中后左右摆动动画的开始时间
+    private long mSkewStartTime;//命中后左右摆动动画的开始时间
     private float mSkewTan = .035F;//命中后左右摆动的幅度(正切值)(.035F约等于2度)
     private int mMaxSkewCount = 9;//命中后一共要摆动的次数
     private int mCurrentSkewCount;//当前摆动的次数
 
+    private boolean mPlayTimeControlled;//是否由外部设置播放时间(不再跟随系统时间)
+    private long mPlayTimeOrigin;//播放时间为0时对应的系统时间
+    private long mPlayTime;//外部设置的播放时间
+    private int[] mCommands;//发射后生效的指令(InputTrace.TYPE_FIRE/TYPE_HIT/TYPE_MISS)，往回跳时按顺序重新执行
+    private int[] mCommandIndexes;//指令对应的箭的索引(齐射模式)，-1为全部
+    private long[] mCommandTimes;//指令生效的时间(跟now()同一个时间轴)
+    private int mCommandCount;//记录了多少个指令
+    private float mFireProgress;//发射时的进度
+    private long[] mFireLineSeeds;//发射时每条线条的随机种子
+    private ArrowSnapshot mTimelineBase;//restoreState恢复的快照，往回跳最多只能跳到恢复的那一刻
+    private long mTimelineBaseTime;//恢复快照的时间，没有为0
+
+    private InterpolatorTable mFiringBowFallInterpolator;//发射中的弓向下移动的插值器
+    private InterpolatorTable mFiredArrowShrinkInterpolator;//发射后的箭收缩的插值器
+    private InterpolatorTable mFiredArrowMoveInterpolator;//发射后的箭上下移动的插值器
+    private InterpolatorTable mMissInterpolator;//未命中动画的插值器
+    private InterpolatorTable mHitInterpolator;//命中动画的插值器
+    private InterpolatorTable mSkewInterpolator;//命中后左右摆动的插值器
+
+    private boolean mDirtyRegionEnabled;//是否只刷新运动元素所在的区域
+    private boolean mNeedInvalidateNextFrame;//当前帧画完后是否需要继续刷新
+    private float mDirtySkewTan;//当前画箭时画布的倾斜值
+    private float mDirtyOffsetX;//当前画箭时画布的水平偏移量
+    private float mDirtyOffsetY;//当前画箭时画布的垂直偏移量
+    private RectF mFrameBounds;//当前帧运动元素的范围
+    private RectF mLastFrameBounds;//上一帧运动元素的范围
+    private RectF mTempBounds;
+    private Rect mDirtyRect;
+
+    private float mDrawScaleX = 1;//几何数据到bounds的水平缩放比例
+    private float mDrawScaleY = 1;//几何数据到bounds的垂直缩放比例
+    private float mGeometryRebuildThreshold = Float.POSITIVE_INFINITY;//缩放比例偏离1超过这个值时才重建几何数据，默认不重建
+
+    private static final long PROGRESS_INVALIDATE_TIMEOUT = 100;//请求重绘后超过这个时间还没画，就当作请求已失效
+    private float mProgressInvalidateThreshold = .5F;//进度变化引起的位移(px)小于这个值时不重绘
+    private float mDrawnProgress;//最近一次画出来的进度
+    private boolean mProgressInvalidatePending;//进度改变后已经请求了重绘，但还没有画
+    private long mProgressInvalidateTime;//进度改变后请求重绘的时间
+
+    private PictureCache mPictureCache;//拖动状态的帧缓存
+    private boolean mDraggingGeometryStale;//直接画了缓存，弓、弦、箭的几何数据不是最新的
+
+    private int mVolleyCount = 1;//齐射的箭数
+    private Volley mVolley;//齐射模式下每支箭的状态，不是齐射模式时为null
+
+    private int mLineMode = LINE_MODE_STROKE;//坠落的线条的绘制方式
+    private int mStreakDensity = 24;//LINE_MODE_SHADER模式下纹理中的线条数量
+    private StreakRenderer mStreakRenderer;//LINE_MODE_SHADER模式下画线条
+
+    private static final int MAX_SPRITE_FRAMES = 60;//预渲染的一个周期最多多少帧
+    private boolean mSpriteStripEnabled;//是否预渲染上下移动的箭
+    private SpriteStrip mSpriteStrip;//预渲染的上下移动的箭，第一次用到时创建
+    private float mSpriteStripTailTop;//渲染时箭在周期起点的箭尾顶部
+
+    private LayerCache mLayerCache;//分图层绘制，没开启时为null
+    private RectF mLayerBounds;//渲染图层缓存时用的临时区域
+    private CanvasArrowRenderer mLayerRenderer;//渲染图层缓存时用的渲染器
+    private boolean mFallingBowTranslatable;//坠落的弓是否已经完全展开(之后形状不变，只平移)
+    private float mFallingBowOffset;//坠落的弓当前的垂直偏移
+
+    private static final int PICTURE_BASE_OPS = 32;//估算帧缓存占用时，一帧中除了弓上的点以外的绘制操作数
+    private static final int PICTURE_OP_BYTES = 48;//估算帧缓存占用时，每个绘制操作的字节数
+    private CacheEntry[] mCacheEntries;//交给CacheCoordinator管理的缓存，第一次有占用时创建
+    private boolean mRendering;//是否正在render中(此时不能释放缓存)
+    private int mAccountedPictureCount;//已经报告给CacheCoordinator的帧缓存数量
+
     private int mLineColor = Color.WHITE;//坠落的线条颜色
     private int mBowColor = Color.WHITE;//弓颜色
     private int mStringColor = Color.WHITE;//弦颜色
     private int mArrowColor = Color.WHITE;//箭颜色
 
-    private Paint mPaint;
-    private PathMeasure mBowPathMeasure;
-    private ScaleHelper mScaleHelper;//缩放比例辅助类
+    private Paint mBowPaint;//弓身
+    private Paint mHandlePaint;//手柄
+    private Paint mStringPaint;//弦
+    private Paint mArrowPaint;//箭
+    private Paint mTailPaint;//箭尾阴影(第一次画时才创建)
+    private Paint mLinePaint;//坠落的线条(第一次画时才创建)
+    private CornerPathEffect mCornerPathEffect;//所有画笔共用的圆角效果
+    private int mAlpha = 255;//整体透明度
+    private ColorFilter mColorFilter;//整体颜色过滤器
+    private SharedResources.Scratch mScratch;//计算几何数据时用的临时对象，低内存占用模式下用线程共用的
+    private GeometryTable mGeometryTable;//预先计算好的几何数据表
+    private boolean mGeometryTableMatched;//几何数据表是否跟当前的尺寸、点密度对得上
+    private GeometryTable mBowTable;//弓当前用的几何数据表，null表示用的是运行时分解的mBowPathPoints
+    private int mBowTableRow;//弓当前用的是几何数据表中的哪一行
+    private float mBowTableOffsetY;//查表时弓的垂直偏移(表中的弓没有偏移)
+    private final float[] mArrowOutline = new float[26];//箭的轮廓点
     private BlurMaskFilter mTailMaskFilter;//发射后的箭尾阴影特效
-    private Random mRandom = new Random();
+    private boolean mLowFootprintEnabled;//是否开启低内存占用模式
+
+    private final CanvasArrowRenderer mCanvasRenderer = new CanvasArrowRenderer();//draw(Canvas)时用的渲染器
+    private CanvasArrowRenderer mRecordingRenderer;//录制帧缓存时用的渲染器
+    private final InputChannel mInputChannel = new InputChannel();//其他线程发布的进度和指令
+    private long mPendingOutcome;//发布了但箭还没开始上下移动，等待生效的命中或未命中指令(InputChannel.FLAG_HIT/FLAG_MISS)，没有为0
+    private Handler mMainHandler;//用来在主线程请求重绘
+    private InputTrace mInputTrace;//正在记录的输入轨迹
+
+    private static final long FRAME_INTERVAL = 16;//读取进度来源的间隔(一帧)
+    private static final long PROGRESS_IDLE_INTERVAL = 250;//进度来源的值没有变化时，读取的间隔
+
+    //追踪的段名，下标是状态
+    private static final String[] STATE_SECTIONS = {"ArrowDrawable:normal", "ArrowDrawable:dragging", "",
+            "ArrowDrawable:firing", "ArrowDrawable:hitting", "ArrowDrawable:missing"};
+    private static final String SECTION_RENDER = "ArrowDrawable.render";
+    private static final String SECTION_UPDATE_GEOMETRY = "ArrowDrawable.updateGeometry";
+    private static final String SECTION_DECOMPOSE_BOW = "ArrowDrawable.decomposeBow";
+    private static final String SECTION_UPDATE_LINES = "ArrowDrawable.updateLines";
+    private static final String SECTION_DRAW_LINES = "ArrowDrawable.drawLines";
+    private static final String SECTION_DRAW_TAIL = "ArrowDrawable.drawTail";
+    private static final String SECTION_RENDER_LAYER = "ArrowDrawable.renderLayerCache";
+    private static final String SECTION_CREATE_SPRITE = "ArrowDrawable.createSpriteStrip";
+    private static final String SECTION_RECORD_PICTURE = "ArrowDrawable.recordPicture";
+    private ArrowTracer mTracer;//绘制过程的追踪
+    private ProgressSource mProgressSource;//绑定的进度来源
+    private boolean mAutoFireEnabled;//进度来源达到发射条件时是否自动发射
+    private boolean mProgressSamplerScheduled;//是否已经安排了下一次读取
+    private float mSampledProgress = Float.NaN;//上一次从进度来源读到的值，NaN表示还没读过
+    private final Runnable mProgressSampler = new Runnable() {
+        @Override
+        public void run() {
+            mProgressSamplerScheduled = false;
+            sampleProgressSource();
+        }
+    };
+    private final Runnable mPostedInvalidate = new Runnable() {
+        @Override
+        public void run() {
+            mInputChannel.clearInvalidatePosted();
+            invalidateSelf();
+        }
+    };
+    private final Runnable mReleaseEvictedCaches = new Runnable() {
+        @Override
+        public void run() {
+            //不是在绘制线程中执行的(还没有Callback时在主线程)，或者正在绘制，就留到下一次绘制开始时释放
+            if (mCacheEntries == null || mRendering) {
+                return;
+            }
+            Thread current = Thread.currentThread();
+            for (CacheEntry entry : mCacheEntries) {
+                if (entry != null && entry.mOwnerThread == current) {
+                    entry.releaseIfPending();
+                }
+            }
+        }
+    };
 
     /**
      * 通过目标View创建ArrowDrawable对象
@@ -186,6 +340,26 @@ public class ArrowDrawable extends Drawable {
      */
     public static ArrowDrawable create(View targetView, int width, int height, int bowLength) {
         targetView.setLayerType(View.LAYER_TYPE_SOFTWARE, null);
+        if (width <= 0 || height <= 0) {
+            //无效宽高
+            throw new IllegalArgumentException("Invalid size!");
+        }
+        if (targetView.getContext() != null) {
+            //内存紧张时释放缓存
+            CacheCoordinator.getInstance().register(targetView.getContext());
+        }
+        return new ArrowDrawable(width, height, bowLength);
+    }
+
+    /**
+     * 创建不依附于View的ArrowDrawable对象，用于配合{@link #setPlayTime(long)}直接画到Bitmap等场景
+     * (没有关闭硬件加速，画到硬件加速的画布上时箭尾阴影可能不显示)
+     *
+     * @param width     ArrowDrawable的宽
+     * @param height    ArrowDrawable的高
+     * @param bowLength 弓的长度
+     */
+    public static ArrowDrawable create(int width, int height, int bowLength) {
         if (width <= 0 || height <= 0) {
             //无效宽高
             throw new IllegalArgumentException("Invalid size!");
@@ -193,18 +367,23 @@ public class ArrowDrawable extends Drawable {
         return new ArrowDrawable(width, height, bowLength);
     }
 
-    private ArrowDrawable(int width, int height, int bowLength) {
+    ArrowDrawable(int width, int height, int bowLength) {
         initPaint();
-        mScaleHelper = new ScaleHelper(.2F, 0, 1, .05F, 2F, .5F, 1, .95F, .2F, 1);
+        //坠落的线条、箭尾阴影特效等只有发射后才用到，第一次发射时(或者prewarmFiringResources)再创建
         updateSize(width, height, bowLength);
-        initLines();
     }
 
     /**
      * 重置ArrowDrawable为静止状态
      */
     public void reset() {
+        recordInput(InputTrace.TYPE_RESET, 0);
         resetWithoutInvalidate();
+        if (mLowFootprintEnabled) {
+            releaseFiringResources();
+        }
+        //回到静止状态，继续读取进度来源
+        scheduleProgressSampler(0);
         invalidateSelf();
     }
 
@@ -213,20 +392,47 @@ public class ArrowDrawable extends Drawable {
      */
     private void resetWithoutInvalidate() {
         mState = STATE_NORMAL;
+        mPendingOutcome = 0;
+        mCommandCount = 0;
+        mTimelineBaseTime = 0;
         mProgress = 0;
         mArrowOffset = 0;
         mStringOffset = 0;
+        //回到静止状态，进度来源要重新读
+        mSampledProgress = Float.NaN;
         initArrowPath(mArrowBodyLength);
+        //动画播放中被推迟的几何数据重建
+        updateDrawScale(getBounds());
     }
 
     /**
      * 开始播放命中动画，当前状态为{@link #STATE_FIRING}才有效
      */
     public void hit() {
+        recordInput(InputTrace.TYPE_HIT, -1);
+        //直接调用的是最新的指令，之前发布的就不用等了
+        mPendingOutcome = 0;
+        performHit();
+    }
+
+    /**
+     * 开始播放命中动画(不记录输入轨迹)
+     */
+    private void performHit() {
+        if (mVolley != null) {
+            //齐射模式下，全部还在上下移动的箭都命中
+            for (int i = 0; i < mVolley.count; i++) {
+                hitVolleyArrow(i);
+            }
+            return;
+        }
+        finishEndedShrinking();
         //处在上下移动状态时才可以hit
-        if (mState == STATE_FIRING && mFiredArrowMoveStartTime > 0) {
+        if (mState == STATE_FIRING && isArrowDancing()) {
             mState = STATE_HITTING;
-            mHitStartTime = SystemClock.uptimeMillis();
+            mHitStartTime = now();
+            //从箭此刻所在的位置射出，而不是上一帧画的位置
+            updateDancingArrow(mHitStartTime);
 
             float currentArrowOffset = mArrowOffset + mFiredArrowLastMoveDistance;
             if (mFiredArrowMoveDistance > 0) {
@@ -237,6 +443,7 @@ public class ArrowDrawable extends Drawable {
             //因为是向上移动，所以是负数
             mHitDistance = -(currentArrowOffset - arrowBodyHeight);
             mFiredArrowLastMoveDistance = 0;
+            addCommand(InputTrace.TYPE_HIT, -1);
             invalidateSelf();
         }
     }
@@ -245,10 +452,28 @@ public class ArrowDrawable extends Drawable {
      * 开始播放未命中动画，当前状态为{@link #STATE_FIRING}才有效
      */
     public void miss() {
+        recordInput(InputTrace.TYPE_MISS, -1);
+        mPendingOutcome = 0;
+        performMiss();
+    }
+
+    /**
+     * 开始播放未命中动画(不记录输入轨迹)
+     */
+    private void performMiss() {
+        if (mVolley != null) {
+            //齐射模式下，全部还在上下移动的箭都未命中
+            for (int i = 0; i < mVolley.count; i++) {
+                missVolleyArrow(i);
+            }
+            return;
+        }
+        finishEndedShrinking();
         //处在上下移动状态时才可以miss
-        if (mState == STATE_FIRING && mFiredArrowMoveStartTime > 0) {
+        if (mState == STATE_FIRING && isArrowDancing()) {
             mState = STATE_MISSING;
-            mMissStartTime = SystemClock.uptimeMillis();
+            mMissStartTime = now();
+            updateDancingArrow(mMissStartTime);
 
             float currentArrowOffset = mArrowOffset + mFiredArrowLastMoveDistance;
             if (mFiredArrowMoveDistance > 0) {
@@ -258,19 +483,111 @@ public class ArrowDrawable extends Drawable {
             //因为是向上移动，所以是负数
             mMissDistance = -(currentArrowOffset + mArrowTail.height());
             mFiredArrowLastMoveDistance = 0;
+            addCommand(InputTrace.TYPE_MISS, -1);
+
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * 齐射模式下，指定的箭开始播放命中动画，这支箭正在上下移动时才有效
+     *
+     * @param index 箭的索引(从左到右)
+     */
+    public void hit(int index) {
+        recordInput(InputTrace.TYPE_HIT, index);
+        hitVolleyArrow(index);
+    }
 
+    /**
+     * 齐射模式下，指定的箭开始播放命中动画
+     */
+    private void hitVolleyArrow(int index) {
+        finishEndedShrinking();
+        if (isVolleyArrowDancing(index)) {
+            long now = now();
+            //从箭此刻所在的位置射出，而不是上一帧画的位置
+            updateVolleyArrow(index, now);
+            mVolley.setPhase(index, Volley.PHASE_HITTING, now);
+            float arrowBodyHeight = mFinHeight + mFinSlopeHeight + mArrowBodyLength;
+            //因为是向上移动，所以是负数
+            mVolley.targetDistances[index] = -(mArrowOffset + mVolley.offsetY[index] - arrowBodyHeight);
+            addCommand(InputTrace.TYPE_HIT, index);
+            invalidateSelf();
+        }
+    }
+
+    /**
+     * 齐射模式下，指定的箭开始播放未命中动画，这支箭正在上下移动时才有效
+     *
+     * @param index 箭的索引(从左到右)
+     */
+    public void miss(int index) {
+        recordInput(InputTrace.TYPE_MISS, index);
+        missVolleyArrow(index);
+    }
+
+    /**
+     * 齐射模式下，指定的箭开始播放未命中动画
+     */
+    private void missVolleyArrow(int index) {
+        finishEndedShrinking();
+        if (isVolleyArrowDancing(index)) {
+            long now = now();
+            updateVolleyArrow(index, now);
+            mVolley.setPhase(index, Volley.PHASE_MISSING, now);
+            //因为是向上移动，所以是负数
+            mVolley.targetDistances[index] = -(mArrowOffset + mVolley.offsetY[index] + mArrowTail.height());
+            addCommand(InputTrace.TYPE_MISS, index);
             invalidateSelf();
         }
     }
 
+    /**
+     * 齐射模式下，指定的箭是否正在上下移动
+     */
+    private boolean isVolleyArrowDancing(int index) {
+        return mVolley != null && mState == STATE_FIRING && isArrowDancing()
+                && index >= 0 && index < mVolley.count && mVolley.phases[index] == Volley.PHASE_DANCING;
+    }
+
     /**
      * 播放发射动画，当前状态为{@link #STATE_DRAGGING}并且{@link #setProgress(float)}>0.95 才有效
      */
     public void fire() {
+        recordInput(InputTrace.TYPE_FIRE, 0);
+        performFire(false);
+    }
+
+    /**
+     * 播放发射动画(不记录输入轨迹)
+     *
+     * @param replay 是否往回跳时重新执行：是的话线条沿用上一次发射时的随机种子
+     */
+    private void performFire(boolean replay) {
         if (mProgress >= .95F && mState == STATE_DRAGGING) {
+            if (mDraggingGeometryStale) {
+                //上一帧画的是缓存，要先把几何数据更新到当前进度
+                updateDraggingGeometry();
+            }
             mState = STATE_FIRING;
-            for (Line tmp : mLines) {
-                initLines(tmp);
+            if (mLines == null) {
+                initLines();
+            }
+            if (!replay) {
+                if (mFireLineSeeds == null || mFireLineSeeds.length != mLines.size()) {
+                    mFireLineSeeds = new long[mLines.size()];
+                }
+                for (int i = 0; i < mFireLineSeeds.length; i++) {
+                    mFireLineSeeds[i] = SharedResources.RANDOM.nextLong();
+                }
+                mFireProgress = mProgress;
+            }
+            long now = now();
+            for (int i = 0; i < mLines.size(); i++) {
+                Line tmp = mLines.get(i);
+                tmp.seed = mFireLineSeeds[i];
+                initLines(tmp, now);
             }
             mFiredArrowShrinkStartTime = 0;
             mFiredArrowMoveStartTime = 0;
@@ -278,34 +595,196 @@ public class ArrowDrawable extends Drawable {
             mFiredArrowLastMoveDistance = 0;
             //第一次要向上移动，所以是负数
             mFiredArrowMoveDistance = -Math.abs(mFiredArrowMoveDistance);
-            mFireTime = SystemClock.uptimeMillis();
+            if (mVolley != null) {
+                mVolley.reset(getVolleySpacing());
+            }
+            mFireTime = now();
+            //弦松开(箭开始收缩)的时间是确定的，提前算好，这样跳到任何时间都能画出同样的一帧
+            mFiredArrowShrinkStartTime = mFireTime + (long) (getStringReleaseFraction() * mFiringBowFallDuration);
+            //新的一次发射，之前的指令都不用再记着了
+            mCommandCount = 0;
+            mTimelineBaseTime = 0;
+            addCommand(InputTrace.TYPE_FIRE, -1);
             invalidateSelf();
         }
     }
 
+    /**
+     * 记录一个生效了的指令，往回跳时重新执行
+     */
+    private void addCommand(int type, int index) {
+        if (mCommands == null || mCommandCount == mCommands.length) {
+            int capacity = mCommands == null ? 8 : mCommandCount * 2;
+            mCommands = mCommands == null ? new int[capacity] : Arrays.copyOf(mCommands, capacity);
+            mCommandIndexes = mCommandIndexes == null ? new int[capacity] : Arrays.copyOf(mCommandIndexes, capacity);
+            mCommandTimes = mCommandTimes == null ? new long[capacity] : Arrays.copyOf(mCommandTimes, capacity);
+        }
+        mCommands[mCommandCount] = type;
+        mCommandIndexes[mCommandCount] = index;
+        mCommandTimes[mCommandCount] = now();
+        mCommandCount++;
+    }
+
+    /**
+     * 往回跳：先重置，再按原来的时间重新执行目标时间之前的发射、命中、未命中，之后的指令丢弃。
+     * 重新执行时跟原来一样从指令生效的那一刻开始推进，所以跟一帧一帧播放到目标时间得到的是同样的状态
+     *
+     * @param playTime 目标播放时间
+     * @return 实际的播放时间(恢复过快照的话，不能早于恢复的那一刻)
+     */
+    private long replayCommands(long playTime) {
+        long target = mPlayTimeOrigin + playTime;
+        int count = mCommandCount;
+        long baseTime = mTimelineBaseTime;
+        //重置会清空记录，但数组还在：重新执行时第i个指令只会写到第i个或之前的位置，不会覆盖还没读到的
+        resetWithoutInvalidate();
+        if (baseTime > 0) {
+            //恢复快照之前的状态是不知道的，先回到恢复的那一刻
+            mPlayTime = baseTime - mPlayTimeOrigin;
+            restoreState(mTimelineBase);
+            target = Math.max(target, baseTime);
+        } else if (count > 0) {
+            //回到发射前的拖动状态
+            updateProgress(mFireProgress);
+            mDraggingGeometryStale = true;
+        }
+        for (int i = 0; i < count && mCommandTimes[i] <= target; i++) {
+            mPlayTime = mCommandTimes[i] - mPlayTimeOrigin;
+            int index = mCommandIndexes[i];
+            switch (mCommands[i]) {
+                case InputTrace.TYPE_FIRE:
+                    performFire(true);
+                    break;
+                case InputTrace.TYPE_HIT:
+                    if (index < 0) {
+                        performHit();
+                    } else {
+                        hitVolleyArrow(index);
+                    }
+                    break;
+                case InputTrace.TYPE_MISS:
+                    if (index < 0) {
+                        performMiss();
+                    } else {
+                        missVolleyArrow(index);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return target - mPlayTimeOrigin;
+    }
+
+    /**
+     * 发射后的箭是否已经开始上下移动(收缩已经结束但还没画过的也算，要用到箭的位置的话先{@link #finishEndedShrinking()})
+     */
+    private boolean isArrowDancing() {
+        return mFiredArrowMoveStartTime > 0 || (mFiredArrowShrinkStartTime > 0
+                && now() - mFiredArrowShrinkStartTime >= mFiredArrowShrinkDuration);
+    }
+
+    /**
+     * 计算弓坠落的过程中，弦什么时候松开(弦两端比中间低的时候)
+     *
+     * @return 弓坠落动画的进度(0~1)，一直没有松开的话为1
+     */
+    private float getStringReleaseFraction() {
+        float low = 0;
+        float high = 1;
+        if (getFallingStringStartY(0) > mStringOffset) {
+            high = 0;
+        } else if (getFallingStringStartY(1) > mStringOffset) {
+            //二分查找，精确到1/4096
+            for (int i = 0; i < 12; i++) {
+                float middle = (low + high) / 2;
+                if (getFallingStringStartY(middle) > mStringOffset) {
+                    high = middle;
+                } else {
+                    low = middle;
+                }
+            }
+        }
+        //恢复当前的弓
+        updateBowPath(getAngleByProgress());
+        return high;
+    }
+
+    /**
+     * 计算弓坠落到指定进度时，弦左端的y坐标
+     *
+     * @param percent 弓坠落动画的进度(0~1)
+     */
+    private float getFallingStringStartY(float percent) {
+        updateFallingBowPath(InterpolatorTable.interpolate(mFiringBowFallInterpolator, percent));
+        if (mBowTable != null) {
+            return getBowPointY(getStringStartIndex(mBowTable.getPointCount(mBowTableRow)));
+        }
+        SharedResources.Scratch scratch = getScratch();
+        scratch.pathMeasure.setPath(mBowPath, false);
+        //跟updateStringPoints一样，弦的端点在弓的5%处
+        scratch.pathMeasure.getPosTan(scratch.pathMeasure.getLength() * .05F, scratch.position, null);
+        return scratch.position[1];
+    }
+
     /**
      * 初始化线条
      */
     private void initLines() {
-        mLines = new ArrayList<>(6);
+        mLines = createLines();
+    }
+
+    /**
+     * 创建坠落的线条
+     */
+    private static List<Line> createLines() {
+        List<Line> lines = new ArrayList<>(6);
         for (int i = 0; i < 6; i++) {
-            mLines.add(new Line());
+            lines.add(new Line());
         }
+        return lines;
     }
 
     /**
      * 初始化线条数据
-     */
-    private void initLines(Line tmp) {
-        tmp.startTime = SystemClock.uptimeMillis();
-        tmp.duration = mBaseLinesFallDuration / 4 + mRandom.nextInt(mBaseLinesFallDuration);
-        tmp.startY = -mHeight + mRandom.nextFloat() * mHeight;
+     *
+     * @param startTime 开始坠落的时间
+     */
+    private void initLines(Line tmp, long startTime) {
+        //随机数由线条自己的种子推出来，同样的种子总是得到同样的线条，这样跳到任何时间都能画出同样的一帧
+        long seed = nextLineSeed(tmp.seed);
+        float durationRandom = seedToFloat(seed);
+        seed = nextLineSeed(seed);
+        float startYRandom = seedToFloat(seed);
+        seed = nextLineSeed(seed);
+        float startXRandom = seedToFloat(seed);
+        tmp.seed = seed;
+        tmp.startTime = startTime;
+        tmp.duration = Math.max(1, mBaseLinesFallDuration / 4 + (int) (durationRandom * mBaseLinesFallDuration));
+        tmp.startY = -mHeight + startYRandom * mHeight;
         tmp.height = -tmp.startY;
-        tmp.startX = mRandom.nextFloat() * mWidth;
+        tmp.startX = startXRandom * mWidth;
         tmp.endX = tmp.startX;
         tmp.distance = mHeight - tmp.startY;
     }
 
+    /**
+     * 线条的下一个随机种子
+     */
+    private static long nextLineSeed(long seed) {
+        return seed + 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * 把随机种子打散成[0, 1)之间的浮点数(SplitMix64)
+     */
+    private static float seedToFloat(long seed) {
+        seed = (seed ^ (seed >>> 30)) * 0xBF58476D1CE4E5B9L;
+        seed = (seed ^ (seed >>> 27)) * 0x94D049BB133111EBL;
+        seed ^= seed >>> 31;
+        return (seed >>> 40) / (float) (1 << 24);
+    }
+
     /**
      * 更新ArrowDrawable的尺寸
      *
@@ -314,6 +793,15 @@ public class ArrowDrawable extends Drawable {
      * @param bowLength 弓长
      */
     public void updateSize(int width, int height, int bowLength) {
+        applySize(width, height, bowLength);
+        updateDrawScale(getBounds());
+        invalidateSelf();
+    }
+
+    /**
+     * 按新的尺寸重建几何数据(不更新画布缩放比例，也不重绘)
+     */
+    private void applySize(int width, int height, int bowLength) {
         mWidth = width;
         mHeight = height;
         //弓长
@@ -355,23 +843,153 @@ public class ArrowDrawable extends Drawable {
         mFiringBowOffsetDistance = mHeight - mMaxBowOffset + bowHeight;
 
 
-        if (mFinWidth > 0) {
-            mTailMaskFilter = new BlurMaskFilter(mFinWidth, BlurMaskFilter.Blur.NORMAL);
+        //尺寸变了，用到时再重新创建
+        mTailMaskFilter = null;
+        releaseSpriteStrip();
+        if (mLayerCache != null) {
+            //线宽、模糊半径都变了
+            mLayerCache.invalidateAll();
         }
-        mPaint.setPathEffect(new CornerPathEffect(mBowWidth));
+        mCornerPathEffect = new CornerPathEffect(mBowWidth);
+        updatePaints();
+        updateGeometryTableMatched();
         initArrowPath(mArrowBodyLength);
+        if (mState == STATE_NORMAL || mState == STATE_DRAGGING) {
+            //保持箭当前的偏移量，下一帧会根据新的尺寸重新计算
+            mArrowPath.offset(0, mArrowOffset);
+        }
         initArrowTail();
-        invalidateSelf();
+        clearPictureCache();
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        super.onBoundsChange(bounds);
+        updateDrawScale(bounds);
+    }
+
+    /**
+     * 根据bounds更新画布缩放比例，设置了重建阈值({@link #setGeometryRebuildThreshold(float)})并且偏离太多时，
+     * 直接按bounds的尺寸重建几何数据
+     */
+    private void updateDrawScale(Rect bounds) {
+        if (bounds.isEmpty() || mWidth <= 0 || mHeight <= 0) {
+            //没有设置bounds，按原尺寸画
+            setDrawScale(1, 1);
+            return;
+        }
+        float scaleX = (float) bounds.width() / mWidth;
+        float scaleY = (float) bounds.height() / mHeight;
+        //动画播放中重建几何数据会打乱箭的位置，所以只在静止和拖动状态下重建，其他状态先缩放，等reset后再重建
+        if ((Math.abs(scaleX - 1) > mGeometryRebuildThreshold || Math.abs(scaleY - 1) > mGeometryRebuildThreshold)
+                && (mState == STATE_NORMAL || mState == STATE_DRAGGING)) {
+            //弓长保持跟宽度的比例
+            int bowLength = (int) (mBowLength * scaleX);
+            applySize(bounds.width(), bounds.height(), bowLength);
+            //尺寸跟bounds一样了
+            setDrawScale(1, 1);
+        } else {
+            setDrawScale(scaleX, scaleY);
+        }
+    }
+
+    private void setDrawScale(float scaleX, float scaleY) {
+        if (mLayerCache != null && (mDrawScaleX != scaleX || mDrawScaleY != scaleY)) {
+            //图层缓存是按实际的像素渲染的
+            mLayerCache.invalidateAll();
+        }
+        mDrawScaleX = scaleX;
+        mDrawScaleY = scaleY;
     }
 
     /**
      * 初始化画笔
      */
     private void initPaint() {
-        mPaint = new Paint();
-        mPaint.setAntiAlias(true);
-        mPaint.setStrokeCap(Paint.Cap.ROUND);
-        mPaint.setStrokeJoin(Paint.Join.ROUND);
+        mBowPaint = createPaint(Paint.Style.FILL);
+        mHandlePaint = createPaint(Paint.Style.STROKE);
+        mStringPaint = createPaint(Paint.Style.STROKE);
+        mArrowPaint = createPaint(Paint.Style.FILL);
+    }
+
+    private static Paint createPaint(Paint.Style style) {
+        Paint paint = new Paint();
+        paint.setAntiAlias(true);
+        paint.setStrokeCap(Paint.Cap.ROUND);
+        paint.setStrokeJoin(Paint.Join.ROUND);
+        paint.setStyle(style);
+        return paint;
+    }
+
+    /**
+     * 尺寸、颜色、透明度、颜色过滤器改变时更新所有画笔，画的时候不再修改画笔
+     */
+    private void updatePaints() {
+        configurePaint(mBowPaint, mBowColor, 0);
+        configurePaint(mHandlePaint, mBowColor, mHandleWidth);
+        configurePaint(mStringPaint, mStringColor, mStringWidth);
+        configurePaint(mArrowPaint, mArrowColor, 0);
+        if (mLinePaint != null) {
+            configurePaint(mLinePaint, mLineColor, mArrowBodyWidth);
+        }
+        if (mTailPaint != null) {
+            configurePaint(mTailPaint, mArrowColor, 0);
+            mTailPaint.setMaskFilter(mTailMaskFilter);
+        }
+        if (mStreakRenderer != null) {
+            mStreakRenderer.setColor(mLineColor, getPaintAlpha(mLineColor), mColorFilter);
+        }
+    }
+
+    /**
+     * 设置画笔的颜色(叠加整体透明度)、颜色过滤器、线宽和圆角效果
+     */
+    private void configurePaint(Paint paint, int color, float strokeWidth) {
+        paint.setColor(color);
+        paint.setAlpha(getPaintAlpha(color));
+        paint.setColorFilter(mColorFilter);
+        paint.setStrokeWidth(strokeWidth);
+        paint.setPathEffect(mCornerPathEffect);
+    }
+
+    /**
+     * 颜色本身的透明度叠加整体透明度
+     */
+    private int getPaintAlpha(int color) {
+        return Color.alpha(color) * mAlpha / 255;
+    }
+
+    /**
+     * 获取坠落的线条的画笔
+     */
+    private Paint getLinePaint() {
+        if (mLinePaint == null) {
+            mLinePaint = createPaint(Paint.Style.STROKE);
+            configurePaint(mLinePaint, mLineColor, mArrowBodyWidth);
+        }
+        return mLinePaint;
+    }
+
+    /**
+     * 获取箭尾阴影的画笔
+     *
+     * @param alpha 箭尾渐隐的透明度(0~255)
+     */
+    private Paint getTailPaint(int alpha) {
+        if (mTailPaint == null) {
+            mTailPaint = createPaint(Paint.Style.FILL);
+            configurePaint(mTailPaint, mArrowColor, 0);
+        }
+        //只有箭尾渐隐或者阴影特效重新创建时才需要修改
+        int tailAlpha = getPaintAlpha(mArrowColor) * alpha / 255;
+        if (mTailPaint.getAlpha() != tailAlpha) {
+            mTailPaint.setAlpha(tailAlpha);
+        }
+        BlurMaskFilter filter = getTailMaskFilter();
+        if (mTailPaint.getMaskFilter() != filter) {
+            mTailPaint.setMaskFilter(filter);
+        }
+        return mTailPaint;
     }
 
     /**
@@ -380,61 +998,215 @@ public class ArrowDrawable extends Drawable {
     private void initArrowTail() {
         float tailHeight = mFinHeight * 2;
         mArrowTail.set(mCenterX - mFinWidth, 0, mCenterX + mFinWidth, tailHeight);
+        invalidateLayer(LayerCache.LAYER_TAIL);
     }
 
     @Override
     public void draw(@NonNull Canvas canvas) {
+        mCanvasRenderer.setCanvas(canvas);
+        render(mCanvasRenderer);
+        mCanvasRenderer.setCanvas(null);
+    }
+
+    /**
+     * 用指定的渲染器画出当前帧，{@link #draw(Canvas)}也是通过这个方法画到Canvas上的，
+     * 跟draw一样只能在同一个线程调用
+     *
+     * @param renderer 渲染器
+     */
+    public void render(@NonNull ArrowRenderer renderer) {
+        beginSection(SECTION_RENDER);
+        applyPublishedInput();
+        applyPendingOutcome();
+        if (mCacheEntries != null) {
+            releaseEvictedCaches();
+        }
+        mRendering = true;
+        if (mDirtyRegionEnabled) {
+            mFrameBounds.setEmpty();
+        }
+        mNeedInvalidateNextFrame = false;
+        mProgressInvalidatePending = false;
+        mDrawnProgress = mProgress;
+        Rect bounds = getBounds();
+        boolean needTransform = bounds.left != 0 || bounds.top != 0 || mDrawScaleX != 1 || mDrawScaleY != 1;
+        int saveCount = 0;
+        if (needTransform) {
+            //几何数据不变，直接把画布缩放到bounds里
+            saveCount = renderer.save();
+            renderer.translate(bounds.left, bounds.top);
+            renderer.scale(mDrawScaleX, mDrawScaleY);
+        }
+        drawCurrentState(renderer);
+        if (needTransform) {
+            renderer.restoreToCount(saveCount);
+        }
+        if (mNeedInvalidateNextFrame) {
+            invalidateDirtyRegion();
+        }
+        if (mDirtyRegionEnabled) {
+            mLastFrameBounds.set(mFrameBounds);
+        }
+        mRendering = false;
+        endSection();
+    }
+
+    /**
+     * 根据当前状态画出对应的元素
+     */
+    private void drawCurrentState(@NonNull ArrowRenderer renderer) {
+        beginSection(STATE_SECTIONS[mState]);
         switch (mState) {
             case STATE_MISSING:
-                handleMissingState(canvas);
+                handleMissingState(renderer);
                 break;
             case STATE_HITTING:
-                handleHittingState(canvas);
+                handleHittingState(renderer);
                 break;
             case STATE_FIRING:
-                handleFiringState(canvas);
+                handleFiringState(renderer);
                 break;
             default:
-                //画弓身
-                updateBowPath(getAngleByProgress());
-                drawBowPath(canvas);
-                //画弓柄
-                updateHandlePath();
-                drawHandlePath(canvas);
-                //画弦
-                updateStringPoints();
-                drawString(canvas);
-                //画箭
-                updateArrowOffset();
-                drawArrow(canvas);
+                if (mProgressSource != null && !mProgressSamplerScheduled) {
+                    //绑定时可能还没有Callback，在这里补上
+                    scheduleProgressSampler(FRAME_INTERVAL);
+                }
+                if (mPictureCache != null && renderer instanceof CanvasArrowRenderer) {
+                    //帧缓存是Canvas的Picture，画到其他渲染器时不用
+                    drawDraggingFrameFromCache((CanvasArrowRenderer) renderer);
+                } else {
+                    updateDraggingGeometry();
+                    drawDraggingFrame(renderer);
+                }
                 break;
         }
+        endSection();
+    }
+
+    /**
+     * 根据当前进度更新弓、手柄、弦、箭的几何数据
+     */
+    private void updateDraggingGeometry() {
+        beginSection(SECTION_UPDATE_GEOMETRY);
+        updateBowPath(getAngleByProgress());
+        updateBowPoints();
+        updateHandlePath();
+        updateStringPoints();
+        updateArrowOffset();
+        mDraggingGeometryStale = false;
+        endSection();
+    }
+
+    /**
+     * 画静止或拖动状态的一帧
+     */
+    private void drawDraggingFrame(@NonNull ArrowRenderer renderer) {
+        //画弓身
+        drawBowPath(renderer);
+        //画弓柄
+        drawHandlePath(renderer);
+        //画弦
+        drawString(renderer);
+        //画箭
+        drawArrow(renderer);
+    }
+
+    /**
+     * 从缓存中画静止或拖动状态的一帧，没有的话先录制
+     */
+    private void drawDraggingFrameFromCache(@NonNull CanvasArrowRenderer renderer) {
+        int bucket = mPictureCache.getBucket(mProgress);
+        Picture picture = mPictureCache.get(bucket);
+        if (picture == null) {
+            beginSection(SECTION_RECORD_PICTURE);
+            picture = recordDraggingFrame(mPictureCache.getProgress(bucket));
+            endSection();
+            mPictureCache.put(bucket, picture);
+            missCache(CacheCoordinator.CACHE_PICTURE);
+        } else {
+            hitCache(CacheCoordinator.CACHE_PICTURE);
+        }
+        //预先录制的帧是在后台线程放进来的，在这里一起报告
+        int pictureCount = mPictureCache.size();
+        if (pictureCount != mAccountedPictureCount) {
+            mAccountedPictureCount = pictureCount;
+            reportCacheBytes(CacheCoordinator.CACHE_PICTURE, (long) pictureCount
+                    * (getBowPointCount() + PICTURE_BASE_OPS) * PICTURE_OP_BYTES);
+        }
+        renderer.drawPicture(picture);
+        //几何数据可能是其他区间的，发射前要重新计算
+        mDraggingGeometryStale = true;
+    }
+
+    /**
+     * 录制指定进度的一帧
+     */
+    private Picture recordDraggingFrame(float progress) {
+        float currentProgress = mProgress;
+        mProgress = progress;
+        //Picture中不能引用图层缓存(之后会被覆盖)
+        LayerCache layerCache = mLayerCache;
+        mLayerCache = null;
+        updateDraggingGeometry();
+        Picture picture = new Picture();
+        if (mRecordingRenderer == null) {
+            mRecordingRenderer = new CanvasArrowRenderer();
+        }
+        mRecordingRenderer.setCanvas(picture.beginRecording(mWidth, mHeight));
+        drawDraggingFrame(mRecordingRenderer);
+        mRecordingRenderer.setCanvas(null);
+        picture.endRecording();
+        mLayerCache = layerCache;
+        if (layerCache != null) {
+            layerCache.invalidateAll();
+        }
+        mProgress = currentProgress;
+        return picture;
     }
 
     /**
      * 处理发射中的状态
      */
-    private void handleFiringState(@NonNull Canvas canvas) {
-        float firedTime = SystemClock.uptimeMillis() - mFireTime;
+    private void handleFiringState(@NonNull ArrowRenderer renderer) {
+        long now = now();
+        float firedTime = now - mFireTime;
         if (firedTime <= mFiringBowFallDuration) {
-            drawBowFalling(canvas, firedTime);
+            drawBowFalling(renderer, firedTime);
+        }
+        drawLinesAndArrow(renderer, now);
+        if (mVolley == null || mFiredArrowMoveStartTime == 0 || mVolley.isAnimating()) {
+            invalidateNextFrame();
+        } else {
+            //齐射模式下所有的箭都停下来了：有箭命中就算命中状态，全部飞走了就算未命中状态，不再刷新
+            mState = mVolley.hasHit() ? STATE_HITTING : STATE_MISSING;
         }
-        drawLinesAndArrow(canvas);
-        invalidateSelf();
     }
 
     /**
      * 处理命中状态
      */
-    private void handleHittingState(@NonNull Canvas canvas) {
+    private void handleHittingState(@NonNull ArrowRenderer renderer) {
+        if (mVolley != null) {
+            //齐射模式下，进入这个状态时所有的箭都已经停下来了
+            drawVolley(renderer);
+            return;
+        }
+        long now = now();
+        if (mHitStartTime > 0 && now - mHitStartTime >= mHitDuration) {
+            //命中动画已经结束，从结束的那一刻开始摆动
+            moveFiredArrow(InterpolatorTable.interpolate(mHitInterpolator, 1) * mHitDistance);
+            mSkewStartTime = mHitStartTime + mHitDuration;
+            mHitStartTime = 0;
+            mCurrentSkewCount = 1;
+        }
         if (mHitStartTime > 0) {
-            drawArrowHitting(canvas);
-            invalidateSelf();
+            drawArrowHitting(renderer, now);
+            invalidateNextFrame();
         } else {
             if (mSkewStartTime > 0) {
-                drawArrowSkewing(canvas);
+                drawArrowSkewing(renderer, now);
             } else {
-                drawArrow(canvas);
+                drawArrow(renderer);
             }
         }
     }
@@ -442,516 +1214,2520 @@ public class ArrowDrawable extends Drawable {
     /**
      * 处理未命中状态
      */
-    private void handleMissingState(@NonNull Canvas canvas) {
+    private void handleMissingState(@NonNull ArrowRenderer renderer) {
+        if (mVolley != null) {
+            drawVolley(renderer);
+            return;
+        }
         if (mMissStartTime > 0) {
-            float runTime = SystemClock.uptimeMillis() - mMissStartTime;
+            float runTime = now() - mMissStartTime;
             float percent = runTime / mMissDuration;
             if (percent > 1) {
                 percent = 1;
             }
-            float distance = percent * mMissDistance;
-            float offset = distance - mFiredArrowLastMoveDistance;
-            mFiredArrowLastMoveDistance = distance;
-            mArrowTail.offset(0, offset);
-            mArrowPath.offset(0, offset);
+            moveFiredArrow(InterpolatorTable.interpolate(mMissInterpolator, percent) * mMissDistance);
 
             if (percent < 1) {
                 //先画线条
-                drawLines(canvas);
+                drawLines(renderer);
                 updateLinesY();
             }
             //画箭
-            drawArrow(canvas);
+            drawArrow(renderer);
 
-            drawArrowTail(canvas);
+            drawArrowTail(renderer);
             if (percent == 1) {
                 mMissStartTime = 0;
                 return;
             }
         }
-        invalidateSelf();
+        invalidateNextFrame();
     }
 
     /**
      * 画正在坠落的弓
      */
-    private void drawBowFalling(@NonNull Canvas canvas, float firedTime) {
+    private void drawBowFalling(@NonNull ArrowRenderer renderer, float firedTime) {
         float percent = firedTime / mFiringBowFallDuration;
         if (percent > 1) {
             percent = 1;
         }
-        float angle = getAngleByProgress() - (percent * 3/*在弓向下移动了总距离的1/3时完全展开*/ * mUsableAngle);
-        if (angle < mBaseAngle) {
-            angle = mBaseAngle;
+        float fraction = InterpolatorTable.interpolate(mFiringBowFallInterpolator, percent);
+        float bowOffset = fraction * mFiringBowOffsetDistance;
+        if (mLayerCache != null && mFallingBowTranslatable) {
+            //弓已经完全展开，形状不会再变，只平移
+            translateFallingBow(bowOffset - mFallingBowOffset);
+        } else {
+            updateFallingBowPath(fraction);
+            updateBowPoints();
+            updateHandlePath();
+            updateStringPoints(false);
+            mFallingBowTranslatable = getFallingBowAngle(fraction) == mBaseAngle;
         }
-        updateBowPath(angle);
-        mBowPath.offset(0, percent * mFiringBowOffsetDistance);
+        mFallingBowOffset = bowOffset;
 
-        drawBowPath(canvas);
-        updateHandlePath();
-        drawHandlePath(canvas);
+        drawBowPath(renderer);
+        drawHandlePath(renderer);
 
         //画弦
-        updateStringPoints(false);
         if (mStringMiddlePoint.y < mStringStartPoint.y) {
+            //弦已经松开(箭开始收缩的时间在发射时就算好了)
             mStringMiddlePoint.y = mStringStartPoint.y;
-            if (mFiredArrowShrinkStartTime == 0) {
-                mFiredArrowShrinkStartTime = SystemClock.uptimeMillis();
-            }
+            invalidateLayer(LayerCache.LAYER_STRING);
+        }
+        drawString(renderer);
+        //画箭(开始收缩之后由drawShrinkingArrow画，这里再画的话用的是上一帧的形状)
+        if (now() < mFiredArrowShrinkStartTime) {
+            drawArrow(renderer);
         }
-        drawString(canvas);
-        //画箭
-        drawArrow(canvas);
     }
 
     /**
-     * 画正在左右摇摆的箭
+     * 更新正在坠落的弓
+     *
+     * @param fraction 经过插值器计算后的坠落进度
      */
-    private void drawArrowSkewing(@NonNull Canvas canvas) {
-        float runTime = SystemClock.uptimeMillis() - mSkewStartTime;
-        float percent = runTime / mSkewDuration;
-        if (percent > 1) {
-            percent = 1;
-        }
-        float tan = mSkewTan * percent;
-        if (mCurrentSkewCount % 2 == 0) {
-            tan -= mSkewTan;
-        }
-        //箭头已经到达目的地
-        canvas.skew(tan, 0);
-        //画箭
-        drawArrow(canvas);
-        if (percent == 1) {
-            if (mCurrentSkewCount == mMaxSkewCount) {
-                //完满结束
-                mSkewStartTime = 0;
-                return;
-            } else {
-                mSkewStartTime = SystemClock.uptimeMillis();
-                mCurrentSkewCount++;
-            }
-            //如果次数为偶数就要切换方法(一次来一次回，所以是偶数)
-            if (mCurrentSkewCount % 2 == 0) {
-                mSkewTan = -mSkewTan;
-            }
+    private void updateFallingBowPath(float fraction) {
+        updateBowPath(getFallingBowAngle(fraction));
+        if (mBowTable != null) {
+            mBowTableOffsetY += fraction * mFiringBowOffsetDistance;
+        } else {
+            mBowPath.offset(0, fraction * mFiringBowOffsetDistance);
         }
-        invalidateSelf();
     }
 
     /**
-     * 画正在射向目标的箭
+     * 计算正在坠落的弓的弯曲角度
+     *
+     * @param fraction 经过插值器计算后的坠落进度
      */
-    private void drawArrowHitting(@NonNull Canvas canvas) {
-        float runTime = SystemClock.uptimeMillis() - mHitStartTime;
+    private float getFallingBowAngle(float fraction) {
+        float angle = getAngleByProgress() - (fraction * 3/*在弓向下移动了总距离的1/3时完全展开*/ * mUsableAngle);
+        return angle < mBaseAngle ? mBaseAngle : angle;
+    }
+
+    /**
+     * 平移已经完全展开的弓(包括手柄和弦)，不用重新分解Path
+     */
+    private void translateFallingBow(float dy) {
+        if (mBowTable != null) {
+            mBowTableOffsetY += dy;
+        } else {
+            mBowPath.offset(0, dy);
+            for (int i = 1; i < mBowPointCount * 2; i += 2) {
+                mBowPathPoints[i] += dy;
+            }
+        }
+        mHandlePath.offset(0, dy);
+        offsetLayer(LayerCache.LAYER_BOW, dy);
+        offsetLayer(LayerCache.LAYER_HANDLE, dy);
+        //弦已经松开的话，三个点一起平移，否则中间的点不动
+        boolean released = mStringMiddlePoint.y == mStringStartPoint.y;
+        mStringStartPoint.y += dy;
+        mStringEndPoint.y += dy;
+        if (released) {
+            mStringMiddlePoint.y += dy;
+            offsetLayer(LayerCache.LAYER_STRING, dy);
+        } else {
+            invalidateLayer(LayerCache.LAYER_STRING);
+        }
+    }
+
+    /**
+     * 画正在左右摇摆的箭
+     */
+    private void drawArrowSkewing(@NonNull ArrowRenderer renderer, long now) {
+        long skewDuration = getSkewDurationMillis();
+        long cycles = (now - mSkewStartTime) / skewDuration;
+        if (cycles > 0) {
+            //把已经结束的摆动补完(跳转或者掉帧时可能一次跨过好几次)，下一次从上一次结束的那一刻开始
+            boolean finished = mCurrentSkewCount + cycles > mMaxSkewCount;
+            int skewCount = finished ? mMaxSkewCount : (int) (mCurrentSkewCount + cycles);
+            //次数为偶数时要切换方向(一次来一次回，所以是偶数)，一次跨过了好几次的话，只看切换了奇数次还是偶数次
+            if ((skewCount / 2 - mCurrentSkewCount / 2) % 2 != 0) {
+                mSkewTan = -mSkewTan;
+            }
+            mCurrentSkewCount = skewCount;
+            if (finished) {
+                //完满结束
+                mSkewStartTime = 0;
+                drawArrow(renderer);
+                return;
+            }
+            mSkewStartTime += cycles * skewDuration;
+        }
+        float percent = (float) (now - mSkewStartTime) / skewDuration;
+        float tan = mSkewTan * InterpolatorTable.interpolate(mSkewInterpolator, percent);
+        if (mCurrentSkewCount % 2 == 0) {
+            tan -= mSkewTan;
+        }
+        //箭头已经到达目的地
+        renderer.skew(tan, 0);
+        //画箭
+        mDirtySkewTan = tan;
+        drawArrow(renderer);
+        mDirtySkewTan = 0;
+        invalidateNextFrame();
+    }
+
+    /**
+     * 画正在射向目标的箭
+     */
+    private void drawArrowHitting(@NonNull ArrowRenderer renderer, long now) {
+        float runTime = now - mHitStartTime;
         float percent = runTime / mHitDuration;
         if (percent > 1) {
             percent = 1;
-            mHitStartTime = 0;
-            mSkewStartTime = SystemClock.uptimeMillis();
-            mCurrentSkewCount = 1;
         }
-        float distance = percent * mHitDistance;
-        float offset = distance - mFiredArrowLastMoveDistance;
-        mFiredArrowLastMoveDistance = distance;
-        mArrowTail.offset(0, offset);
-        mArrowPath.offset(0, offset);
+        float fraction = InterpolatorTable.interpolate(mHitInterpolator, percent);
+        moveFiredArrow(fraction * mHitDistance);
 
         //先画线条
-        drawLines(canvas);
+        drawLines(renderer);
         updateLinesY();
         //画箭
-        drawArrow(canvas);
+        drawArrow(renderer);
         //箭尾渐渐变得透明起来，直至完全透明
-        drawArrowTail(canvas, (int) (255 * (1 - percent)));
-        mPaint.setAlpha(255);
+        drawArrowTail(renderer, fractionToAlpha(1 - fraction));
     }
 
     /**
      * 画线条和箭
      */
-    private void drawLinesAndArrow(@NonNull Canvas canvas) {
+    private void drawLinesAndArrow(@NonNull ArrowRenderer renderer, long now) {
+        finishEndedShrinking();
         if (mFiredArrowMoveStartTime > 0) {
+            if (mVolley != null) {
+                drawVolley(renderer);
+                return;
+            }
             //先画线条
-            drawLines(canvas);
+            drawLines(renderer);
             updateLinesY();
-            drawDancingArrow(canvas);
-        } else if (mFiredArrowShrinkStartTime > 0) {
-            drawShrinkingArrow(canvas);
+            drawDancingArrow(renderer, now);
+        } else if (now >= mFiredArrowShrinkStartTime) {
+            drawShrinkingArrow(renderer, now);
         }
     }
 
     /**
      * 画正在上下移动的箭
      */
-    private void drawDancingArrow(@NonNull Canvas canvas) {
-        float runTime = SystemClock.uptimeMillis() - mFiredArrowMoveStartTime;
-        float percent = runTime / mFiredArrowMoveDuration;
-        if (percent > 1) {
-            percent = 1;
+    private void drawDancingArrow(@NonNull ArrowRenderer renderer, long now) {
+        updateDancingArrow(now);
+        if (mSpriteStripEnabled) {
+            if (mSpriteStrip == null) {
+                beginSection(SECTION_CREATE_SPRITE);
+                mSpriteStrip = createSpriteStrip();
+                endSection();
+                if (mSpriteStrip != null) {
+                    missCache(CacheCoordinator.CACHE_SPRITE);
+                    reportCacheBytes(CacheCoordinator.CACHE_SPRITE, mSpriteStrip.getByteCount());
+                }
+            } else {
+                hitCache(CacheCoordinator.CACHE_SPRITE);
+            }
+            if (mSpriteStrip != null) {
+                drawSpriteStripFrame(renderer, now);
+                return;
+            }
+        }
+        drawArrow(renderer);
+
+        drawArrowTail(renderer);
+    }
+
+    /**
+     * 获取正在上下移动的箭相对于周期起点(开始向上移动的那一刻)的垂直偏移
+     */
+    private float getDancingOffset() {
+        //向上移动时距离是负数，从周期起点开始；向下移动时从最高点开始
+        return mFiredArrowMoveDistance < 0 ? mFiredArrowLastMoveDistance : mFiredArrowLastMoveDistance - mFiredArrowMoveDistance;
+    }
+
+    /**
+     * 从预渲染的帧中画出正在上下移动的箭
+     */
+    private void drawSpriteStripFrame(@NonNull ArrowRenderer renderer, long now) {
+        long moveDuration = Math.max(1, mFiredArrowMoveDuration);
+        long phaseTime = (mFiredArrowMoveDistance < 0 ? 0 : moveDuration) + Math.max(0, now - mFiredArrowMoveStartTime);
+        int frame = mSpriteStrip.getFrame(phaseTime, moveDuration * 2);
+        //渲染时箭在周期起点，现在周期起点的位置可能不一样(例如尺寸没变，但重新发射过)
+        float offsetY = mArrowTail.top - getDancingOffset() - mSpriteStripTailTop;
+        RectF bounds = mSpriteStrip.draw(renderer, frame, offsetY, mArrowPaint);
+        if (mDirtyRegionEnabled) {
+            mTempBounds.set(bounds);
+            includeDirtyBounds(mTempBounds);
+        }
+    }
+
+    /**
+     * 把箭上下移动的一个周期(一上一下)渲染成一排帧，只保存透明度
+     *
+     * @return 箭的尺寸为0时为null
+     */
+    @Nullable
+    private SpriteStrip createSpriteStrip() {
+        long moveDuration = Math.max(1, mFiredArrowMoveDuration);
+        long period = moveDuration * 2;
+        int frameCount = (int) Math.max(2, Math.min(MAX_SPRITE_FRAMES, period / FRAME_INTERVAL));
+        float distance = Math.abs(mFiredArrowMoveDistance);
+        //每一帧相对于周期起点的偏移
+        float[] offsets = new float[frameCount];
+        float minOffset = 0;
+        float maxOffset = 0;
+        for (int i = 0; i < frameCount; i++) {
+            long time = i * period / frameCount;
+            offsets[i] = time < moveDuration
+                    ? -InterpolatorTable.interpolate(mFiredArrowMoveInterpolator, (float) time / moveDuration) * distance
+                    : -distance + InterpolatorTable.interpolate(mFiredArrowMoveInterpolator, (float) (time - moveDuration) / moveDuration) * distance;
+            minOffset = Math.min(minOffset, offsets[i]);
+            maxOffset = Math.max(maxOffset, offsets[i]);
+        }
+        //箭在周期起点时的范围，箭尾的阴影向外扩展模糊半径的两倍
+        float currentOffset = getDancingOffset();
+        RectF bounds = new RectF();
+        mArrowPath.computeBounds(bounds, true);
+        bounds.union(mArrowTail.left - mFinWidth * 2, mArrowTail.top - mFinWidth * 2,
+                mArrowTail.right + mFinWidth * 2, mArrowTail.bottom + mFinWidth * 2);
+        bounds.offset(0, -currentOffset);
+        float left = (float) Math.floor(bounds.left);
+        float top = (float) Math.floor(bounds.top + minOffset);
+        int cellWidth = (int) Math.ceil(bounds.right - left);
+        int cellHeight = (int) Math.ceil(bounds.bottom + maxOffset - top);
+        if (cellWidth <= 0 || cellHeight <= 0) {
+            return null;
+        }
+        Bitmap bitmap = Bitmap.createBitmap(cellWidth * frameCount, cellHeight, Bitmap.Config.ALPHA_8);
+        Canvas canvas = new Canvas(bitmap);
+        //只要透明度，颜色在画的时候再加上
+        Paint arrowPaint = new Paint(mArrowPaint);
+        arrowPaint.setColor(Color.BLACK);
+        arrowPaint.setColorFilter(null);
+        Paint tailPaint = new Paint(getTailPaint(255));
+        tailPaint.setColor(Color.BLACK);
+        tailPaint.setColorFilter(null);
+        float appliedOffset = currentOffset;
+        for (int i = 0; i < frameCount; i++) {
+            float offset = offsets[i] - appliedOffset;
+            appliedOffset = offsets[i];
+            mArrowPath.offset(0, offset);
+            mArrowTail.offset(0, offset);
+            int saveCount = canvas.save();
+            canvas.translate(i * cellWidth - left, -top);
+            //阴影不能画到相邻的格子里
+            canvas.clipRect(left, top, left + cellWidth, top + cellHeight);
+            canvas.drawPath(mArrowPath, arrowPaint);
+            canvas.drawRect(mArrowTail, tailPaint);
+            canvas.restoreToCount(saveCount);
+        }
+        //恢复箭当前的位置
+        mArrowPath.offset(0, currentOffset - appliedOffset);
+        mArrowTail.offset(0, currentOffset - appliedOffset);
+        mSpriteStripTailTop = mArrowTail.top - currentOffset;
+        return new SpriteStrip(bitmap, frameCount, cellWidth, cellHeight, left, top);
+    }
+
+    /**
+     * 释放预渲染的帧，下次用到时再重新渲染
+     */
+    private void releaseSpriteStrip() {
+        if (mSpriteStrip != null) {
+            //不recycle，见LayerCache.release
+            mSpriteStrip = null;
+            reportCacheBytes(CacheCoordinator.CACHE_SPRITE, 0);
+        }
+    }
+
+    /**
+     * 把正在上下移动的箭推进到指定时间
+     */
+    private void updateDancingArrow(long now) {
+        long moveDuration = Math.max(1, mFiredArrowMoveDuration);
+        //把已经结束的移动补完(跳转或者掉帧时可能一次跨过好几次)，下一次从上一次结束的那一刻开始
+        while (now - mFiredArrowMoveStartTime >= moveDuration) {
+            moveFiredArrow(InterpolatorTable.interpolate(mFiredArrowMoveInterpolator, 1) * mFiredArrowMoveDistance);
+            mFiredArrowMoveStartTime += moveDuration;
+            //一上一下正好回到原位，成对的完整移动直接跳过
+            mFiredArrowMoveStartTime += (now - mFiredArrowMoveStartTime) / (moveDuration * 2) * moveDuration * 2;
+            //切换方向
+            mFiredArrowMoveDistance = -mFiredArrowMoveDistance;
+            //重置上一次的偏移距离
+            mFiredArrowLastMoveDistance = 0;
         }
-        float distance = percent * mFiredArrowMoveDistance;
+        float percent = (float) (now - mFiredArrowMoveStartTime) / moveDuration;
+        moveFiredArrow(InterpolatorTable.interpolate(mFiredArrowMoveInterpolator, percent) * mFiredArrowMoveDistance);
+    }
+
+    /**
+     * 命中后每次左右摆动的时长(毫秒)
+     */
+    private long getSkewDurationMillis() {
+        return Math.max(1, Math.round(mSkewDuration));
+    }
+
+    /**
+     * 移动发射后的箭和箭尾
+     *
+     * @param distance 当前阶段一共要移动的距离
+     */
+    private void moveFiredArrow(float distance) {
         float offset = distance - mFiredArrowLastMoveDistance;
         mFiredArrowLastMoveDistance = distance;
         mArrowTail.offset(0, offset);
         mArrowPath.offset(0, offset);
-        drawArrow(canvas);
+        offsetLayer(LayerCache.LAYER_ARROW, offset);
+        offsetLayer(LayerCache.LAYER_TAIL, offset);
+    }
+
+    /**
+     * 画正在缩短的箭
+     */
+    private void drawShrinkingArrow(@NonNull ArrowRenderer renderer, long now) {
+        float runTime = now - mFiredArrowShrinkStartTime;
+        float percent = runTime / mFiredArrowShrinkDuration;
+        if (percent > 1) {
+            percent = 1;
+        }
+        float fraction = InterpolatorTable.interpolate(mFiredArrowShrinkInterpolator, percent);
+        updateShrinkingArrow(fraction);
 
-        drawArrowTail(canvas);
+        if (mVolley != null) {
+            //齐射模式下，收缩的同时分成多支箭
+            for (int i = 0; i < mVolley.count; i++) {
+                drawVolleyArrow(renderer, i, 0, fractionToAlpha(fraction));
+            }
+        } else {
+            drawArrowTail(renderer, fractionToAlpha(fraction));
 
-        if (percent == 1) {
-            //刷新开始时间
-            mFiredArrowMoveStartTime = SystemClock.uptimeMillis();
+            drawArrow(renderer);
+        }
+    }
+
+    /**
+     * 更新正在缩短的箭(这里要更新ArrowPath)
+     *
+     * @param fraction 经过插值器计算后的收缩进度
+     */
+    private void updateShrinkingArrow(float fraction) {
+        float needSubtractLength = fraction * mFiredArrowShrinkDistance;
+        float arrowLength = mArrowBodyLength - needSubtractLength;
+        initArrowPath(arrowLength);
+
+        float newArrowOffset = mArrowOffset - needSubtractLength;
+        mArrowPath.offset(0, newArrowOffset);
+        float tailTop = mArrowTail.top;
+        mArrowTail.offsetTo(mArrowTail.left, newArrowOffset - mFinHeight / 2);
+        offsetLayer(LayerCache.LAYER_TAIL, mArrowTail.top - tailTop);
+    }
+
+    /**
+     * 收缩已经结束(还没画过也算)的话，结束收缩：上下移动从收缩结束的那一刻开始，而不是发现结束的这一帧，
+     * 所以掉帧或者跳转时，多出来的时间会算到上下移动中
+     */
+    private void finishEndedShrinking() {
+        if (mState == STATE_FIRING && mFiredArrowMoveStartTime == 0 && mFiredArrowShrinkStartTime > 0
+                && now() - mFiredArrowShrinkStartTime >= mFiredArrowShrinkDuration) {
+            finishShrinking();
+        }
+    }
+
+    /**
+     * 结束收缩，从收缩结束的那一刻开始上下移动
+     */
+    private void finishShrinking() {
+        updateShrinkingArrow(InterpolatorTable.interpolate(mFiredArrowShrinkInterpolator, 1));
+        mFiredArrowMoveStartTime = mFiredArrowShrinkStartTime + mFiredArrowShrinkDuration;
+        mFiredArrowShrinkStartTime = 0;
+        if (mVolley != null) {
+            mVolley.startDancing(mFiredArrowMoveStartTime, mFiredArrowMoveDuration, mFiredArrowMoveDistance);
+        }
+    }
+
+    /**
+     * 画齐射模式下的所有箭
+     */
+    private void drawVolley(@NonNull ArrowRenderer renderer) {
+        long now = now();
+        for (int i = 0; i < mVolley.count; i++) {
+            updateVolleyArrow(i, now);
+        }
+        if (mVolley.isFlying()) {
+            //还有箭在飞，先画线条
+            drawLines(renderer);
+            updateLinesY();
+        }
+        for (int i = 0; i < mVolley.count; i++) {
+            switch (mVolley.phases[i]) {
+                case Volley.PHASE_DANCING:
+                case Volley.PHASE_MISSING:
+                    drawVolleyArrow(renderer, i, 0, 255);
+                    break;
+                case Volley.PHASE_HITTING:
+                    float fraction = InterpolatorTable.interpolate(mHitInterpolator, getVolleyPercent(i, now, mHitDuration));
+                    //箭尾渐渐变得透明起来，直至完全透明
+                    drawVolleyArrow(renderer, i, 0, fractionToAlpha(1 - fraction));
+                    break;
+                case Volley.PHASE_SKEWING:
+                    float skewTan = mVolley.skewTans[i];
+                    float tan = skewTan * InterpolatorTable.interpolate(mSkewInterpolator, getVolleyPercent(i, now, getSkewDurationMillis()));
+                    if (mVolley.skewCounts[i] % 2 == 0) {
+                        tan -= skewTan;
+                    }
+                    drawVolleyArrow(renderer, i, tan, 0);
+                    break;
+                case Volley.PHASE_HIT:
+                    drawVolleyArrow(renderer, i, 0, 0);
+                    break;
+                default:
+                    //已经飞出去了，不用画
+                    break;
+            }
+        }
+    }
+
+    /**
+     * 把齐射模式下某支箭推进到指定时间：已经结束的阶段都补完，下一个阶段从上一个阶段结束的那一刻开始，
+     * 这样掉帧时动画也不会变慢
+     */
+    private void updateVolleyArrow(int index, long now) {
+        boolean phaseChanged;
+        do {
+            switch (mVolley.phases[index]) {
+                case Volley.PHASE_DANCING:
+                    phaseChanged = updateVolleyDancingArrow(index, now);
+                    break;
+                case Volley.PHASE_HITTING:
+                    phaseChanged = updateVolleyHittingArrow(index, now);
+                    break;
+                case Volley.PHASE_SKEWING:
+                    phaseChanged = updateVolleySkewingArrow(index, now);
+                    break;
+                case Volley.PHASE_MISSING:
+                    phaseChanged = updateVolleyMissingArrow(index, now);
+                    break;
+                default:
+                    phaseChanged = false;
+                    break;
+            }
+        } while (phaseChanged);
+    }
+
+    /**
+     * 更新齐射模式下正在上下移动的箭(一直在上下移动，不会切换阶段)
+     *
+     * @return 是否切换了阶段
+     */
+    private boolean updateVolleyDancingArrow(int index, long now) {
+        long moveDuration = Math.max(1, mFiredArrowMoveDuration);
+        long startTime = mVolley.startTimes[index];
+        while (now - startTime >= moveDuration) {
+            //先把当前这次移动补完
+            moveVolleyArrow(index, InterpolatorTable.interpolate(mFiredArrowMoveInterpolator, 1) * mVolley.moveDistances[index]);
+            startTime += moveDuration;
+            //一上一下正好回到原位，成对的完整移动直接跳过
+            startTime += (now - startTime) / (moveDuration * 2) * moveDuration * 2;
             //切换方向
-            mFiredArrowMoveDistance = -mFiredArrowMoveDistance;
-            //重置上一次的偏移距离
-            mFiredArrowLastMoveDistance = 0;
+            mVolley.moveDistances[index] = -mVolley.moveDistances[index];
+            mVolley.setPhase(index, Volley.PHASE_DANCING, startTime);
+        }
+        float percent = getVolleyPercent(index, now, moveDuration);
+        moveVolleyArrow(index, InterpolatorTable.interpolate(mFiredArrowMoveInterpolator, percent) * mVolley.moveDistances[index]);
+        return false;
+    }
+
+    /**
+     * 更新齐射模式下正在射向目标的箭
+     *
+     * @return 是否切换了阶段
+     */
+    private boolean updateVolleyHittingArrow(int index, long now) {
+        float percent = getVolleyPercent(index, now, mHitDuration);
+        moveVolleyArrow(index, InterpolatorTable.interpolate(mHitInterpolator, percent) * mVolley.targetDistances[index]);
+        if (percent == 1) {
+            mVolley.setPhase(index, Volley.PHASE_SKEWING, mVolley.startTimes[index] + mHitDuration);
+            mVolley.skewCounts[index] = 1;
+            mVolley.skewTans[index] = mSkewTan;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 更新齐射模式下正在左右摇摆的箭
+     *
+     * @return 是否切换了阶段
+     */
+    private boolean updateVolleySkewingArrow(int index, long now) {
+        long skewDuration = getSkewDurationMillis();
+        long startTime = mVolley.startTimes[index];
+        long cycles = (now - startTime) / skewDuration;
+        if (cycles <= 0) {
+            return false;
+        }
+        int skewCount = mVolley.skewCounts[index];
+        if (skewCount + cycles > mMaxSkewCount) {
+            //完满结束
+            mVolley.setPhase(index, Volley.PHASE_HIT, startTime + (mMaxSkewCount - skewCount + 1) * skewDuration);
+            return true;
+        }
+        int newSkewCount = (int) (skewCount + cycles);
+        //次数为偶数时要切换方向(一次来一次回，所以是偶数)，一次跨过了好几次的话，只看切换了奇数次还是偶数次
+        if ((newSkewCount / 2 - skewCount / 2) % 2 != 0) {
+            mVolley.skewTans[index] = -mVolley.skewTans[index];
+        }
+        mVolley.skewCounts[index] = newSkewCount;
+        mVolley.setPhase(index, Volley.PHASE_SKEWING, startTime + cycles * skewDuration);
+        return false;
+    }
+
+    /**
+     * 更新齐射模式下未命中正在飞出的箭
+     *
+     * @return 是否切换了阶段
+     */
+    private boolean updateVolleyMissingArrow(int index, long now) {
+        float percent = getVolleyPercent(index, now, mMissDuration);
+        moveVolleyArrow(index, InterpolatorTable.interpolate(mMissInterpolator, percent) * mVolley.targetDistances[index]);
+        if (percent == 1) {
+            mVolley.setPhase(index, Volley.PHASE_MISSED, mVolley.startTimes[index] + mMissDuration);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 计算齐射模式下某支箭当前阶段的进度(0~1)
+     */
+    private float getVolleyPercent(int index, long now, long duration) {
+        float percent = duration > 0 ? (float) (now - mVolley.startTimes[index]) / duration : 1;
+        if (percent < 0) {
+            //还没轮到它
+            percent = 0;
+        } else if (percent > 1) {
+            percent = 1;
+        }
+        return percent;
+    }
+
+    /**
+     * 更新齐射模式下某支箭在当前阶段移动的距离
+     */
+    private void moveVolleyArrow(int index, float distance) {
+        mVolley.offsetY[index] += distance - mVolley.lastDistances[index];
+        mVolley.lastDistances[index] = distance;
+    }
+
+    /**
+     * 画齐射模式下的一支箭：共用同一个箭的Path，只平移画布
+     *
+     * @param skewTan   画布的倾斜值(命中后左右摆动)
+     * @param tailAlpha 箭尾的透明度，0表示不画箭尾
+     */
+    private void drawVolleyArrow(@NonNull ArrowRenderer renderer, int index, float skewTan, int tailAlpha) {
+        float offsetX = mVolley.offsetX[index];
+        float offsetY = mVolley.offsetY[index];
+        int saveCount = renderer.save();
+        renderer.translate(offsetX, 0);
+        if (skewTan != 0) {
+            renderer.skew(skewTan, 0);
+        }
+        renderer.translate(0, offsetY);
+        mDirtyOffsetX = offsetX;
+        mDirtyOffsetY = offsetY;
+        mDirtySkewTan = skewTan;
+        drawArrow(renderer);
+        if (tailAlpha > 0) {
+            drawArrowTail(renderer, tailAlpha);
+        }
+        mDirtyOffsetX = 0;
+        mDirtyOffsetY = 0;
+        mDirtySkewTan = 0;
+        renderer.restoreToCount(saveCount);
+    }
+
+    /**
+     * 齐射模式下相邻两支箭的间距
+     */
+    private float getVolleySpacing() {
+        return Math.min(mFinHeight * 1.5F, (float) mWidth / mVolleyCount);
+    }
+
+    /**
+     * 画正在坠落的线条
+     */
+    private void drawLines(@NonNull ArrowRenderer renderer) {
+        beginSection(SECTION_DRAW_LINES);
+        if (mLineMode == LINE_MODE_SHADER) {
+            drawStreaks(renderer);
+        } else {
+            Paint paint = getLinePaint();
+            for (Line tmp : mLines) {
+                renderer.drawLine(tmp.startX, tmp.startY, tmp.endX, tmp.startY + tmp.height, paint);
+            }
+            includeLinesBounds();
+        }
+        endSection();
+    }
+
+    /**
+     * 用Shader画坠落的线条
+     */
+    private void drawStreaks(@NonNull ArrowRenderer renderer) {
+        if (mStreakRenderer == null) {
+            mStreakRenderer = new StreakRenderer();
+            mStreakRenderer.setColor(mLineColor, getPaintAlpha(mLineColor), mColorFilter);
+        }
+        if (mStreakRenderer.update(mWidth, mHeight, mArrowBodyWidth, mStreakDensity)) {
+            missCache(CacheCoordinator.CACHE_STREAK);
+            reportCacheBytes(CacheCoordinator.CACHE_STREAK, mStreakRenderer.getByteCount());
+        } else {
+            hitCache(CacheCoordinator.CACHE_STREAK);
+        }
+        //每个周期正好移动一个纹理的高度，速度跟逐条画时的平均速度差不多
+        long period = Math.max(1, mBaseLinesFallDuration / 2);
+        float fraction = (float) ((now() - mFireTime) % period) / period;
+        mStreakRenderer.draw(renderer, fraction);
+        if (mDirtyRegionEnabled) {
+            //纹理铺满了整个区域
+            mTempBounds.set(0, 0, mWidth, mHeight);
+            includeDirtyBounds(mTempBounds);
+        }
+    }
+
+    /**
+     * 画弓
+     */
+    private void drawBowPath(ArrowRenderer renderer) {
+        drawLayer(renderer, LayerCache.LAYER_BOW, mBowPaint);
+    }
+
+    /**
+     * 画手柄
+     */
+    private void drawHandlePath(@NonNull ArrowRenderer renderer) {
+        drawLayer(renderer, LayerCache.LAYER_HANDLE, mHandlePaint);
+    }
+
+    /**
+     * 画弦
+     */
+    private void drawString(@NonNull ArrowRenderer renderer) {
+        drawLayer(renderer, LayerCache.LAYER_STRING, mStringPaint);
+    }
+
+    /**
+     * 画箭
+     */
+    private void drawArrow(@NonNull ArrowRenderer renderer) {
+        drawLayer(renderer, LayerCache.LAYER_ARROW, mArrowPaint);
+    }
+
+    private void drawArrowTail(@NonNull ArrowRenderer renderer) {
+        drawArrowTail(renderer, 255);
+    }
+
+    /**
+     * 把插值后的进度转换成透明度，插值器可能会超出0~1(例如OvershootInterpolator)，要限制在0~255
+     */
+    private static int fractionToAlpha(float fraction) {
+        return fraction <= 0 ? 0 : fraction >= 1 ? 255 : (int) (255 * fraction);
+    }
+
+    /**
+     * 画箭尾
+     */
+    private void drawArrowTail(@NonNull ArrowRenderer renderer, int alpha) {
+        beginSection(SECTION_DRAW_TAIL);
+        drawLayer(renderer, LayerCache.LAYER_TAIL, getTailPaint(alpha));
+        endSection();
+    }
+
+    /**
+     * 画一个图层：开启了分图层绘制并且形状没变的话画缓存，否则直接画
+     *
+     * @param paint 图层的画笔
+     */
+    private void drawLayer(@NonNull ArrowRenderer renderer, int layer, @NonNull Paint paint) {
+        LayerCache cache = mLayerCache;
+        if (cache != null && (isLayerCacheHit(layer) || (cache.shouldCache(layer) && renderLayerCache(layer, paint)))) {
+            RectF bounds = cache.draw(renderer, layer, paint);
+            if (mDirtyRegionEnabled) {
+                mTempBounds.set(bounds);
+                includeDirtyBounds(mTempBounds);
+            }
+            return;
+        }
+        drawLayerContent(renderer, layer, paint);
+        if (mDirtyRegionEnabled) {
+            getLayerBounds(layer, mTempBounds);
+            includeDirtyBounds(mTempBounds);
+        }
+    }
+
+    /**
+     * 把图层渲染到缓存中
+     *
+     * @return 图层的区域为空时返回false
+     */
+    private boolean renderLayerCache(int layer, @NonNull Paint paint) {
+        getLayerBounds(layer, mLayerBounds);
+        //多留1px给抗锯齿
+        mLayerBounds.inset(-1, -1);
+        Canvas canvas = mLayerCache.beginCache(layer, mLayerBounds, mDrawScaleX, mDrawScaleY);
+        if (canvas == null) {
+            return false;
+        }
+        beginSection(SECTION_RENDER_LAYER);
+        mLayerRenderer.setCanvas(canvas);
+        drawLayerContent(mLayerRenderer, layer, mLayerCache.getMaskPaint(paint));
+        mLayerRenderer.setCanvas(null);
+        endSection();
+        missCache(CacheCoordinator.CACHE_LAYER);
+        reportCacheBytes(CacheCoordinator.CACHE_LAYER, mLayerCache.getByteCount());
+        return true;
+    }
+
+    /**
+     * 图层的缓存是否有效(有效的话记为命中)
+     */
+    private boolean isLayerCacheHit(int layer) {
+        if (mLayerCache.isCached(layer)) {
+            hitCache(CacheCoordinator.CACHE_LAYER);
+            return true;
         }
+        return false;
+    }
+
+    /**
+     * 画出图层的内容
+     */
+    private void drawLayerContent(@NonNull ArrowRenderer renderer, int layer, @NonNull Paint paint) {
+        switch (layer) {
+            case LayerCache.LAYER_BOW:
+                if (mBowTable != null) {
+                    //直接用表中的点和半径
+                    final GeometryTable table = mBowTable;
+                    final int row = mBowTableRow;
+                    final int count = table.getPointCount(row);
+                    for (int i = 0; i < count; i++) {
+                        renderer.drawCircle(table.getX(row, i), table.getY(row, i) + mBowTableOffsetY, table.getRadius(row, i), paint);
+                    }
+                    break;
+                }
+                final int length = mBowPointCount * 2;
+                for (int i = 0; i < length; i += 2) {
+                    renderer.drawCircle(mBowPathPoints[i], mBowPathPoints[i + 1], getBowRadius(((float) i) / length), paint);
+                }
+                break;
+            case LayerCache.LAYER_HANDLE:
+                renderer.drawPath(mHandlePath, paint);
+                break;
+            case LayerCache.LAYER_STRING:
+                renderer.drawLine(mStringStartPoint.x, mStringStartPoint.y, mStringMiddlePoint.x, mStringMiddlePoint.y, paint);
+                renderer.drawLine(mStringEndPoint.x, mStringEndPoint.y, mStringMiddlePoint.x, mStringMiddlePoint.y, paint);
+                break;
+            case LayerCache.LAYER_ARROW:
+                renderer.drawPath(mArrowPath, paint);
+                break;
+            default:
+                renderer.drawRect(mArrowTail, paint);
+                break;
+        }
+    }
+
+    /**
+     * 计算图层的范围(未平移、倾斜前，单元测试中也用来比较几何数据)
+     */
+    void getLayerBounds(int layer, RectF out) {
+        switch (layer) {
+            case LayerCache.LAYER_BOW:
+                if (mBowTable != null) {
+                    out.set(mBowTable.getBound(mBowTableRow, 0), mBowTable.getBound(mBowTableRow, 1) + mBowTableOffsetY,
+                            mBowTable.getBound(mBowTableRow, 2), mBowTable.getBound(mBowTableRow, 3) + mBowTableOffsetY);
+                } else {
+                    mBowPath.computeBounds(out, true);
+                }
+                //圆的最大半径不会超过弓宽
+                out.inset(-mBowWidth, -mBowWidth);
+                break;
+            case LayerCache.LAYER_HANDLE:
+                mHandlePath.computeBounds(out, true);
+                out.inset(-mHandleWidth, -mHandleWidth);
+                break;
+            case LayerCache.LAYER_STRING:
+                out.set(mStringStartPoint.x, Math.min(mStringStartPoint.y, mStringEndPoint.y),
+                        mStringEndPoint.x, Math.max(mStringMiddlePoint.y, Math.max(mStringStartPoint.y, mStringEndPoint.y)));
+                out.inset(-mStringWidth, -mStringWidth);
+                break;
+            case LayerCache.LAYER_ARROW:
+                mArrowPath.computeBounds(out, true);
+                break;
+            default:
+                out.set(mArrowTail);
+                //阴影的模糊半径是箭羽宽度
+                out.inset(-mFinWidth * 2, -mFinWidth * 2);
+                break;
+        }
+    }
+
+    /**
+     * 图层的形状改变了
+     */
+    private void invalidateLayer(int layer) {
+        if (mLayerCache != null) {
+            mLayerCache.invalidate(layer);
+        }
+    }
+
+    /**
+     * 图层只是垂直平移了
+     */
+    private void offsetLayer(int layer, float dy) {
+        if (mLayerCache != null) {
+            mLayerCache.offset(layer, dy);
+        }
+    }
+
+    /**
+     * 获取箭尾阴影特效(第一次用到时才创建)
+     */
+    private BlurMaskFilter getTailMaskFilter() {
+        if (mTailMaskFilter == null && mFinWidth > 0) {
+            mTailMaskFilter = createTailMaskFilter(mFinWidth, mLowFootprintEnabled);
+        }
+        return mTailMaskFilter;
+    }
+
+    /**
+     * 创建箭尾阴影特效，低内存占用模式下同样半径的实例共用一个
+     *
+     * @param radius 模糊半径(箭羽宽度)
+     * @param shared 是否用共用的
+     */
+    private static BlurMaskFilter createTailMaskFilter(float radius, boolean shared) {
+        return shared ? SharedResources.getBlurMaskFilter(radius) : new BlurMaskFilter(radius, BlurMaskFilter.Blur.NORMAL);
+    }
+
+    /**
+     * 在所有ArrowDrawable共用的后台线程中预先创建发射后才用到的对象(坠落的线条、箭尾阴影特效)，
+     * 创建好后回到绘制线程装上(见{@link #runOnDrawThread(Runnable)})，这样第一次发射时就不用在绘制线程创建了。
+     * 低内存占用模式下{@link #reset()}会释放这些对象，需要的话要再调用一次
+     */
+    public void prewarmFiringResources() {
+        if (mLines != null && (mTailMaskFilter != null || mFinWidth <= 0)) {
+            return;
+        }
+        final float radius = mFinWidth;
+        final boolean shared = mLowFootprintEnabled;
+        SharedResources.getBackgroundExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<Line> lines = createLines();
+                final BlurMaskFilter filter = radius > 0 ? createTailMaskFilter(radius, shared) : null;
+                //mLines等只能在绘制线程读写
+                runOnDrawThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (mLines == null) {
+                            mLines = lines;
+                        }
+                        //期间尺寸或模式改变了的话就不能用了
+                        if (mTailMaskFilter == null && filter != null && radius == mFinWidth && shared == mLowFootprintEnabled) {
+                            mTailMaskFilter = filter;
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 释放只有发射后才会用到的对象，下次发射时再重新创建
+     */
+    private void releaseFiringResources() {
+        mLines = null;
+        mTailMaskFilter = null;
+        mTailPaint = null;
+        mLinePaint = null;
+        releaseStreakRenderer();
+        releaseSpriteStrip();
+        releaseLayerCache();
+    }
+
+    private void releaseStreakRenderer() {
+        if (mStreakRenderer != null) {
+            mStreakRenderer.release();
+            mStreakRenderer = null;
+            reportCacheBytes(CacheCoordinator.CACHE_STREAK, 0);
+        }
+    }
+
+    /**
+     * 释放图层缓存的Bitmap(分图层绘制仍然开启，之后再重新缓存)
+     */
+    private void releaseLayerCache() {
+        if (mLayerCache != null) {
+            mLayerCache.release();
+            reportCacheBytes(CacheCoordinator.CACHE_LAYER, 0);
+        }
+    }
+
+    /**
+     * 获取交给CacheCoordinator管理的某一类缓存
+     */
+    @NonNull
+    private CacheEntry getCacheEntry(int kind) {
+        if (mCacheEntries == null) {
+            mCacheEntries = new CacheEntry[CacheCoordinator.CACHE_KIND_COUNT];
+        }
+        CacheEntry entry = mCacheEntries[kind];
+        if (entry == null) {
+            entry = mCacheEntries[kind] = new CacheEntry(kind);
+        }
+        return entry;
+    }
+
+    /**
+     * 向CacheCoordinator报告某一类缓存当前的占用，0表示已经释放
+     */
+    private void reportCacheBytes(int kind, long bytes) {
+        if (bytes <= 0 && (mCacheEntries == null || mCacheEntries[kind] == null)) {
+            //从来没有占用过
+            return;
+        }
+        CacheCoordinator.getInstance().update(getCacheEntry(kind), bytes);
+    }
+
+    private void hitCache(int kind) {
+        CacheCoordinator.getInstance().hit(getCacheEntry(kind));
+    }
+
+    private void missCache(int kind) {
+        CacheCoordinator.getInstance().miss(getCacheEntry(kind));
+    }
+
+    /**
+     * 释放在其他线程被CacheCoordinator淘汰的缓存
+     */
+    private void releaseEvictedCaches() {
+        for (CacheEntry entry : mCacheEntries) {
+            if (entry != null) {
+                entry.releaseIfPending();
+            }
+        }
+    }
+
+    /**
+     * 释放某一类缓存，之后用到时再重新创建
+     */
+    private void releaseCache(int kind) {
+        switch (kind) {
+            case CacheCoordinator.CACHE_LAYER:
+                releaseLayerCache();
+                break;
+            case CacheCoordinator.CACHE_SPRITE:
+                releaseSpriteStrip();
+                break;
+            case CacheCoordinator.CACHE_PICTURE:
+                clearPictureCache();
+                break;
+            case CacheCoordinator.CACHE_STREAK:
+                releaseStreakRenderer();
+                break;
+            default:
+                break;
+        }
+        invalidateSelf();
+    }
+
+    /**
+     * 这个ArrowDrawable的一类缓存
+     */
+    private final class CacheEntry extends CoordinatedCache {
+
+        CacheEntry(int kind) {
+            super(kind);
+        }
+
+        @Override
+        void onRelease() {
+            releaseCache(mKind);
+        }
+
+        @Override
+        void requestRelease() {
+            runOnDrawThread(mReleaseEvictedCaches);
+        }
+
+        @Override
+        boolean isInUse() {
+            return mRendering;
+        }
+    }
+
+    /**
+     * 把所有线条的范围加入当前帧的刷新区域
+     */
+    private void includeLinesBounds() {
+        if (!mDirtyRegionEnabled) {
+            return;
+        }
+        float halfWidth = mArrowBodyWidth / 2;
+        for (Line tmp : mLines) {
+            mTempBounds.set(Math.min(tmp.startX, tmp.endX) - halfWidth, tmp.startY - halfWidth,
+                    Math.max(tmp.startX, tmp.endX) + halfWidth, tmp.startY + tmp.height + halfWidth);
+            includeDirtyBounds(mTempBounds);
+        }
+    }
+
+    /**
+     * 把元素的范围加入当前帧的刷新区域
+     *
+     * @param bounds 元素的范围(未倾斜前)
+     */
+    private void includeDirtyBounds(RectF bounds) {
+        //先垂直平移，再倾斜，最后水平平移，跟画的时候顺序一致
+        bounds.offset(0, mDirtyOffsetY);
+        if (mDirtySkewTan != 0) {
+            //x' = x + tan * y
+            float topSkew = mDirtySkewTan * bounds.top;
+            float bottomSkew = mDirtySkewTan * bounds.bottom;
+            bounds.left += Math.min(topSkew, bottomSkew);
+            bounds.right += Math.max(topSkew, bottomSkew);
+        }
+        bounds.offset(mDirtyOffsetX, 0);
+        if (mFrameBounds.isEmpty()) {
+            mFrameBounds.set(bounds);
+        } else {
+            mFrameBounds.union(bounds);
+        }
+    }
+
+    /**
+     * 标记当前帧画完后需要继续刷新
+     */
+    private void invalidateNextFrame() {
+        if (!mPlayTimeControlled) {
+            //播放时间由外部控制时，只在设置播放时间时重绘
+            mNeedInvalidateNextFrame = true;
+        }
+    }
+
+    /**
+     * 只刷新运动元素所在的区域：上一帧与当前帧的并集，再加上按这两帧之间的位移推算出的下一帧的位置
+     */
+    private void invalidateDirtyRegion() {
+        Callback callback = getCallback();
+        if (!mDirtyRegionEnabled || !(callback instanceof View)
+                || mFrameBounds.isEmpty() || mLastFrameBounds.isEmpty()) {
+            invalidateSelf();
+            return;
+        }
+        //每条边按这两帧之间的位移再走一步，就是下一帧的位置
+        mTempBounds.set(mFrameBounds.left * 2 - mLastFrameBounds.left, mFrameBounds.top * 2 - mLastFrameBounds.top,
+                mFrameBounds.right * 2 - mLastFrameBounds.right, mFrameBounds.bottom * 2 - mLastFrameBounds.bottom);
+        mTempBounds.sort();
+        mTempBounds.union(mFrameBounds);
+        mTempBounds.union(mLastFrameBounds);
+        //映射到bounds中
+        Rect bounds = getBounds();
+        mTempBounds.set(bounds.left + mTempBounds.left * mDrawScaleX, bounds.top + mTempBounds.top * mDrawScaleY,
+                bounds.left + mTempBounds.right * mDrawScaleX, bounds.top + mTempBounds.bottom * mDrawScaleY);
+        mTempBounds.roundOut(mDirtyRect);
+        boolean visible = bounds.isEmpty() ? mDirtyRect.intersect(0, 0, mWidth, mHeight) : mDirtyRect.intersect(bounds);
+        if (!visible) {
+            //元素都在可见范围外，但动画还要继续
+            invalidateSelf();
+            return;
+        }
+        ((View) callback).invalidate(mDirtyRect.left, mDirtyRect.top, mDirtyRect.right, mDirtyRect.bottom);
+    }
+
+    /**
+     * 更新箭偏移量
+     */
+    private void updateArrowOffset() {
+        float newOffset = 0;
+        if (mProgress > .5F) {
+            newOffset = mStringOffset;
+        } else if (mProgress >= .25F) {
+            newOffset = (mProgress - .25F/*从0开始*/) * mStringOffset * 4/*剩下的25%要走完这段距离*/;
+        }
+        mArrowPath.offset(0, -mArrowOffset);
+        offsetLayer(LayerCache.LAYER_ARROW, newOffset - mArrowOffset);
+        mArrowPath.offset(0, mArrowOffset = newOffset);
+    }
+
+    /**
+     * 分解弓的Path
+     */
+    private void updateBowPoints() {
+        if (mBowTable != null) {
+            //表中已经有了
+            return;
+        }
+        beginSection(SECTION_DECOMPOSE_BOW);
+        PathMeasure pathMeasure = getScratch().pathMeasure;
+        pathMeasure.setPath(mBowPath, false);
+        int count = getDecomposedPointCount(pathMeasure);
+        if (mBowPathPoints == null || mBowPathPoints.length < count * 2) {
+            mBowPathPoints = new float[count * 2];
+        }
+        decomposePath(pathMeasure, mBowPathPoints, count);
+        mBowPointCount = count;
+        endSection();
+    }
+
+    /**
+     * 获取计算几何数据时用的临时对象
+     */
+    private SharedResources.Scratch getScratch() {
+        if (mLowFootprintEnabled) {
+            return SharedResources.getScratch();
+        }
+        if (mScratch == null) {
+            mScratch = new SharedResources.Scratch();
+        }
+        return mScratch;
+    }
+
+    /**
+     * 重画手柄(紧跟在updateBowPoints之后调用，临时对象中的PathMeasure还是弓的)
+     */
+    private void updateHandlePath() {
+        if (mBowTable != null) {
+            //表中的点是等距的，中间1/5的点连起来就是手柄
+            int count = mBowTable.getPointCount(mBowTableRow);
+            int start = (int) (count * .4F);
+            int end = (int) (count * .6F);
+            mHandlePath.reset();
+            if (end > start) {
+                mHandlePath.moveTo(getBowPointX(start), getBowPointY(start));
+                for (int i = start + 1; i <= end && i < count; i++) {
+                    mHandlePath.lineTo(getBowPointX(i), getBowPointY(i));
+                }
+            }
+            invalidateLayer(LayerCache.LAYER_HANDLE);
+            return;
+        }
+        PathMeasure pathMeasure = getScratch().pathMeasure;
+        float bowPathLength = pathMeasure.getLength();
+        float handlePathLength = bowPathLength / 5;
+        float center = bowPathLength / 2;
+        float start = center - handlePathLength / 2;
+        mHandlePath.reset();
+        pathMeasure.getSegment(start, start + handlePathLength, mHandlePath, true);
+        invalidateLayer(LayerCache.LAYER_HANDLE);
+    }
+
+    /**
+     * 更新每一条线的y坐标
+     */
+    private void updateLinesY() {
+        if (mLineMode == LINE_MODE_SHADER) {
+            //纹理的位置是根据时间算的，不用更新
+            return;
+        }
+        beginSection(SECTION_UPDATE_LINES);
+        long now = now();
+        for (Line tmp : mLines) {
+            while (now - tmp.startTime >= tmp.duration) {
+                //已经落到底了，从落到底的那一刻开始重新坠落(跳转或者连续掉帧时可能一次跨过好几轮)
+                initLines(tmp, tmp.startTime + tmp.duration);
+            }
+            float runtime = now - tmp.startTime;
+            float percent = runtime / tmp.duration;
+            tmp.startY = percent * tmp.distance - tmp.height;
+        }
+        //线条的新位置在这里就已经确定了，也要加进去
+        includeLinesBounds();
+        endSection();
+    }
+
+    /**
+     * 更新弦的坐标点
+     */
+    private void updateStringPoints() {
+        updateStringPoints(true);
+    }
+
+    /**
+     * 更新弦的坐标点
+     *
+     * @param updateMiddlePointY 是否更新中间的y轴坐标
+     */
+    private void updateStringPoints(boolean updateMiddlePointY) {
+        int count = getBowPointCount();
+        int stringStartIndex = getStringStartIndex(count);
+        int stringEndIndex = (int) (count * 2 * .95F) / 2;
+        mStringStartPoint.x = getBowPointX(stringStartIndex);
+        mStringStartPoint.y = getBowPointY(stringStartIndex);
+        mStringEndPoint.x = getBowPointX(stringEndIndex);
+        mStringEndPoint.y = getBowPointY(stringEndIndex);
+        if (updateMiddlePointY) {
+            mStringMiddlePoint.y = mStringOffset = mStringStartPoint.y + getStringOffsetByProgress(mProgress);
+        }
+        invalidateLayer(LayerCache.LAYER_STRING);
+    }
+
+    /**
+     * 弦左端在弓上的点的索引(弓的5%处)
+     *
+     * @param count 弓分解后的点数
+     */
+    private static int getStringStartIndex(int count) {
+        return (int) (count * 2 * .05F) / 2;
+    }
+
+    /**
+     * 获取弓上第index个点的x坐标
+     */
+    private int getBowPointCount() {
+        return mBowTable != null ? mBowTable.getPointCount(mBowTableRow) : mBowPointCount;
+    }
+
+    private float getBowPointX(int index) {
+        return mBowTable != null ? mBowTable.getX(mBowTableRow, index) : mBowPathPoints[index * 2];
+    }
+
+    /**
+     * 获取弓上第index个点的y坐标
+     */
+    private float getBowPointY(int index) {
+        return mBowTable != null ? mBowTable.getY(mBowTableRow, index) + mBowTableOffsetY : mBowPathPoints[index * 2 + 1];
+    }
+
+    /**
+     * 计算弓上某一处的圆的半径
+     *
+     * @param fraction 在弓上的位置(0~1)
+     */
+    float getBowRadius(float fraction) {
+        return mBowWidth * SharedResources.BOW_SCALE_HELPER.getScale(fraction) / 2;
+    }
+
+    /**
+     * 重画弓
+     *
+     * @param currentAngle 弓弯曲的角度
+     */
+    private void updateBowPath(float currentAngle) {
+        //初始偏移量
+        float offsetY = -mBaseStringCenterY;
+        //根据滑动进度偏移
+        offsetY += mMaxBowOffset * getBowOffsetFraction(mProgress);
+        invalidateLayer(LayerCache.LAYER_BOW);
+        mFallingBowTranslatable = false;
+        int row = mGeometryTableMatched ? mGeometryTable.getRow(currentAngle) : -1;
+        if (row >= 0) {
+            //表中正好有这个角度，查表，只记录偏移
+            mBowTable = mGeometryTable;
+            mBowTableRow = row;
+            mBowTableOffsetY = offsetY;
+            if (mLowFootprintEnabled && mBowPathPoints != null) {
+                //弓的点都从表中取，运行时分解的用不上了
+                mBowPathPoints = null;
+                mBowPointCount = 0;
+                mBowPath.reset();
+            }
+            return;
+        }
+        mBowTable = null;
+        buildBowPath(mBowPath, currentAngle);
+        //偏移弓
+        mBowPath.offset(0, offsetY);
+    }
+
+    /**
+     * 构建指定弯曲角度的弓(没有偏移)
+     */
+    private void buildBowPath(Path path, float angle) {
+        PointF stringPoint = getPointByAngle(angle);
+
+        float startX = mCenterX * 2 - stringPoint.x;
+        float startY = stringPoint.y;
+        float controlX = mCenterX;
+        float controlY = -stringPoint.y;
+        float endX = stringPoint.x;
+        float endY = stringPoint.y;
+
+        path.reset();
+        //镜像的x轴
+        path.moveTo(startX, startY);
+        path.quadTo(controlX, controlY, endX, endY);
+    }
+
+    /**
+     * 分解指定弯曲角度的弓(没有偏移)，生成几何数据表用
+     */
+    @NonNull
+    float[] decomposeBowPath(float angle) {
+        Path path = new Path();
+        buildBowPath(path, angle);
+        PathMeasure pathMeasure = new PathMeasure(path, false);
+        float[] points = new float[getDecomposedPointCount(pathMeasure) * 2];
+        decomposePath(pathMeasure, points, points.length / 2);
+        return points;
+    }
+
+    /**
+     * 初始化箭
+     *
+     * @param arrowBodyLength 箭身长度
+     */
+    private void initArrowPath(float arrowBodyLength) {
+        invalidateLayer(LayerCache.LAYER_ARROW);
+        mArrowPath.reset();
+        if (mGeometryTableMatched && arrowBodyLength == mArrowBodyLength) {
+            //完整长度的箭直接用表中的轮廓
+            final GeometryTable table = mGeometryTable;
+            final int count = table.getArrowPointCount();
+            mArrowPath.moveTo(table.getArrowX(0), table.getArrowY(0));
+            for (int i = 1; i < count; i++) {
+                mArrowPath.lineTo(table.getArrowX(i), table.getArrowY(i));
+            }
+        } else {
+            final float[] outline = mArrowOutline;
+            computeArrowOutline(arrowBodyLength, outline);
+            mArrowPath.moveTo(outline[0], outline[1]);
+            for (int i = 2; i < outline.length; i += 2) {
+                mArrowPath.lineTo(outline[i], outline[i + 1]);
+            }
+        }
+        mArrowPath.close();
+    }
+
+    /**
+     * 计算箭的轮廓点
+     *
+     * @param arrowBodyLength 箭身长度
+     * @param out             用来保存结果，13个点
+     */
+    private void computeArrowOutline(float arrowBodyLength, float[] out) {
+        out[0] = mCenterX + mArrowBodyWidth;
+        out[1] = -mFinSlopeHeight;
+        nextOutlinePoint(out, 1, mFinWidth, mFinSlopeHeight);
+        nextOutlinePoint(out, 2, 0, -mFinHeight);
+        nextOutlinePoint(out, 3, -mFinWidth, -mFinSlopeHeight);
+        nextOutlinePoint(out, 4, 0, -arrowBodyLength);
+        nextOutlinePoint(out, 5, mArrowWidth, 0);
+        nextOutlinePoint(out, 6, -mArrowWidth - mArrowBodyWidth, -mArrowHeight);
+        nextOutlinePoint(out, 7, -mArrowWidth - mArrowBodyWidth, mArrowHeight);
+        nextOutlinePoint(out, 8, mArrowWidth, 0);
+        nextOutlinePoint(out, 9, 0, arrowBodyLength);
+        nextOutlinePoint(out, 10, -mFinWidth, mFinSlopeHeight);
+        nextOutlinePoint(out, 11, 0, mFinHeight);
+        nextOutlinePoint(out, 12, mFinWidth, -mFinSlopeHeight);
+    }
+
+    /**
+     * 轮廓上的第index个点 = 上一个点 + (dx, dy)
+     */
+    private static void nextOutlinePoint(float[] out, int index, float dx, float dy) {
+        out[index * 2] = out[index * 2 - 2] + dx;
+        out[index * 2 + 1] = out[index * 2 - 1] + dy;
+    }
+
+    /**
+     * 获取完整长度的箭的轮廓点，生成几何数据表用
+     */
+    @NonNull
+    float[] getArrowOutline() {
+        float[] outline = new float[26];
+        computeArrowOutline(mArrowBodyLength, outline);
+        return outline;
+    }
+
+    /**
+     * 根据当前拖动的进度计算出弓的弯曲角度
+     */
+    private float getAngleByProgress() {
+        return getAngleByProgress(mProgress);
+    }
+
+    /**
+     * 根据拖动的进度计算出弓的弯曲角度
+     */
+    private float getAngleByProgress(float progress) {
+        //当前角度 = 基本角度 + (可用角度 * 滑动进度)
+        return mBaseAngle + (progress <= .5F ? 0 :
+                mUsableAngle * (progress - .5F/*对齐(从0%开始)*/) * 2/*两倍追赶*/);
+    }
+
+    /**
+     * 根据拖动的进度计算出弓已经移动的距离占最大偏移量的比例
+     */
+    private float getBowOffsetFraction(float progress) {
+        return progress <= .25F ? progress * 4/*因为总距离只有25%，所以要4倍速度赶上*/ : 1;
+    }
+
+    /**
+     * 根据拖动的进度计算出弦中心点相对于两端的偏移量
+     */
+    private float getStringOffsetByProgress(float progress) {
+        return progress <= .5F ? 0 : (progress - .5F) * mMaxStringOffset * 2/*因为只剩下50%的距离，所以要2倍*/;
+    }
+
+    /**
+     * 根据拖动的进度估算箭的偏移量(弦两端的位置取最近一次画出来的)
+     */
+    private float getArrowOffsetByProgress(float progress) {
+        float stringStartY = mStringStartPoint.y;
+        if (progress > .5F) {
+            return stringStartY + getStringOffsetByProgress(progress);
+        } else if (progress >= .25F) {
+            return (progress - .25F) * stringStartY * 4;
+        }
+        return 0;
+    }
+
+    /**
+     * 计算两个进度之间，弓、弦、箭最大的位移(px)
+     */
+    private float getProgressVisualDelta(float fromProgress, float toProgress) {
+        //弓的偏移
+        float delta = mMaxBowOffset * Math.abs(getBowOffsetFraction(toProgress) - getBowOffsetFraction(fromProgress));
+        //弓弯曲角度变化引起的端点位移(弧长)
+        float angleDelta = Math.abs(getAngleByProgress(toProgress) - getAngleByProgress(fromProgress));
+        delta = Math.max(delta, (float) Math.toRadians(angleDelta) * mBowLength / 2);
+        //弦的偏移
+        delta = Math.max(delta, Math.abs(getStringOffsetByProgress(toProgress) - getStringOffsetByProgress(fromProgress)));
+        //箭的偏移
+        delta = Math.max(delta, Math.abs(getArrowOffsetByProgress(toProgress) - getArrowOffsetByProgress(fromProgress)));
+        //换算成屏幕上的像素
+        return delta * Math.max(mDrawScaleX, mDrawScaleY);
+    }
+
+    /**
+     * 根据弓当前弯曲的角度计算新的端点坐标
+     *
+     * @param angle 弓当前弯曲的角度
+     * @return 新的端点坐标
+     */
+    private PointF getPointByAngle(float angle) {
+        //先把角度转成弧度
+        double radian = angle * Math.PI / 180;
+        //半径 取 弓长的一半
+        float radius = mBowLength / 2;
+        //x轴坐标值
+        float x = (float) (mCenterX + radius * Math.cos(radian));
+        //y轴坐标值
+        float y = (float) (radius * Math.sin(radian));
+        PointF point = getScratch().point;
+        point.set(x, y);
+        return point;
+    }
+
+    /**
+     * 按点密度计算Path要分解成多少个点
+     */
+    private int getDecomposedPointCount(PathMeasure pathMeasure) {
+        float pathLength = pathMeasure.getLength();
+        return pathLength == 0 ? 0 : (int) (pathLength / mPrecision) + 1;
+    }
+
+    /**
+     * 分解Path
+     *
+     * @param points 保存Path上的坐标点，至少要有count * 2的长度
+     * @param count  点数，见{@link #getDecomposedPointCount(PathMeasure)}
+     */
+    private void decomposePath(PathMeasure pathMeasure, float[] points, int count) {
+        final float pathLength = pathMeasure.getLength();
+        final float[] position = getScratch().position;
+        int index = 0;
+        float distance;
+        for (int i = 0; i < count; ++i) {
+            distance = count == 1 ? 0 : (i * pathLength) / (count - 1);
+            pathMeasure.getPosTan(distance, position, null);
+            points[index] = position[0];
+            points[index + 1] = position[1];
+            index += 2;
+        }
+    }
+
+    /**
+     * 设置{@link #decomposePath(PathMeasure, float[], int)}分解的点密度(单位: px)
+     *
+     * @param precision 新密度
+     */
+    public void setPrecision(float precision) {
+        mPrecision = precision;
+        updateGeometryTableMatched();
+        clearPictureCache();
+        invalidateSelf();
+    }
+
+    /**
+     * 获取设置的几何数据表
+     */
+    @Nullable
+    public GeometryTable getGeometryTable() {
+        return mGeometryTable;
+    }
+
+    /**
+     * 设置预先计算好的几何数据表(见{@link GeometryTable})，之后完整长度的箭，以及角度正好在表中的弓(静止、拉满、完全展开时)
+     * 直接查表，不再运行时计算，其他角度的弓照常计算。
+     * 表的尺寸、弓长、点密度跟当前对不上的话照常计算，尺寸改变后对得上了会自动用上
+     *
+     * @param table 几何数据表，null为运行时计算
+     */
+    public void setGeometryTable(@Nullable GeometryTable table) {
+        mGeometryTable = table;
+        updateGeometryTableMatched();
+        if (mState == STATE_NORMAL || mState == STATE_DRAGGING) {
+            initArrowPath(mArrowBodyLength);
+            mArrowPath.offset(0, mArrowOffset);
+        }
+        clearPictureCache();
+        invalidateSelf();
+    }
+
+    /**
+     * 检查几何数据表跟当前的尺寸、点密度是否对得上
+     */
+    private void updateGeometryTableMatched() {
+        //弓当前用的表保持不变，下一次updateBowPath时才换
+        mGeometryTableMatched = mGeometryTable != null && mGeometryTable.matches(mWidth, mHeight, mBowLength, mPrecision, mBaseAngle, mUsableAngle);
+    }
+
+    float getBaseAngle() {
+        return mBaseAngle;
+    }
+
+    float getUsableAngle() {
+        return mUsableAngle;
+    }
+
+    /**
+     * 是否只刷新运动元素所在的区域
+     */
+    public boolean isDirtyRegionEnabled() {
+        return mDirtyRegionEnabled;
+    }
+
+    /**
+     * 设置是否只刷新运动元素所在的区域(默认关闭)
+     * 开启后，动画过程中只会通过{@link View#invalidate(int, int, int, int)}刷新发生变化的区域，
+     * 适用于ArrowDrawable直接画在View上(例如作为背景)，并且使用软件绘制的场景
+     */
+    public void setDirtyRegionEnabled(boolean enabled) {
+        mDirtyRegionEnabled = enabled;
+        if (enabled) {
+            if (mFrameBounds != null) {
+                return;
+            }
+            mFrameBounds = new RectF();
+            mLastFrameBounds = new RectF();
+            mTempBounds = new RectF();
+            mDirtyRect = new Rect();
+        } else {
+            //不需要了
+            mFrameBounds = null;
+            mLastFrameBounds = null;
+            mTempBounds = null;
+            mDirtyRect = null;
+        }
+    }
+
+    /**
+     * 是否已开启低内存占用模式
+     */
+    public boolean isLowFootprintEnabled() {
+        return mLowFootprintEnabled;
+    }
+
+    /**
+     * 设置是否开启低内存占用模式(默认关闭)：
+     * 开启后，{@link #reset()}时会释放只有发射后才用到的对象(坠落的线条、线条纹理等)，下次发射时再重新创建，
+     * 箭尾的阴影特效也会在相同尺寸的实例之间共用，计算几何数据用的PathMeasure等临时对象在同一线程的实例之间共用，
+     * 用几何数据表画弓时不再保留运行时分解的点。适合在列表中大量持有ArrowDrawable的场景。
+     * <p>
+     * 弓、握柄、箭的Path和弦的坐标点每一帧都要画，所以仍然每个实例各一份
+     */
+    public void setLowFootprintEnabled(boolean enabled) {
+        if (mLowFootprintEnabled == enabled) {
+            return;
+        }
+        mLowFootprintEnabled = enabled;
+        //重新获取，开启后用共享的
+        mTailMaskFilter = null;
+        mScratch = null;
+        if (enabled && (mState == STATE_NORMAL || mState == STATE_DRAGGING)) {
+            releaseFiringResources();
+        }
+    }
+
+    /**
+     * 获取重建几何数据的缩放阈值
+     */
+    public float getGeometryRebuildThreshold() {
+        return mGeometryRebuildThreshold;
+    }
+
+    /**
+     * 设置重建几何数据的缩放阈值：
+     * bounds与当前尺寸的缩放比例偏离1不超过这个值时，只缩放画布，超过才按bounds的尺寸重建几何数据。
+     * 默认为{@link Float#POSITIVE_INFINITY}：不重建，一直保持{@link #updateSize(int, int, int)}(或create时)指定的尺寸，
+     * 按bounds缩放画出来；设置阈值后，重建时会以bounds的尺寸代替之前指定的尺寸(弓长按比例缩放)
+     *
+     * @param threshold 阈值，0表示每次bounds改变都重建
+     */
+    public void setGeometryRebuildThreshold(@FloatRange(from = 0F) float threshold) {
+        mGeometryRebuildThreshold = threshold;
+        updateDrawScale(getBounds());
+        invalidateSelf();
+    }
+
+    /**
+     * 拖动状态的帧缓存是否已开启
+     */
+    public boolean isDraggingPictureCacheEnabled() {
+        return mPictureCache != null;
+    }
+
+    /**
+     * 开启或关闭拖动状态的帧缓存(默认关闭)，开启后使用默认大小：进度量化成64个区间，最多缓存32帧
+     */
+    public void setDraggingPictureCacheEnabled(boolean enabled) {
+        if (enabled) {
+            if (mPictureCache == null) {
+                setDraggingPictureCacheSize(64, 32);
+            }
+        } else {
+            setDraggingPictureCacheSize(0, 0);
+        }
+    }
+
+    /**
+     * 设置拖动状态的帧缓存大小：
+     * 静止和拖动状态下的每一帧只跟进度和尺寸有关，开启后会把进度量化成bucketCount个区间，
+     * 每个区间录制一次{@link Picture}，之后直接重放，超出maxCount时淘汰最久没有用过的
+     *
+     * @param bucketCount 进度被量化成的区间数，小于2表示关闭
+     * @param maxCount    最多缓存多少帧，小于1表示关闭
+     */
+    public void setDraggingPictureCacheSize(int bucketCount, int maxCount) {
+        if (bucketCount < 2 || maxCount < 1) {
+            clearPictureCache();
+            mPictureCache = null;
+        } else if (mPictureCache == null || mPictureCache.getBucketCount() != bucketCount
+                || mPictureCache.getMaxCount() != maxCount) {
+            clearPictureCache();
+            mPictureCache = new PictureCache(bucketCount, maxCount);
+        }
+        invalidateSelf();
+    }
+
+    /**
+     * 在所有ArrowDrawable共用的后台线程中预先录制拖动状态的帧缓存(需要先开启帧缓存)，
+     * 最多缓存的帧数比区间数少时，录制的区间均匀分布在整个进度范围内。
+     * 录制期间如果尺寸或颜色等改变了，录制结果会被丢弃
+     */
+    public void prewarmDraggingPictureCache() {
+        final PictureCache cache = mPictureCache;
+        if (cache == null || mWidth <= 0 || mHeight <= 0) {
+            return;
+        }
+        //用一个配置相同的ArrowDrawable来录制，不影响当前的状态
+        final ArrowDrawable recorder = new ArrowDrawable(mWidth, mHeight, (int) mBowLength);
+        recorder.mPrecision = mPrecision;
+        recorder.mGeometryTable = mGeometryTable;
+        recorder.updateGeometryTableMatched();
+        recorder.mBowColor = mBowColor;
+        recorder.mStringColor = mStringColor;
+        recorder.mArrowColor = mArrowColor;
+        recorder.mAlpha = mAlpha;
+        recorder.mColorFilter = mColorFilter;
+        recorder.updatePaints();
+        final int generation = cache.getGeneration();
+        SharedResources.getBackgroundExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                int bucketCount = cache.getBucketCount();
+                int count = Math.min(bucketCount, cache.getMaxCount());
+                for (int i = 0; i < count; i++) {
+                    //缓存不下所有区间时，均匀地选出要录制的区间，不要只录制进度小的
+                    int bucket = count == 1 ? 0 : Math.round((float) i * (bucketCount - 1) / (count - 1));
+                    if (cache.contains(bucket)) {
+                        continue;
+                    }
+                    Picture picture = recorder.recordDraggingFrame(cache.getProgress(bucket));
+                    if (!cache.put(bucket, picture, generation)) {
+                        //配置已经改变，录了也没用
+                        return;
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * 清空拖动状态的帧缓存
+     */
+    private void clearPictureCache() {
+        if (mPictureCache != null) {
+            mPictureCache.clear();
+            mAccountedPictureCount = 0;
+            reportCacheBytes(CacheCoordinator.CACHE_PICTURE, 0);
+        }
+    }
+
+    /**
+     * 获取齐射的箭数
+     */
+    public int getVolleyCount() {
+        return mVolleyCount;
+    }
+
+    /**
+     * 设置齐射的箭数：大于1时为齐射模式，发射后会同时有多支箭在飞，
+     * 每支箭都可以通过{@link #hit(int)}和{@link #miss(int)}单独命中或未命中，
+     * {@link #hit()}和{@link #miss()}则作用于全部还在飞的箭。
+     * 所有的箭都停下来后，有箭命中时进入{@link #STATE_HITTING}，全部未命中时进入{@link #STATE_MISSING}。
+     * 只在静止和拖动状态下有效
+     *
+     * @param count 箭数
+     */
+    public void setVolleyCount(@IntRange(from = 1) int count) {
+        if (count < 1 || (mState != STATE_NORMAL && mState != STATE_DRAGGING)) {
+            return;
+        }
+        mVolleyCount = count;
+        if (count == 1) {
+            mVolley = null;
+        } else if (mVolley == null || mVolley.count != count) {
+            mVolley = new Volley(count);
+        }
+    }
+
+    /**
+     * 获取坠落的线条的绘制方式
+     */
+    public int getLineMode() {
+        return mLineMode;
+    }
+
+    /**
+     * 设置坠落的线条的绘制方式
+     *
+     * @param mode {@link #LINE_MODE_STROKE}：逐条画(默认)，线条越多越耗时；
+     *             {@link #LINE_MODE_SHADER}：每个尺寸预先画一次可平铺的纹理，之后每帧只平移Shader，耗时固定，线条可以更密
+     */
+    public void setLineMode(int mode) {
+        mLineMode = mode;
+        if (mode != LINE_MODE_SHADER) {
+            releaseStreakRenderer();
+        }
+        invalidateSelf();
+    }
+
+    /**
+     * 获取{@link #LINE_MODE_SHADER}模式下纹理中的线条数量
+     */
+    public int getStreakDensity() {
+        return mStreakDensity;
+    }
+
+    /**
+     * 设置{@link #LINE_MODE_SHADER}模式下纹理中的线条数量(默认24)
+     */
+    public void setStreakDensity(@IntRange(from = 0) int density) {
+        mStreakDensity = density;
+        invalidateSelf();
+    }
+
+    /**
+     * 是否预渲染上下移动的箭
+     */
+    public boolean isSpriteStripEnabled() {
+        return mSpriteStripEnabled;
+    }
+
+    /**
+     * 设置是否预渲染上下移动的箭(默认关闭)：
+     * 开启后，第一次进入上下移动的阶段时把一个周期渲染成一排帧(只保存透明度，尺寸和上下移动的时长、插值器不变就一直复用)，
+     * 之后每帧只画一次Bitmap，不用再画箭的Path和带模糊特效的箭尾，适合箭要上下移动很久(例如等待网络请求)的场景。
+     * 坠落的线条仍然是实时画的，齐射模式下不生效
+     */
+    public void setSpriteStripEnabled(boolean enabled) {
+        mSpriteStripEnabled = enabled;
+        if (!enabled) {
+            releaseSpriteStrip();
+        }
+    }
+
+    /**
+     * 是否开启了分图层绘制
+     */
+    public boolean isLayerCacheEnabled() {
+        return mLayerCache != null;
+    }
+
+    /**
+     * 设置是否开启分图层绘制(默认关闭)：
+     * 弓、手柄、弦、箭、箭尾各自作为一个图层，连续两帧形状都没变(只是平移)的图层会缓存到离屏的Bitmap中，
+     * 之后直接画缓存，不用重新计算和光栅化。例如弓完全展开后的坠落、箭上下移动、命中后的摆动、拖动时的箭。
+     * 每个图层最多占用一张跟它的范围一样大的ALPHA_8 Bitmap
+     */
+    public void setLayerCacheEnabled(boolean enabled) {
+        if (enabled == (mLayerCache != null)) {
+            return;
+        }
+        if (enabled) {
+            mLayerCache = new LayerCache();
+            mLayerBounds = new RectF();
+            mLayerRenderer = new CanvasArrowRenderer();
+        } else {
+            releaseLayerCache();
+            mLayerCache = null;
+            mLayerBounds = null;
+            mLayerRenderer = null;
+        }
+        invalidateSelf();
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        return mWidth;
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return mHeight;
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        if (mAlpha != alpha) {
+            mAlpha = alpha;
+            updatePaints();
+            clearPictureCache();
+            invalidateSelf();
+        }
+    }
+
+    @Override
+    public int getAlpha() {
+        return mAlpha;
+    }
+
+    @Override
+    public void setColorFilter(@Nullable ColorFilter colorFilter) {
+        if (mColorFilter != colorFilter) {
+            mColorFilter = colorFilter;
+            updatePaints();
+            clearPictureCache();
+            invalidateSelf();
+        }
+    }
+
+    @Override
+    public ColorFilter getColorFilter() {
+        return mColorFilter;
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+
+    public float getProgress() {
+        return mProgress;
+    }
+
+    public void setProgress(@FloatRange(from = 0F, to = 1F) float progress) {
+        recordInput(InputTrace.TYPE_PROGRESS, progress);
+        if (updateProgress(progress)) {
+            invalidateProgress();
+        }
+    }
+
+    /**
+     * 更新进度，不重绘
+     *
+     * @return 当前状态能否设置进度
+     */
+    private boolean updateProgress(float progress) {
+        //只有普通状态和拖动状态下才能设置进度
+        if (mState == STATE_NORMAL || mState == STATE_DRAGGING) {
+            mState = STATE_DRAGGING;
+            if (progress > 1) {
+                progress = 1;
+            } else if (progress < 0) {
+                progress = 0;
+            }
+            this.mProgress = progress;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 绑定进度来源，不会自动发射，见{@link #setProgressSource(ProgressSource, boolean)}
+     */
+    public void setProgressSource(@Nullable ProgressSource source) {
+        setProgressSource(source, false);
+    }
+
+    /**
+     * 绑定进度来源：在静止和拖动状态下，每帧最多读取一次进度，并且只有位移超过阈值时才重绘，
+     * 适合进度更新非常频繁的场景(例如下载、上传)。
+     * <p>
+     * 值没有变化时(例如下载暂停)改为每250ms读取一次，值有变化后再恢复每帧读取；
+     * 不自动发射时，读到1之后就不再读取，直到{@link #reset()}
+     *
+     * @param source   进度来源，null为解除绑定
+     * @param autoFire 进度达到发射条件(&gt;=0.95)时是否自动调用{@link #fire()}
+     */
+    public void setProgressSource(@Nullable ProgressSource source, boolean autoFire) {
+        unscheduleSelf(mProgressSampler);
+        mProgressSamplerScheduled = false;
+        mProgressSource = source;
+        mAutoFireEnabled = autoFire;
+        mSampledProgress = Float.NaN;
+        scheduleProgressSampler(0);
     }
 
     /**
-     * 画正在缩短的箭
+     * 安排下一次读取进度来源
+     *
+     * @param delay 延时(ms)
      */
-    private void drawShrinkingArrow(@NonNull Canvas canvas) {
-        //这里要更新ArrowPath
-        float runTime = SystemClock.uptimeMillis() - mFiredArrowShrinkStartTime;
-        float percent = runTime / mFiredArrowShrinkDuration;
-        if (percent > 1) {
-            percent = 1;
+    private void scheduleProgressSampler(long delay) {
+        if (mProgressSource == null || mProgressSamplerScheduled || !isVisible()
+                || (mState != STATE_NORMAL && mState != STATE_DRAGGING) || isProgressSourceFinished()) {
+            return;
         }
-        float needSubtractLength = percent * mFiredArrowShrinkDistance;
-        float arrowLength = mArrowBodyLength - needSubtractLength;
-        initArrowPath(arrowLength);
-
-        float newArrowOffset = mArrowOffset - needSubtractLength;
-        mArrowPath.offset(0, newArrowOffset);
-        mArrowTail.offsetTo(mArrowTail.left, newArrowOffset - mFinHeight / 2);
-
-        drawArrowTail(canvas, (int) (255 * percent));
-
-        mPaint.setAlpha(255);
-        drawArrow(canvas);
-
-        if (percent == 1) {
-            mFiredArrowShrinkStartTime = 0;
-            mFiredArrowMoveStartTime = SystemClock.uptimeMillis();
+        if (getCallback() != null) {
+            mProgressSamplerScheduled = true;
+            scheduleSelf(mProgressSampler, SystemClock.uptimeMillis() + delay);
         }
     }
 
     /**
-     * 画正在坠落的线条
+     * 读取进度来源
      */
-    private void drawLines(@NonNull Canvas canvas) {
-        mPaint.setStyle(Paint.Style.STROKE);
-        mPaint.setStrokeWidth(mArrowBodyWidth);
-        mPaint.setColor(mLineColor);
-
-        for (Line tmp : mLines) {
-            canvas.drawLine(tmp.startX, tmp.startY, tmp.endX, tmp.startY + tmp.height, mPaint);
+    private void sampleProgressSource() {
+        ProgressSource source = mProgressSource;
+        if (source == null || (mState != STATE_NORMAL && mState != STATE_DRAGGING)) {
+            //已经发射了，等reset后再继续
+            return;
         }
+        float progress = source.getProgress();
+        boolean changed = progress != mSampledProgress;
+        mSampledProgress = progress;
+        if (changed) {
+            setProgress(progress);
+        }
+        if (mAutoFireEnabled && mProgress >= .95F) {
+            fire();
+            return;
+        }
+        //到1之后不会再变了，不用继续读；值没变的话读慢一点
+        scheduleProgressSampler(changed ? FRAME_INTERVAL : PROGRESS_IDLE_INTERVAL);
     }
 
     /**
-     * 画弓
+     * 进度来源是否已经到头(不自动发射，并且已经读到了1)
      */
-    private void drawBowPath(Canvas canvas) {
-        mBowPathMeasure = new PathMeasure(mBowPath, false);
-        mBowPathPoints = decomposePath(mBowPathMeasure);
-
-        mPaint.setStyle(Paint.Style.FILL);
-        mPaint.setColor(mBowColor);
+    private boolean isProgressSourceFinished() {
+        return !mAutoFireEnabled && mSampledProgress >= 1;
+    }
 
-        final int length = mBowPathPoints.length;
-        float fraction;
-        float radius;
-        for (int i = 0; i < length; i += 2) {
-            fraction = ((float) i) / length;
-            radius = mBowWidth * mScaleHelper.getScale(fraction) / 2;
-            canvas.drawCircle(mBowPathPoints[i], mBowPathPoints[i + 1], radius, mPaint);
+    @Override
+    public boolean setVisible(boolean visible, boolean restart) {
+        boolean changed = super.setVisible(visible, restart);
+        if (visible) {
+            scheduleProgressSampler(0);
+        } else if (mProgressSamplerScheduled) {
+            //不可见时不用读取
+            unscheduleSelf(mProgressSampler);
+            mProgressSamplerScheduled = false;
         }
+        return changed;
     }
 
     /**
-     * 画手柄
+     * 在任意线程发布进度，绘制时才会生效(每帧只取最新的一个)，效果同{@link #setProgress(float)}
      */
-    private void drawHandlePath(@NonNull Canvas canvas) {
-        mPaint.setStyle(Paint.Style.STROKE);
-        mPaint.setStrokeWidth(mHandleWidth);
-        mPaint.setColor(mBowColor);
+    public void postProgress(@FloatRange(from = 0F, to = 1F) float progress) {
+        mInputChannel.publishProgress(progress);
+        postInvalidate();
+    }
 
-        canvas.drawPath(mHandlePath, mPaint);
+    /**
+     * 在任意线程发布发射指令，绘制时才会生效，效果同{@link #fire()}
+     */
+    public void postFire() {
+        mInputChannel.publishCommand(InputChannel.FLAG_FIRE);
+        postInvalidate();
     }
 
     /**
-     * 画弦
+     * 在任意线程发布命中指令，绘制时才会生效，效果同{@link #hit()}，
+     * 如果那时箭还没开始上下移动，会一直保留到可以命中为止。
+     * 命中和未命中以最后一个为准：之后再发布未命中或者直接调用{@link #hit()}、{@link #miss()}，这个指令就作废了
      */
-    private void drawString(@NonNull Canvas canvas) {
-        mPaint.setStyle(Paint.Style.STROKE);
-        mPaint.setStrokeWidth(mStringWidth);
-        mPaint.setColor(mStringColor);
+    public void postHit() {
+        mInputChannel.publishCommand(InputChannel.FLAG_HIT);
+        postInvalidate();
+    }
 
-        canvas.drawLine(mStringStartPoint.x, mStringStartPoint.y, mStringMiddlePoint.x, mStringMiddlePoint.y, mPaint);
-        canvas.drawLine(mStringEndPoint.x, mStringEndPoint.y, mStringMiddlePoint.x, mStringMiddlePoint.y, mPaint);
+    /**
+     * 在任意线程发布未命中指令，绘制时才会生效，效果同{@link #miss()}，
+     * 如果那时箭还没开始上下移动，会一直保留到可以未命中为止。
+     * 命中和未命中以最后一个为准，同{@link #postHit()}
+     */
+    public void postMiss() {
+        mInputChannel.publishCommand(InputChannel.FLAG_MISS);
+        postInvalidate();
     }
 
     /**
-     * 画箭
+     * 在任意线程发布重置指令，之前还没生效的进度和指令都会被丢弃，效果同{@link #reset()}
      */
-    private void drawArrow(@NonNull Canvas canvas) {
-        mPaint.setStyle(Paint.Style.FILL);
-        mPaint.setColor(mArrowColor);
+    public void postReset() {
+        mInputChannel.publishCommand(InputChannel.FLAG_RESET);
+        postInvalidate();
+    }
 
-        canvas.drawPath(mArrowPath, mPaint);
+    /**
+     * 在绘制线程请求重绘(见{@link #runOnDrawThread(Runnable)})，还没执行的请求只会有一个
+     */
+    private void postInvalidate() {
+        if (mInputChannel.markInvalidatePosted()) {
+            runOnDrawThread(mPostedInvalidate);
+        }
     }
 
-    private void drawArrowTail(@NonNull Canvas canvas) {
-        drawArrowTail(canvas, 255);
+    /**
+     * 在绘制线程执行(任意线程都可以调用)：有Callback的话通过{@link #scheduleSelf(Runnable, long)}交给宿主安排
+     * (View是主线程，{@link ArrowSurfaceView}是它的渲染线程)，还没有Callback的话在主线程执行
+     */
+    private void runOnDrawThread(@NonNull Runnable action) {
+        if (getCallback() != null) {
+            scheduleSelf(action, SystemClock.uptimeMillis());
+        } else {
+            getMainHandler().post(action);
+        }
     }
 
     /**
-     * 画箭尾
+     * 获取主线程的Handler
      */
-    private void drawArrowTail(@NonNull Canvas canvas, int alpha) {
-        mPaint.setStyle(Paint.Style.FILL);
-        mPaint.setColor(mArrowColor);
-        mPaint.setAlpha(alpha);
-        mPaint.setMaskFilter(mTailMaskFilter);
+    private Handler getMainHandler() {
+        Handler handler = mMainHandler;
+        if (handler == null) {
+            //多个线程同时创建也没关系，都是主线程的Handler
+            mMainHandler = handler = new Handler(Looper.getMainLooper());
+        }
+        return handler;
+    }
 
-        canvas.drawRect(mArrowTail, mPaint);
+    /**
+     * 处理其他线程发布的进度和指令(每帧开始时取一次快照)
+     */
+    private void applyPublishedInput() {
+        //这一帧会处理目前发布的全部输入，之后发布的要重新请求(宿主没有执行请求的话，也不会一直卡住)
+        mInputChannel.clearInvalidatePosted();
+        long input = mInputChannel.consume();
+        if (input == 0) {
+            return;
+        }
+        if (InputChannel.hasFlag(input, InputChannel.FLAG_RESET)) {
+            recordInput(InputTrace.TYPE_RESET, 0);
+            resetWithoutInvalidate();
+            if (mLowFootprintEnabled) {
+                releaseFiringResources();
+            }
+        }
+        if (InputChannel.hasFlag(input, InputChannel.FLAG_PROGRESS)) {
+            float progress = InputChannel.getProgress(input);
+            recordInput(InputTrace.TYPE_PROGRESS, progress);
+            updateProgress(progress);
+        }
+        if (InputChannel.hasFlag(input, InputChannel.FLAG_FIRE)) {
+            fire();
+        }
+        //命中和未命中互斥，通道里只会保留最后发布的那一个
+        if (InputChannel.hasFlag(input, InputChannel.FLAG_HIT)) {
+            recordInput(InputTrace.TYPE_HIT, -1);
+            mPendingOutcome = InputChannel.FLAG_HIT;
+        } else if (InputChannel.hasFlag(input, InputChannel.FLAG_MISS)) {
+            recordInput(InputTrace.TYPE_MISS, -1);
+            mPendingOutcome = InputChannel.FLAG_MISS;
+        }
+    }
 
-        mPaint.setMaskFilter(null);
+    /**
+     * 每帧尝试一次等待中的命中或未命中指令：箭还没开始上下移动的话留到下一帧，
+     * 已经不在发射状态(比如已经重置了)的话直接丢弃
+     */
+    private void applyPendingOutcome() {
+        if (mPendingOutcome == 0) {
+            return;
+        }
+        if (mState == STATE_FIRING) {
+            if (!isArrowDancing()) {
+                return;
+            }
+            if (mPendingOutcome == InputChannel.FLAG_HIT) {
+                performHit();
+            } else {
+                performMiss();
+            }
+        }
+        mPendingOutcome = 0;
     }
 
     /**
-     * 更新箭偏移量
+     * 进度改变后请求重绘：一帧内只请求一次，并且位移小于阈值时不重绘
      */
-    private void updateArrowOffset() {
-        float newOffset = 0;
-        if (mProgress > .5F) {
-            newOffset = mStringOffset;
-        } else if (mProgress >= .25F) {
-            newOffset = (mProgress - .25F/*从0开始*/) * mStringOffset * 4/*剩下的25%要走完这段距离*/;
+    private void invalidateProgress() {
+        long now = SystemClock.uptimeMillis();
+        if (mProgressInvalidatePending && now - mProgressInvalidateTime < PROGRESS_INVALIDATE_TIMEOUT) {
+            //已经请求过了，画的时候会用最新的进度
+            return;
         }
-        mArrowPath.offset(0, -mArrowOffset);
-        mArrowPath.offset(0, mArrowOffset = newOffset);
+        //到达两端时无论如何都要画出来
+        boolean reachedEnd = mProgress != mDrawnProgress && (mProgress == 0 || mProgress == 1);
+        if (!reachedEnd && getProgressVisualDelta(mDrawnProgress, mProgress) < mProgressInvalidateThreshold) {
+            return;
+        }
+        mProgressInvalidatePending = true;
+        mProgressInvalidateTime = now;
+        invalidateSelf();
     }
 
     /**
-     * 重画手柄
+     * 当前的动画时间：设置了播放时间的话用播放时间，否则跟随系统时间
      */
-    private void updateHandlePath() {
-        float bowPathLength = mBowPathMeasure.getLength();
-        float handlePathLength = bowPathLength / 5;
-        float center = bowPathLength / 2;
-        float start = center - handlePathLength / 2;
-        mHandlePath.reset();
-        mBowPathMeasure.getSegment(start, start + handlePathLength, mHandlePath, true);
+    private long now() {
+        return mPlayTimeControlled ? mPlayTimeOrigin + mPlayTime : SystemClock.uptimeMillis();
     }
 
     /**
-     * 更新每一条线的y坐标
+     * 播放时间是否由外部控制
      */
-    private void updateLinesY() {
-        for (Line tmp : mLines) {
-            float runtime = SystemClock.uptimeMillis() - tmp.startTime;
-            float percent = runtime / tmp.duration;
-            tmp.startY = percent * tmp.distance - tmp.height;
-            if (tmp.startY >= mHeight) {
-                initLines(tmp);
-            }
-        }
+    public boolean isPlayTimeControlled() {
+        return mPlayTimeControlled;
     }
 
     /**
-     * 更新弦的坐标点
+     * 获取当前的播放时间(单位: 毫秒)，没有设置过播放时间的话为-1
      */
-    private void updateStringPoints() {
-        updateStringPoints(true);
+    public long getPlayTime() {
+        return mPlayTimeControlled ? mPlayTime : -1;
     }
 
     /**
-     * 更新弦的坐标点
+     * 设置播放时间(单位: 毫秒)并重绘，之后动画不再跟随系统时间，画出来的总是这个时间的那一帧，
+     * 用于截图、生成缩略图、测试等需要直接跳到某一时刻的场景，不用模拟中间的帧。
+     * 第一次设置时，当前时刻就是这个播放时间。
+     * <p>
+     * 向后跳时，跟一帧一帧播放到这个时间得到的是同一帧。
+     * 发射后往回跳时，会先重置，再按原来的时间重新执行这个时间之前的发射、命中、未命中，之后的指令丢弃；
+     * 通过{@link #restoreState(ArrowSnapshot)}恢复的动画最多只能跳回到恢复的那一刻
      *
-     * @param updateMiddlePointY 是否更新中间的y轴坐标
+     * @param playTime 播放时间
      */
-    private void updateStringPoints(boolean updateMiddlePointY) {
-        int length = mBowPathPoints.length;
-        int stringStartIndex = (int) (length * .05F);
-        //必须是偶数
-        if (stringStartIndex % 2 != 0) {
-            stringStartIndex--;
-        }
-        int stringEndIndex = (int) (length * .95F);
-        if (stringEndIndex % 2 != 0) {
-            stringEndIndex--;
-        }
-        mStringStartPoint.x = mBowPathPoints[stringStartIndex];
-        mStringStartPoint.y = mBowPathPoints[stringStartIndex + 1];
-        mStringEndPoint.x = mBowPathPoints[stringEndIndex];
-        mStringEndPoint.y = mBowPathPoints[stringEndIndex + 1];
-        if (updateMiddlePointY) {
-            mStringMiddlePoint.y = mStringOffset = mStringStartPoint.y + (mProgress <= .5F ?
-                    0 : (mProgress - .5F) * mMaxStringOffset * 2/*因为只剩下50%的距离，所以要2倍*/);
+    public void setPlayTime(@IntRange(from = 0) long playTime) {
+        if (mPlayTimeControlled && playTime < mPlayTime && mState != STATE_NORMAL && mState != STATE_DRAGGING) {
+            playTime = replayCommands(playTime);
+        }
+        if (!mPlayTimeControlled) {
+            mPlayTimeControlled = true;
+            //开始时间为0表示还没开始，所以时间要保证大于0
+            mPlayTimeOrigin = Math.max(1, SystemClock.uptimeMillis() - playTime);
         }
+        mPlayTime = playTime;
+        invalidateSelf();
     }
 
     /**
-     * 重画弓
+     * 获取绘制过程的追踪
+     */
+    @Nullable
+    public ArrowTracer getTracer() {
+        return mTracer;
+    }
+
+    /**
+     * 设置绘制过程的追踪(默认没有)：之后每帧会按当前状态、更新几何数据、分解弓、更新/画线条、画箭尾阴影、渲染图层缓存等
+     * 分段调用，见{@link ArrowTracer}。要在绘制线程设置
      *
-     * @param currentAngle 弓弯曲的角度
+     * @param tracer 追踪，例如{@link SystemTracer}，null为关闭
      */
-    private void updateBowPath(float currentAngle) {
-        PointF stringPoint = getPointByAngle(currentAngle);
+    public void setTracer(@Nullable ArrowTracer tracer) {
+        mTracer = tracer;
+    }
 
-        float startX = mCenterX * 2 - stringPoint.x;
-        float startY = stringPoint.y;
-        float controlX = mCenterX;
-        float controlY = -stringPoint.y;
-        float endX = stringPoint.x;
-        float endY = stringPoint.y;
+    private void beginSection(String name) {
+        if (mTracer != null) {
+            mTracer.beginSection(name);
+        }
+    }
 
-        mBowPath.reset();
-        //镜像的x轴
-        mBowPath.moveTo(startX, startY);
-        mBowPath.quadTo(controlX, controlY, endX, endY);
+    private void endSection() {
+        if (mTracer != null) {
+            mTracer.endSection();
+        }
+    }
 
-        //初始偏移量
-        float offsetY = -mBaseStringCenterY;
-        //根据滑动进度偏移
-        offsetY += mMaxBowOffset * (mProgress <= .25F ? mProgress * 4/*因为总距离只有25%，所以要4倍速度赶上*/ : 1);
-        //偏移弓
-        mBowPath.offset(0, offsetY);
+    /**
+     * 获取正在记录的输入轨迹
+     */
+    @Nullable
+    public InputTrace getInputTrace() {
+        return mInputTrace;
     }
 
     /**
-     * 初始化箭
+     * 开始记录输入轨迹：之后每次调用setProgress、fire、hit、miss、reset(包括post系列方法生效时)都会带上当前的动画时间记录下来，
+     * 见{@link InputTrace}
      *
-     * @param arrowBodyLength 箭身长度
+     * @param trace 用来保存的轨迹，null为停止记录
      */
-    private void initArrowPath(float arrowBodyLength) {
-        mArrowPath.reset();
-        mArrowPath.moveTo(mCenterX + mArrowBodyWidth, -mFinSlopeHeight);
-
-        mArrowPath.rLineTo(mFinWidth, mFinSlopeHeight);
-        mArrowPath.rLineTo(0, -mFinHeight);
-        mArrowPath.rLineTo(-mFinWidth, -mFinSlopeHeight);
-        mArrowPath.rLineTo(0, -arrowBodyLength);
-        mArrowPath.rLineTo(mArrowWidth, 0);
-        mArrowPath.rLineTo(-mArrowWidth - mArrowBodyWidth, -mArrowHeight);
-        mArrowPath.rLineTo(-mArrowWidth - mArrowBodyWidth, mArrowHeight);
-        mArrowPath.rLineTo(mArrowWidth, 0);
-        mArrowPath.rLineTo(0, arrowBodyLength);
-        mArrowPath.rLineTo(-mFinWidth, mFinSlopeHeight);
-        mArrowPath.rLineTo(0, mFinHeight);
-        mArrowPath.rLineTo(mFinWidth, -mFinSlopeHeight);
-        mArrowPath.close();
+    public void setInputTrace(@Nullable InputTrace trace) {
+        mInputTrace = trace;
     }
 
     /**
-     * 根据当前拖动的进度计算出弓的弯曲角度
+     * 记录输入
      */
-    private float getAngleByProgress() {
-        //当前角度 = 基本角度 + (可用角度 * 滑动进度)
-        return mBaseAngle + (mProgress <= .5F ? 0 :
-                mUsableAngle * (mProgress - .5F/*对齐(从0%开始)*/) * 2/*两倍追赶*/);
+    private void recordInput(int type, float value) {
+        if (mInputTrace != null) {
+            mInputTrace.record(now(), type, value);
+        }
     }
 
-    private PointF mTempPoint = new PointF();
+    /**
+     * 获取当前状态
+     */
+    int getAnimationState() {
+        return mState;
+    }
 
     /**
-     * 根据弓当前弯曲的角度计算新的端点坐标
-     *
-     * @param angle 弓当前弯曲的角度
-     * @return 新的端点坐标
+     * 恢复跟随系统时间，动画从当前播放时间的那一帧继续播放
      */
-    private PointF getPointByAngle(float angle) {
-        //先把角度转成弧度
-        double radian = angle * Math.PI / 180;
-        //半径 取 弓长的一半
-        float radius = mBowLength / 2;
-        //x轴坐标值
-        float x = (float) (mCenterX + radius * Math.cos(radian));
-        //y轴坐标值
-        float y = (float) (radius * Math.sin(radian));
-        mTempPoint.set(x, y);
-        return mTempPoint;
+    public void resumeRealTime() {
+        if (mPlayTimeControlled) {
+            long delta = SystemClock.uptimeMillis() - now();
+            mPlayTimeControlled = false;
+            offsetStartTimes(delta);
+            invalidateSelf();
+        }
     }
 
     /**
-     * 分解Path
+     * 保存当前的动画状态，见{@link ArrowSnapshot}
      *
-     * @return Path上的全部坐标点
-     */
-    private float[] decomposePath(PathMeasure pathMeasure) {
-        if (pathMeasure.getLength() == 0) {
-            return new float[0];
+     * @param out 保存到这个快照中(可以复用)
+     * @return out
+     */
+    @NonNull
+    public ArrowSnapshot saveState(@NonNull ArrowSnapshot out) {
+        //收缩已经结束但还没画过的话，先结束收缩
+        finishEndedShrinking();
+        long now = now();
+        out.saved = true;
+        out.width = mWidth;
+        out.height = mHeight;
+        out.bowLength = (int) mBowLength;
+        out.state = mState;
+        out.progress = mProgress;
+        out.arrowOffset = mArrowOffset;
+        out.stringOffset = mStringOffset;
+        out.arrowShrunk = mState != STATE_NORMAL && mState != STATE_DRAGGING && mFiredArrowMoveStartTime > 0;
+        out.tailTop = mArrowTail.top;
+
+        out.fireTime = ArrowSnapshot.toOffset(mFireTime, now);
+        out.shrinkStartTime = ArrowSnapshot.toOffset(mFiredArrowShrinkStartTime, now);
+        out.moveStartTime = ArrowSnapshot.toOffset(mFiredArrowMoveStartTime, now);
+        out.hitStartTime = ArrowSnapshot.toOffset(mHitStartTime, now);
+        out.missStartTime = ArrowSnapshot.toOffset(mMissStartTime, now);
+        out.skewStartTime = ArrowSnapshot.toOffset(mSkewStartTime, now);
+        out.moveDistance = mFiredArrowMoveDistance;
+        out.lastMoveDistance = mFiredArrowLastMoveDistance;
+        out.hitDistance = mHitDistance;
+        out.missDistance = mMissDistance;
+        out.skewReversed = mSkewTan < 0;
+        out.skewCount = mCurrentSkewCount;
+
+        //静止和拖动状态下不用画线条
+        int lineCount = mLines == null || mState == STATE_NORMAL || mState == STATE_DRAGGING ? 0 : mLines.size();
+        out.ensureLineCapacity(lineCount);
+        out.lineCount = lineCount;
+        for (int i = 0; i < lineCount; i++) {
+            Line line = mLines.get(i);
+            out.lineStartTimes[i] = ArrowSnapshot.toOffset(line.startTime, now);
+            out.lineDurations[i] = line.duration;
+            out.lineStartX[i] = line.startX;
+            out.lineEndX[i] = line.endX;
+            out.lineStartY[i] = line.startY;
+            out.lineHeights[i] = line.height;
+            out.lineDistances[i] = line.distance;
+            out.lineSeeds[i] = line.seed;
         }
-        final float pathLength = pathMeasure.getLength();
-        int numPoints = (int) (pathLength / mPrecision) + 1;
-        float[] points = new float[numPoints * 2];
-        final float[] position = new float[2];
-        int index = 0;
-        float distance;
-        for (int i = 0; i < numPoints; ++i) {
-            distance = (i * pathLength) / (numPoints - 1);
-            pathMeasure.getPosTan(distance, position, null);
-            points[index] = position[0];
-            points[index + 1] = position[1];
-            index += 2;
+
+        if (mVolley == null) {
+            out.volley = null;
+        } else {
+            if (out.volley == null || out.volley.count != mVolley.count) {
+                out.volley = new Volley(mVolley.count);
+            }
+            out.volley.set(mVolley);
+            for (int i = 0; i < mVolley.count; i++) {
+                out.volley.startTimes[i] = ArrowSnapshot.toOffset(mVolley.startTimes[i], now);
+            }
         }
-        return points;
+        return out;
     }
 
     /**
-     * 设置{@link #decomposePath(PathMeasure)}分解的点密度(单位: px)
+     * 恢复保存的动画状态，从保存时的那一帧继续播放。
+     * 尺寸跟保存时不一样的话会先{@link #updateSize(int, int, int)}，所以最好恢复到相同尺寸的实例上；快照是空的话等于{@link #reset()}
      *
-     * @param precision 新密度
+     * @param snapshot 用{@link #saveState(ArrowSnapshot)}保存的快照
      */
-    public void setPrecision(float precision) {
-        mPrecision = precision;
-        invalidateSelf();
-    }
-
-    @Override
-    public int getIntrinsicWidth() {
-        return mWidth;
-    }
+    public void restoreState(@NonNull ArrowSnapshot snapshot) {
+        if (!snapshot.saved) {
+            reset();
+            return;
+        }
+        if (snapshot.width != mWidth || snapshot.height != mHeight || snapshot.bowLength != (int) mBowLength) {
+            updateSize(snapshot.width, snapshot.height, snapshot.bowLength);
+        }
+        //先回到静止状态(箭回到初始位置)，再恢复
+        resetWithoutInvalidate();
+        setVolleyCount(snapshot.volley == null ? 1 : snapshot.volley.count);
+        long now = now();
+        mState = snapshot.state;
+        mProgress = snapshot.progress;
+        mStringOffset = snapshot.stringOffset;
+        mFallingBowTranslatable = false;
+
+        mFireTime = ArrowSnapshot.fromOffset(snapshot.fireTime, now);
+        mFiredArrowShrinkStartTime = ArrowSnapshot.fromOffset(snapshot.shrinkStartTime, now);
+        mFiredArrowMoveStartTime = ArrowSnapshot.fromOffset(snapshot.moveStartTime, now);
+        mHitStartTime = ArrowSnapshot.fromOffset(snapshot.hitStartTime, now);
+        mMissStartTime = ArrowSnapshot.fromOffset(snapshot.missStartTime, now);
+        mSkewStartTime = ArrowSnapshot.fromOffset(snapshot.skewStartTime, now);
+        mFiredArrowMoveDistance = snapshot.moveDistance;
+        mFiredArrowLastMoveDistance = snapshot.lastMoveDistance;
+        mHitDistance = snapshot.hitDistance;
+        mMissDistance = snapshot.missDistance;
+        mSkewTan = snapshot.skewReversed ? -Math.abs(mSkewTan) : Math.abs(mSkewTan);
+        mCurrentSkewCount = snapshot.skewCount;
 
-    @Override
-    public int getIntrinsicHeight() {
-        return mHeight;
-    }
+        if (mState == STATE_NORMAL || mState == STATE_DRAGGING) {
+            //弓、弦、箭画的时候再按进度更新
+            mDraggingGeometryStale = true;
+            mSampledProgress = Float.NaN;
+            scheduleProgressSampler(0);
+        } else {
+            //箭回到发射时的位置
+            mArrowOffset = snapshot.arrowOffset;
+            mArrowPath.offset(0, mArrowOffset);
+            offsetLayer(LayerCache.LAYER_ARROW, mArrowOffset);
+            if (snapshot.arrowShrunk) {
+                //收缩完的箭，再移动到保存时的位置(箭跟着箭尾一起移动)
+                updateShrinkingArrow(InterpolatorTable.interpolate(mFiredArrowShrinkInterpolator, 1));
+                float offset = snapshot.tailTop - mArrowTail.top;
+                mArrowPath.offset(0, offset);
+                mArrowTail.offset(0, offset);
+                offsetLayer(LayerCache.LAYER_ARROW, offset);
+                offsetLayer(LayerCache.LAYER_TAIL, offset);
+            }
+        }
 
-    @Override
-    public void setAlpha(int alpha) {
-        mPaint.setAlpha(alpha);
+        if (snapshot.lineCount > 0) {
+            if (mLines == null) {
+                initLines();
+            }
+            int lineCount = Math.min(snapshot.lineCount, mLines.size());
+            for (int i = 0; i < lineCount; i++) {
+                Line line = mLines.get(i);
+                line.startTime = ArrowSnapshot.fromOffset(snapshot.lineStartTimes[i], now);
+                line.duration = snapshot.lineDurations[i];
+                line.startX = snapshot.lineStartX[i];
+                line.endX = snapshot.lineEndX[i];
+                line.startY = snapshot.lineStartY[i];
+                line.height = snapshot.lineHeights[i];
+                line.distance = snapshot.lineDistances[i];
+                line.seed = snapshot.lineSeeds[i];
+            }
+        }
+        if (mVolley != null) {
+            mVolley.set(snapshot.volley);
+            for (int i = 0; i < mVolley.count; i++) {
+                mVolley.startTimes[i] = ArrowSnapshot.fromOffset(snapshot.volley.startTimes[i], now);
+            }
+        }
+        if (mState != STATE_NORMAL && mState != STATE_DRAGGING) {
+            //记下恢复的状态，往回跳时从这里重新执行之后的指令
+            if (mTimelineBase == null) {
+                mTimelineBase = new ArrowSnapshot();
+            }
+            if (mTimelineBase != snapshot) {
+                saveState(mTimelineBase);
+            }
+            mTimelineBaseTime = now;
+        }
+        invalidateSelf();
     }
 
-    @Override
-    public void setColorFilter(@Nullable ColorFilter colorFilter) {
-        mPaint.setColorFilter(colorFilter);
+    /**
+     * 把所有动画的开始时间平移指定的距离
+     */
+    private void offsetStartTimes(long delta) {
+        mFireTime = offsetTime(mFireTime, delta);
+        mFiredArrowShrinkStartTime = offsetTime(mFiredArrowShrinkStartTime, delta);
+        mFiredArrowMoveStartTime = offsetTime(mFiredArrowMoveStartTime, delta);
+        mMissStartTime = offsetTime(mMissStartTime, delta);
+        mHitStartTime = offsetTime(mHitStartTime, delta);
+        mSkewStartTime = offsetTime(mSkewStartTime, delta);
+        mTimelineBaseTime = offsetTime(mTimelineBaseTime, delta);
+        for (int i = 0; i < mCommandCount; i++) {
+            mCommandTimes[i] += delta;
+        }
+        if (mLines != null) {
+            for (Line tmp : mLines) {
+                tmp.startTime = offsetTime(tmp.startTime, delta);
+            }
+        }
+        if (mVolley != null) {
+            for (int i = 0; i < mVolley.count; i++) {
+                mVolley.startTimes[i] = offsetTime(mVolley.startTimes[i], delta);
+            }
+        }
     }
 
-    @Override
-    public int getOpacity() {
-        return PixelFormat.TRANSLUCENT;
+    /**
+     * 平移开始时间，还没开始(为0)的不用平移
+     */
+    private static long offsetTime(long time, long delta) {
+        return time > 0 ? time + delta : 0;
     }
 
-    public float getProgress() {
-        return mProgress;
+    /**
+     * 获取进度改变时的重绘阈值(px)
+     */
+    public float getProgressInvalidateThreshold() {
+        return mProgressInvalidateThreshold;
     }
 
-    public void setProgress(@FloatRange(from = 0F, to = 1F) float progress) {
-        //只有普通状态和拖动状态下才能设置进度
-        if (mState == STATE_NORMAL || mState == STATE_DRAGGING) {
-            mState = STATE_DRAGGING;
-            if (progress > 1) {
-                progress = 1;
-            } else if (progress < 0) {
-                progress = 0;
-            }
-            this.mProgress = progress;
-            invalidateSelf();
-        }
+    /**
+     * 设置进度改变时的重绘阈值：弓、弦、箭的位移都小于这个值(px)时，不重绘
+     *
+     * @param threshold 阈值，0表示每次进度改变都重绘
+     */
+    public void setProgressInvalidateThreshold(@FloatRange(from = 0F) float threshold) {
+        mProgressInvalidateThreshold = threshold;
     }
 
     /**
@@ -1008,6 +3784,7 @@ public class ArrowDrawable extends Drawable {
      */
     public void setFiredArrowMoveDuration(long duration) {
         this.mFiredArrowMoveDuration = duration;
+        releaseSpriteStrip();
     }
 
     /**
@@ -1064,6 +3841,7 @@ public class ArrowDrawable extends Drawable {
      */
     public void setLineColor(int color) {
         this.mLineColor = color;
+        updatePaints();
         invalidateSelf();
     }
 
@@ -1079,6 +3857,8 @@ public class ArrowDrawable extends Drawable {
      */
     public void setBowColor(int color) {
         this.mBowColor = color;
+        updatePaints();
+        clearPictureCache();
         invalidateSelf();
     }
 
@@ -1094,6 +3874,8 @@ public class ArrowDrawable extends Drawable {
      */
     public void setStringColor(int color) {
         this.mStringColor = color;
+        updatePaints();
+        clearPictureCache();
         invalidateSelf();
     }
 
@@ -1109,6 +3891,8 @@ public class ArrowDrawable extends Drawable {
      */
     public void setArrowColor(int color) {
         this.mArrowColor = color;
+        updatePaints();
+        clearPictureCache();
         invalidateSelf();
     }
 
@@ -1140,11 +3924,62 @@ public class ArrowDrawable extends Drawable {
         this.mMaxSkewCount = count;
     }
 
+    /**
+     * 设置发射中的弓向下移动的插值器，null为线性
+     */
+    public void setFiringBowFallInterpolator(@Nullable TimeInterpolator interpolator) {
+        mFiringBowFallInterpolator = createInterpolatorTable(interpolator);
+    }
+
+    /**
+     * 设置发射后的箭收缩动画的插值器，null为线性
+     */
+    public void setFiredArrowShrinkInterpolator(@Nullable TimeInterpolator interpolator) {
+        mFiredArrowShrinkInterpolator = createInterpolatorTable(interpolator);
+    }
+
+    /**
+     * 设置发射后的箭上下移动的插值器，null为线性
+     */
+    public void setFiredArrowMoveInterpolator(@Nullable TimeInterpolator interpolator) {
+        mFiredArrowMoveInterpolator = createInterpolatorTable(interpolator);
+        releaseSpriteStrip();
+    }
+
+    /**
+     * 设置未命中动画的插值器，null为线性
+     */
+    public void setMissInterpolator(@Nullable TimeInterpolator interpolator) {
+        mMissInterpolator = createInterpolatorTable(interpolator);
+    }
+
+    /**
+     * 设置命中动画的插值器，null为线性
+     */
+    public void setHitInterpolator(@Nullable TimeInterpolator interpolator) {
+        mHitInterpolator = createInterpolatorTable(interpolator);
+    }
+
+    /**
+     * 设置命中后左右摆动的插值器，null为线性
+     */
+    public void setSkewInterpolator(@Nullable TimeInterpolator interpolator) {
+        mSkewInterpolator = createInterpolatorTable(interpolator);
+    }
+
+    /**
+     * 把插值器采样成查找表，之后每帧只需查表
+     */
+    private InterpolatorTable createInterpolatorTable(@Nullable TimeInterpolator interpolator) {
+        return interpolator == null ? null : new InterpolatorTable(interpolator);
+    }
+
     /**
      * 坠落的线条
      */
     private static class Line {
 
+        long seed;//下一次重新坠落用的随机种子
         long duration;//坠落的时长
         long startTime;//开始坠落的时间
         float distance;//坠落的总距离
@@ -0,0 +1,56 @@
+package com.wuyr.arrowdrawable;
+
+import android.graphics.Bitmap;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * ArrowDrawable画每一帧时用到的所有绘制操作，动画的计算只依赖这个接口，
+ * 实现它就可以把画面输出到Canvas以外的地方，见{@link ArrowDrawable#render(ArrowRenderer)}。
+ * <p>
+ * Paint和Path只用来描述样式(颜色、粗细、圆角、模糊等)和形状，实现时按需要读取；
+ * 依赖Canvas的优化(例如拖动状态的帧缓存Picture)只在{@link CanvasArrowRenderer}中使用，其他实现总是画出完整的几何图形
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午6:10
+ */
+public interface ArrowRenderer {
+
+    /**
+     * 保存当前的变换
+     *
+     * @return 用于{@link #restoreToCount(int)}
+     */
+    int save();
+
+    /**
+     * 恢复到{@link #save()}时的变换
+     */
+    void restoreToCount(int saveCount);
+
+    void translate(float dx, float dy);
+
+    void scale(float sx, float sy);
+
+    void skew(float sx, float sy);
+
+    void drawCircle(float cx, float cy, float radius, @NonNull Paint paint);
+
+    void drawLine(float startX, float startY, float stopX, float stopY, @NonNull Paint paint);
+
+    void drawPath(@NonNull Path path, @NonNull Paint paint);
+
+    void drawRect(@NonNull RectF rect, @NonNull Paint paint);
+
+    void drawRect(float left, float top, float right, float bottom, @NonNull Paint paint);
+
+    /**
+     * 画预渲染的帧(开启了预渲染上下移动的箭时)，ALPHA_8的Bitmap用paint的颜色着色
+     */
+    void drawBitmap(@NonNull Bitmap bitmap, @NonNull Rect src, @NonNull RectF dst, @Nullable Paint paint);
+}
@@ -0,0 +1,120 @@
+package com.wuyr.arrowdrawable;
+
+/**
+ * ArrowDrawable动画状态的快照：状态、进度、各阶段开始时间(相对于保存时刻的偏移)、摆动次数、坠落的线条、齐射的每支箭。
+ * <p>
+ * 用于列表复用：item被回收时{@link ArrowDrawable#saveState(ArrowSnapshot)}，重新绑定时把它
+ * {@link ArrowDrawable#restoreState(ArrowSnapshot)}到复用的(相同尺寸的)ArrowDrawable上，动画从保存时的那一帧继续播放，
+ * 不用重新创建ArrowDrawable，也不用重新计算尺寸。
+ * 同一个快照可以反复保存，数组只在容量不够时才重新分配
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午8:10
+ */
+public final class ArrowSnapshot {
+
+    static final long NOT_STARTED = Long.MIN_VALUE;//动画还没开始(开始时间为0)
+
+    boolean saved;//是否已经保存过
+    int width;
+    int height;
+    int bowLength;
+
+    int state;
+    float progress;
+    float arrowOffset;//箭在拖动时的偏移量
+    float stringOffset;//弦的偏移量
+    boolean arrowShrunk;//箭是否已经收缩完
+    float tailTop;//收缩完之后箭尾当前的顶部(箭跟着箭尾一起移动)
+
+    //各阶段的开始时间，相对于保存时刻的偏移
+    long fireTime;
+    long shrinkStartTime;
+    long moveStartTime;
+    long hitStartTime;
+    long missStartTime;
+    long skewStartTime;
+
+    float moveDistance;
+    float lastMoveDistance;
+    float hitDistance;
+    float missDistance;
+    boolean skewReversed;//当前是否向反方向摆动
+    int skewCount;
+
+    int lineCount;//0表示没有线条
+    long[] lineStartTimes;
+    long[] lineDurations;
+    float[] lineStartX;
+    float[] lineEndX;
+    float[] lineStartY;
+    float[] lineHeights;
+    float[] lineDistances;
+    long[] lineSeeds;
+
+    Volley volley;//齐射模式下每支箭的状态(开始时间同样是偏移)，不是齐射模式时为null
+
+    /**
+     * 是否保存过状态
+     */
+    public boolean isSaved() {
+        return saved;
+    }
+
+    /**
+     * 保存时的状态
+     *
+     * @return {@link ArrowDrawable#STATE_NORMAL}等
+     */
+    public int getState() {
+        return state;
+    }
+
+    /**
+     * 保存时的进度
+     */
+    public float getProgress() {
+        return progress;
+    }
+
+    /**
+     * 清空，之后恢复的话等于{@link ArrowDrawable#reset()}
+     */
+    public void clear() {
+        saved = false;
+        lineCount = 0;
+        volley = null;
+    }
+
+    /**
+     * 保证线条的数组能放下指定数量
+     */
+    void ensureLineCapacity(int count) {
+        if (lineStartTimes == null || lineStartTimes.length < count) {
+            lineStartTimes = new long[count];
+            lineDurations = new long[count];
+            lineStartX = new float[count];
+            lineEndX = new float[count];
+            lineStartY = new float[count];
+            lineHeights = new float[count];
+            lineDistances = new float[count];
+            lineSeeds = new long[count];
+        }
+    }
+
+    /**
+     * 把绝对时间转成相对于now的偏移
+     */
+    static long toOffset(long time, long now) {
+        return time == 0 ? NOT_STARTED : time - now;
+    }
+
+    /**
+     * 把相对于now的偏移转回绝对时间
+     */
+    static long fromOffset(long offset, long now) {
+        //开始时间为0表示还没开始，所以时间要保证大于0
+        return offset == NOT_STARTED ? 0 : Math.max(1, now + offset);
+    }
+}
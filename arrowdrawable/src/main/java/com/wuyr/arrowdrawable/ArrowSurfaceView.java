@@ -0,0 +1,292 @@
+package com.wuyr.arrowdrawable;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.PixelFormat;
+import android.graphics.PorterDuff;
+import android.graphics.drawable.Drawable;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.util.AttributeSet;
+import android.view.Choreographer;
+import android.view.SurfaceHolder;
+import android.view.SurfaceView;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * 在独立线程中画ArrowDrawable的SurfaceView，主线程再忙动画也不会卡住。
+ * <p>
+ * ArrowDrawable只在渲染线程中使用，所以：
+ * 控制动画要用{@link ArrowDrawable#postProgress(float)}、{@link ArrowDrawable#postFire()}等post系列方法(任意线程都可以调用)，
+ * 修改颜色、时长等配置要通过{@link #queueEvent(Runnable)}放到渲染线程中执行。
+ * <p>
+ * 和普通SurfaceView一样，Surface默认在窗口下面，背景色透明时看到的是窗口后面的内容；
+ * 要透明地叠在其他View上面的话，自己调用{@link #setZOrderOnTop(boolean)}(会盖住同一窗口中的所有View)
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午6:10
+ */
+public class ArrowSurfaceView extends SurfaceView implements SurfaceHolder.Callback {
+
+    private static final long FRAME_INTERVAL = 16;//两帧之间的最小间隔(API 16以下没有Choreographer时用)
+
+    private final ArrowDrawable mDrawable;
+    private final Object mLock = new Object();
+    private HandlerThread mRenderThread;
+    private Handler mRenderHandler;//渲染线程的Handler，没有Surface时为null
+    private Choreographer mChoreographer;//渲染线程的Choreographer(API 16+)，跟随VSYNC画帧
+    private Choreographer.FrameCallback mFrameCallback;
+    private boolean mSurfaceValid;//只在渲染线程中读写
+    private boolean mFrameScheduled;//已经安排了下一帧，还没画
+    private volatile long mLastFrameTime;//上一帧的时间
+    private List<Runnable> mPendingEvents;//Surface创建前提交的任务
+    private int mBackgroundColor = Color.TRANSPARENT;
+
+    private final Runnable mFrame = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (mLock) {
+                mFrameScheduled = false;
+            }
+            drawFrame();
+        }
+    };
+
+    private final Drawable.Callback mDrawableCallback = new Drawable.Callback() {
+        @Override
+        public void invalidateDrawable(@NonNull Drawable who) {
+            requestFrame();
+        }
+
+        @Override
+        public void scheduleDrawable(@NonNull Drawable who, @NonNull Runnable what, long when) {
+            synchronized (mLock) {
+                if (mRenderHandler != null) {
+                    mRenderHandler.postAtTime(what, who, when);
+                }
+            }
+        }
+
+        @Override
+        public void unscheduleDrawable(@NonNull Drawable who, @NonNull Runnable what) {
+            synchronized (mLock) {
+                if (mRenderHandler != null) {
+                    mRenderHandler.removeCallbacks(what, who);
+                }
+            }
+        }
+    };
+
+    public ArrowSurfaceView(Context context) {
+        this(context, null);
+    }
+
+    public ArrowSurfaceView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public ArrowSurfaceView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        //尺寸在Surface创建后再更新
+        mDrawable = new ArrowDrawable(0, 0, 0);
+        mDrawable.setCallback(mDrawableCallback);
+        SurfaceHolder holder = getHolder();
+        holder.setFormat(PixelFormat.TRANSLUCENT);
+        holder.addCallback(this);
+        //和通过View创建的ArrowDrawable一样，注册到Application，系统内存紧张时释放缓存
+        CacheCoordinator.getInstance().register(context);
+    }
+
+    /**
+     * 获取正在画的ArrowDrawable，只能调用post系列方法，其他方法要通过{@link #queueEvent(Runnable)}在渲染线程调用
+     */
+    @NonNull
+    public ArrowDrawable getArrowDrawable() {
+        return mDrawable;
+    }
+
+    /**
+     * 在渲染线程中执行(没有Surface时先保存，Surface创建后再执行)
+     */
+    public void queueEvent(@NonNull final Runnable event) {
+        synchronized (mLock) {
+            if (mRenderHandler != null) {
+                mRenderHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        event.run();
+                        requestFrame();
+                    }
+                });
+                return;
+            }
+            if (mPendingEvents == null) {
+                mPendingEvents = new ArrayList<>();
+            }
+            mPendingEvents.add(event);
+        }
+    }
+
+    /**
+     * 设置每帧画之前填充的背景色(默认透明)
+     */
+    public void setArrowBackgroundColor(final int color) {
+        queueEvent(new Runnable() {
+            @Override
+            public void run() {
+                mBackgroundColor = color;
+            }
+        });
+    }
+
+    @Override
+    public void surfaceCreated(SurfaceHolder holder) {
+        HandlerThread thread = new HandlerThread("ArrowSurfaceView-render");
+        thread.start();
+        Handler handler = new Handler(thread.getLooper());
+        final List<Runnable> pendingEvents;
+        synchronized (mLock) {
+            mRenderThread = thread;
+            mRenderHandler = handler;
+            pendingEvents = mPendingEvents;
+            mPendingEvents = null;
+        }
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                mSurfaceValid = true;
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                    initChoreographer();
+                }
+                //恢复读取进度来源
+                mDrawable.setVisible(true, false);
+                if (pendingEvents != null) {
+                    for (Runnable event : pendingEvents) {
+                        event.run();
+                    }
+                }
+            }
+        });
+    }
+
+    @Override
+    public void surfaceChanged(SurfaceHolder holder, int format, final int width, final int height) {
+        queueEvent(new Runnable() {
+            @Override
+            public void run() {
+                //弓长 取 总宽度的 40%
+                mDrawable.updateSize(width, height, (int) (width * .4F));
+                mDrawable.setBounds(0, 0, width, height);
+            }
+        });
+    }
+
+    @Override
+    public void surfaceDestroyed(SurfaceHolder holder) {
+        final HandlerThread thread;
+        final Handler handler;
+        synchronized (mLock) {
+            thread = mRenderThread;
+            handler = mRenderHandler;
+            mRenderThread = null;
+            mRenderHandler = null;
+            mFrameScheduled = false;
+            if (mChoreographer != null) {
+                mChoreographer.removeFrameCallback(mFrameCallback);
+                mChoreographer = null;
+            }
+        }
+        if (handler == null) {
+            return;
+        }
+        //返回之后Surface就不能再用了，要等渲染线程停下来
+        final CountDownLatch latch = new CountDownLatch(1);
+        handler.removeCallbacksAndMessages(null);
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                mSurfaceValid = false;
+                mDrawable.setVisible(false, false);
+                latch.countDown();
+            }
+        });
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread.quit();
+    }
+
+    /**
+     * 在渲染线程中获取它自己的Choreographer(Choreographer是跟随Looper的)
+     */
+    private void initChoreographer() {
+        Choreographer choreographer = Choreographer.getInstance();
+        synchronized (mLock) {
+            if (mRenderHandler == null) {
+                return;
+            }
+            if (mFrameCallback == null) {
+                mFrameCallback = new Choreographer.FrameCallback() {
+                    @Override
+                    public void doFrame(long frameTimeNanos) {
+                        mFrame.run();
+                    }
+                };
+            }
+            mChoreographer = choreographer;
+            //Choreographer准备好之前安排的帧
+            if (mFrameScheduled) {
+                mRenderHandler.removeCallbacks(mFrame);
+                mChoreographer.postFrameCallback(mFrameCallback);
+            }
+        }
+    }
+
+    /**
+     * 安排下一帧(一帧内多次请求只会画一次)
+     */
+    private void requestFrame() {
+        synchronized (mLock) {
+            if (mRenderHandler == null || mFrameScheduled) {
+                return;
+            }
+            mFrameScheduled = true;
+            if (mChoreographer != null) {
+                mChoreographer.postFrameCallback(mFrameCallback);
+                return;
+            }
+            long when = Math.max(SystemClock.uptimeMillis(), mLastFrameTime + FRAME_INTERVAL);
+            mRenderHandler.postAtTime(mFrame, when);
+        }
+    }
+
+    /**
+     * 在渲染线程中画一帧
+     */
+    private void drawFrame() {
+        if (!mSurfaceValid) {
+            return;
+        }
+        mLastFrameTime = SystemClock.uptimeMillis();
+        Canvas canvas = getHolder().lockCanvas();
+        if (canvas == null) {
+            return;
+        }
+        try {
+            canvas.drawColor(mBackgroundColor, PorterDuff.Mode.SRC);
+            mDrawable.draw(canvas);
+        } finally {
+            getHolder().unlockCanvasAndPost(canvas);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.wuyr.arrowdrawable;
+
+import android.support.annotation.NonNull;
+
+/**
+ * 绘制过程的追踪：设置到{@link ArrowDrawable#setTracer(ArrowTracer)}后，每帧会按阶段和步骤(例如当前状态、分解弓、更新线条、画箭尾阴影)
+ * 成对地调用{@link #beginSection(String)}和{@link #endSection()}，可以嵌套。
+ * 输出到系统trace用{@link SystemTracer}
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午10:10
+ */
+public interface ArrowTracer {
+
+    /**
+     * 开始一段，在绘制线程调用
+     *
+     * @param name 段名(常量，不会每帧重新创建)
+     */
+    void beginSection(@NonNull String name);
+
+    /**
+     * 结束最近开始的一段
+     */
+    void endSection();
+}
@@ -0,0 +1,474 @@
+package com.wuyr.arrowdrawable;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+import android.support.annotation.RequiresApi;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 批量渲染：把不同尺寸、弓长、配色的动画预览图分给多个线程同时渲染。
+ * <p>
+ * 每个{@link Job}独立渲染，用ForkJoinPool按任务列表二分派给所有核心；
+ * 每个工作线程有自己的Bitmap、Canvas和ArrowDrawable，尺寸相同的任务之间直接复用(任务会先按尺寸排序，相邻的任务尺寸相同的概率更大)，
+ * ArrowDrawable只在第一次用到时创建，之后的任务都是{@link ArrowDrawable#updateSize(int, int, int)}。
+ * 每渲染好一帧就交给{@link Output}(在工作线程中回调)，不用等所有任务结束，也不用把所有帧都留在内存中；
+ * 每完成一个任务回调一次{@link ProgressListener}报告吞吐量
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午8:40
+ */
+@RequiresApi(21)
+public final class BatchRenderer {
+
+    private final int mParallelism;
+    private ProgressListener mProgressListener;
+
+    /**
+     * 线程数等于CPU核心数
+     */
+    public BatchRenderer() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism 线程数
+     */
+    public BatchRenderer(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Invalid parallelism!");
+        }
+        mParallelism = parallelism;
+    }
+
+    /**
+     * 设置进度监听(在工作线程中回调)
+     */
+    public void setProgressListener(@Nullable ProgressListener listener) {
+        mProgressListener = listener;
+    }
+
+    /**
+     * 渲染所有任务，全部完成后才返回
+     *
+     * @param jobs   要渲染的任务
+     * @param output 每一帧的输出
+     * @return 本次渲染的统计
+     * @throws IOException 输出时出错(出错后剩下的任务不会再渲染)
+     */
+    @NonNull
+    public Result render(@NonNull List<Job> jobs, @NonNull Output output) throws IOException {
+        List<Job> sorted = new ArrayList<>(jobs);
+        //尺寸相同的任务排在一起，同一个线程连续处理时可以复用Bitmap
+        Collections.sort(sorted, new Comparator<Job>() {
+            @Override
+            public int compare(Job a, Job b) {
+                if (a.width != b.width) {
+                    return a.width < b.width ? -1 : 1;
+                }
+                return a.height == b.height ? 0 : a.height < b.height ? -1 : 1;
+            }
+        });
+        Session session = new Session(sorted.size(), output, mProgressListener);
+        ForkJoinPool pool = new ForkJoinPool(mParallelism);
+        try {
+            pool.invoke(new RenderTask(session, sorted, 0, sorted.size()));
+        } catch (OutputException e) {
+            throw e.getIOException();
+        } finally {
+            pool.shutdown();
+        }
+        return session.toResult();
+    }
+
+    /**
+     * 一个渲染任务：一种尺寸+配色的完整动画(拉弓、发射、射中)
+     */
+    public static final class Job {
+
+        final String name;
+        final int width;
+        final int height;
+        final int bowLength;
+        int backgroundColor = Color.TRANSPARENT;
+        int bowColor = Color.BLACK;
+        int stringColor = Color.BLACK;
+        int arrowColor = Color.BLACK;
+        int lineColor = Color.BLACK;
+        int dragFrameCount = 10;
+        int frameCount = 60;
+        long frameInterval = 16;
+        long hitTime = 600;
+
+        /**
+         * @param name      任务名，用来区分输出的文件
+         * @param width     宽
+         * @param height    高
+         * @param bowLength 弓长
+         */
+        public Job(@NonNull String name, int width, int height, int bowLength) {
+            if (width <= 0 || height <= 0) {
+                //无效宽高
+                throw new IllegalArgumentException("Invalid size!");
+            }
+            this.name = name;
+            this.width = width;
+            this.height = height;
+            this.bowLength = bowLength;
+        }
+
+        @NonNull
+        public String getName() {
+            return name;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        public int getBowLength() {
+            return bowLength;
+        }
+
+        /**
+         * 设置配色
+         */
+        @NonNull
+        public Job setColors(int bowColor, int stringColor, int arrowColor, int lineColor) {
+            this.bowColor = bowColor;
+            this.stringColor = stringColor;
+            this.arrowColor = arrowColor;
+            this.lineColor = lineColor;
+            return this;
+        }
+
+        /**
+         * 设置背景色，默认透明
+         */
+        @NonNull
+        public Job setBackgroundColor(int color) {
+            backgroundColor = color;
+            return this;
+        }
+
+        /**
+         * 设置拉弓阶段的帧数(进度从0均匀增加到1)，默认10帧
+         */
+        @NonNull
+        public Job setDragFrameCount(int count) {
+            dragFrameCount = count;
+            return this;
+        }
+
+        /**
+         * 设置发射之后的帧数和帧间隔，默认60帧，每帧16毫秒
+         */
+        @NonNull
+        public Job setFrames(int count, long interval) {
+            frameCount = count;
+            frameInterval = interval;
+            return this;
+        }
+
+        /**
+         * 设置发射之后多久射中，默认600毫秒，小于0为不射中(箭到时还没开始上下移动的话，等开始移动的那一帧再射中)
+         */
+        @NonNull
+        public Job setHitTime(long hitTime) {
+            this.hitTime = hitTime;
+            return this;
+        }
+
+        /**
+         * 总帧数
+         */
+        public int getTotalFrameCount() {
+            return dragFrameCount + frameCount;
+        }
+    }
+
+    /**
+     * 每一帧的输出，在工作线程中回调，要自己保证线程安全
+     */
+    public interface Output {
+
+        /**
+         * 一帧渲染好了
+         *
+         * @param job        所属的任务
+         * @param frameIndex 帧的索引
+         * @param bitmap     渲染结果(回调结束后会被下一帧复用，不能保存引用)
+         */
+        void onFrame(@NonNull Job job, int frameIndex, @NonNull Bitmap bitmap) throws IOException;
+    }
+
+    /**
+     * 进度监听，在工作线程中回调
+     */
+    public interface ProgressListener {
+
+        /**
+         * 完成了一个任务
+         *
+         * @param completedJobs   已完成的任务数
+         * @param totalJobs       总任务数
+         * @param completedFrames 已渲染的帧数
+         * @param elapsedNanos    从开始到现在的耗时(纳秒)
+         */
+        void onProgress(int completedJobs, int totalJobs, long completedFrames, long elapsedNanos);
+    }
+
+    /**
+     * 把每一帧保存为PNG文件：目录/任务名_帧索引.png
+     */
+    public static final class PngOutput implements Output {
+
+        private final File mDirectory;
+
+        public PngOutput(@NonNull File directory) {
+            mDirectory = directory;
+        }
+
+        @Override
+        public void onFrame(@NonNull Job job, int frameIndex, @NonNull Bitmap bitmap) throws IOException {
+            File file = new File(mDirectory, String.format(Locale.US, "%s_%03d.png", job.name, frameIndex));
+            OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+            try {
+                if (!bitmap.compress(Bitmap.CompressFormat.PNG, 100, out)) {
+                    throw new IOException("Failed to compress " + file);
+                }
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * 渲染统计
+     */
+    public static final class Result {
+
+        private final int mJobCount;
+        private final long mFrameCount;
+        private final long mElapsedNanos;
+
+        Result(int jobCount, long frameCount, long elapsedNanos) {
+            mJobCount = jobCount;
+            mFrameCount = frameCount;
+            mElapsedNanos = elapsedNanos;
+        }
+
+        public int getJobCount() {
+            return mJobCount;
+        }
+
+        public long getFrameCount() {
+            return mFrameCount;
+        }
+
+        public long getElapsedNanos() {
+            return mElapsedNanos;
+        }
+
+        /**
+         * 吞吐量(帧/秒)
+         */
+        public float getFramesPerSecond() {
+            return mElapsedNanos <= 0 ? 0 : mFrameCount * 1e9F / mElapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%d jobs, %d frames in %.1f ms (%.1f fps)",
+                    mJobCount, mFrameCount, mElapsedNanos / 1e6F, getFramesPerSecond());
+        }
+    }
+
+    /**
+     * 一次渲染的共享状态
+     */
+    private static final class Session {
+
+        final int totalJobs;
+        final Output output;
+        final ProgressListener listener;
+        final long startTime = System.nanoTime();
+        final AtomicInteger completedJobs = new AtomicInteger();
+        final AtomicLong completedFrames = new AtomicLong();
+        //每个工作线程自己的缓冲区，只在本次渲染中有效，结束后跟线程池一起回收
+        final ThreadLocal<Worker> workers = new ThreadLocal<Worker>() {
+            @Override
+            protected Worker initialValue() {
+                return new Worker();
+            }
+        };
+
+        Session(int totalJobs, Output output, ProgressListener listener) {
+            this.totalJobs = totalJobs;
+            this.output = output;
+            this.listener = listener;
+        }
+
+        void onJobCompleted(int frames) {
+            long totalFrames = completedFrames.addAndGet(frames);
+            int jobs = completedJobs.incrementAndGet();
+            if (listener != null) {
+                listener.onProgress(jobs, totalJobs, totalFrames, System.nanoTime() - startTime);
+            }
+        }
+
+        Result toResult() {
+            return new Result(completedJobs.get(), completedFrames.get(), System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * 把任务列表二分，直到只剩一个任务时直接渲染
+     */
+    private static final class RenderTask extends RecursiveAction {
+
+        private final Session mSession;
+        private final List<Job> mJobs;
+        private final int mFrom;
+        private final int mTo;
+
+        RenderTask(Session session, List<Job> jobs, int from, int to) {
+            mSession = session;
+            mJobs = jobs;
+            mFrom = from;
+            mTo = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (mTo - mFrom <= 1) {
+                if (mTo > mFrom) {
+                    Job job = mJobs.get(mFrom);
+                    try {
+                        mSession.workers.get().render(job, mSession.output);
+                    } catch (IOException e) {
+                        throw new OutputException(e);
+                    }
+                    mSession.onJobCompleted(job.getTotalFrameCount());
+                }
+                return;
+            }
+            int middle = (mFrom + mTo) >>> 1;
+            invokeAll(new RenderTask(mSession, mJobs, mFrom, middle), new RenderTask(mSession, mJobs, middle, mTo));
+        }
+    }
+
+    /**
+     * 工作线程自己的Bitmap、Canvas和ArrowDrawable
+     */
+    private static final class Worker {
+
+        private final Canvas mCanvas = new Canvas();
+        private Bitmap mBitmap;
+        private ArrowDrawable mDrawable;
+
+        void render(@NonNull Job job, @NonNull Output output) throws IOException {
+            prepare(job);
+            ArrowDrawable drawable = mDrawable;
+            int frameIndex = 0;
+            //拉弓
+            for (int i = 1; i <= job.dragFrameCount; i++) {
+                drawable.setProgress((float) i / job.dragFrameCount);
+                drawFrame(job, output, frameIndex++);
+            }
+            //发射要用到拉满时的状态
+            if (job.dragFrameCount <= 0) {
+                drawable.setProgress(1);
+                drawable.draw(mCanvas);
+            }
+            drawable.fire();
+            boolean hit = false;
+            for (int i = 0; i < job.frameCount; i++) {
+                long time = i * job.frameInterval;
+                //先跳到这一帧的时间，命中才是从这一刻开始
+                drawable.setPlayTime(time);
+                if (!hit && job.hitTime >= 0 && time >= job.hitTime) {
+                    //箭还没开始上下移动时hit()不会生效，下一帧再试，直到状态改变
+                    drawable.hit();
+                    hit = drawable.getAnimationState() != ArrowDrawable.STATE_FIRING;
+                }
+                drawFrame(job, output, frameIndex++);
+            }
+        }
+
+        /**
+         * 准备好当前任务的Bitmap和ArrowDrawable，尺寸相同时复用
+         */
+        private void prepare(@NonNull Job job) {
+            if (mBitmap == null || mBitmap.getWidth() != job.width || mBitmap.getHeight() != job.height) {
+                if (mBitmap != null) {
+                    mBitmap.recycle();
+                }
+                mBitmap = Bitmap.createBitmap(job.width, job.height, Bitmap.Config.ARGB_8888);
+                mCanvas.setBitmap(mBitmap);
+            }
+            if (mDrawable == null) {
+                mDrawable = ArrowDrawable.create(job.width, job.height, job.bowLength);
+            } else {
+                mDrawable.updateSize(job.width, job.height, job.bowLength);
+            }
+            ArrowDrawable drawable = mDrawable;
+            drawable.setBounds(0, 0, job.width, job.height);
+            drawable.setBowColor(job.bowColor);
+            drawable.setStringColor(job.stringColor);
+            drawable.setArrowColor(job.arrowColor);
+            drawable.setLineColor(job.lineColor);
+            //先回到静止状态，上一个任务可能已经发射了，不能直接往回跳
+            drawable.reset();
+            drawable.setPlayTime(0);
+        }
+
+        private void drawFrame(@NonNull Job job, @NonNull Output output, int frameIndex) throws IOException {
+            mBitmap.eraseColor(job.backgroundColor);
+            mDrawable.draw(mCanvas);
+            output.onFrame(job, frameIndex, mBitmap);
+        }
+    }
+
+    /**
+     * 用来把输出时的IOException带出ForkJoinPool
+     */
+    private static final class OutputException extends RuntimeException {
+
+        OutputException(IOException cause) {
+            super(cause);
+        }
+
+        /**
+         * ForkJoinPool跨线程抛出时可能会再包一层，要找到最里面的IOException
+         */
+        IOException getIOException() {
+            Throwable cause = getCause();
+            while (cause instanceof OutputException) {
+                cause = cause.getCause();
+            }
+            return (IOException) cause;
+        }
+    }
+}
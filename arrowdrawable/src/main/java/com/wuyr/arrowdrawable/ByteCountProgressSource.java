@@ -0,0 +1,66 @@
+package com.wuyr.arrowdrawable;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按字节数计算进度的{@link ProgressSource}：
+ * 下载或上传线程只管累加字节数(无锁)，ArrowDrawable每帧读取一次
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午4:52
+ */
+public class ByteCountProgressSource implements ProgressSource {
+
+    private final AtomicLong mBytes = new AtomicLong();//已传输的字节数
+    private volatile long mTotalBytes;//总字节数
+
+    public ByteCountProgressSource() {
+    }
+
+    /**
+     * @param totalBytes 总字节数
+     */
+    public ByteCountProgressSource(long totalBytes) {
+        mTotalBytes = totalBytes;
+    }
+
+    /**
+     * 累加已传输的字节数(任意线程)
+     */
+    public void add(long bytes) {
+        mBytes.addAndGet(bytes);
+    }
+
+    /**
+     * 设置已传输的字节数(任意线程)
+     */
+    public void setBytes(long bytes) {
+        mBytes.set(bytes);
+    }
+
+    public long getBytes() {
+        return mBytes.get();
+    }
+
+    /**
+     * 设置总字节数(任意线程)
+     */
+    public void setTotalBytes(long totalBytes) {
+        mTotalBytes = totalBytes;
+    }
+
+    public long getTotalBytes() {
+        return mTotalBytes;
+    }
+
+    @Override
+    public float getProgress() {
+        long total = mTotalBytes;
+        if (total <= 0) {
+            return 0;
+        }
+        float progress = (float) mBytes.get() / total;
+        return progress > 1 ? 1 : progress;
+    }
+}
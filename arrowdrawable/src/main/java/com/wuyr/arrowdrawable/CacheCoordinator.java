@@ -0,0 +1,430 @@
+package com.wuyr.arrowdrawable;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 进程内所有ArrowDrawable的缓存(分图层缓存、预渲染的帧、拖动状态的帧缓存、线条纹理)的统一管理者。
+ * <p>
+ * 所有缓存加起来不超过{@link #setMaxBytes(long)}，超出时按 (距离最近一次使用的时间 * 占用大小) 从大到小淘汰，
+ * 也就是优先淘汰又旧又大的；注册到Application后({@link #register(Context)}，通过View创建ArrowDrawable时会自动注册)，
+ * 系统内存紧张({@link #onTrimMemory(int)})时按紧张程度缩小或清空缓存。
+ * 缓存只能在它的绘制线程中释放，在其他线程淘汰的缓存会交给它的绘制线程释放(在此之前已经不计入占用)。
+ * <p>
+ * {@link #getStats()}可以获取当前的占用和每一类缓存的命中率
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午10:50
+ */
+public final class CacheCoordinator implements ComponentCallbacks2 {
+
+    /**
+     * 分图层绘制的离屏缓存，见{@link ArrowDrawable#setLayerCacheEnabled(boolean)}
+     */
+    public static final int CACHE_LAYER = 0;
+    /**
+     * 预渲染的上下移动的箭，见{@link ArrowDrawable#setSpriteStripEnabled(boolean)}
+     */
+    public static final int CACHE_SPRITE = 1;
+    /**
+     * 拖动状态的帧缓存，见{@link ArrowDrawable#setDraggingPictureCacheEnabled(boolean)}(占用是估算的)
+     */
+    public static final int CACHE_PICTURE = 2;
+    /**
+     * LINE_MODE_SHADER模式下的线条纹理，见{@link ArrowDrawable#setLineMode(int)}
+     */
+    public static final int CACHE_STREAK = 3;
+    static final int CACHE_KIND_COUNT = 4;
+    private static final String[] KIND_NAMES = {"layer", "sprite", "picture", "streak"};
+
+    private static final CacheCoordinator INSTANCE = new CacheCoordinator();
+
+    private final List<Record> mRecords = new ArrayList<>();//所有有占用的缓存
+    private final long[] mKindBytes = new long[CACHE_KIND_COUNT];//每一类缓存的占用
+    private final long[] mEvictionCounts = new long[CACHE_KIND_COUNT];//每一类缓存被淘汰的次数
+    private final AtomicLongArray mHitCounts = new AtomicLongArray(CACHE_KIND_COUNT);//绘制时不加锁
+    private final AtomicLongArray mMissCounts = new AtomicLongArray(CACHE_KIND_COUNT);
+    private long mMaxBytes = Runtime.getRuntime().maxMemory() / 16;
+    private long mByteCount;
+    private Context mContext;//注册了回调的Application
+
+    private CacheCoordinator() {
+    }
+
+    @NonNull
+    public static CacheCoordinator getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 注册到Application，接收系统的内存紧张回调(重复注册没有影响)
+     */
+    public synchronized void register(@NonNull Context context) {
+        Context application = context.getApplicationContext();
+        if (application == null) {
+            application = context;
+        }
+        if (mContext == application) {
+            return;
+        }
+        if (mContext != null) {
+            mContext.unregisterComponentCallbacks(this);
+        }
+        application.registerComponentCallbacks(this);
+        mContext = application;
+    }
+
+    /**
+     * 取消注册，不再接收系统的内存紧张回调
+     */
+    public synchronized void unregister() {
+        if (mContext != null) {
+            mContext.unregisterComponentCallbacks(this);
+            mContext = null;
+        }
+    }
+
+    public synchronized long getMaxBytes() {
+        return mMaxBytes;
+    }
+
+    /**
+     * 设置所有缓存加起来最多占用多少字节(默认最大堆内存的1/16)，超出的马上淘汰
+     */
+    public synchronized void setMaxBytes(long maxBytes) {
+        if (maxBytes < 0) {
+            throw new IllegalArgumentException("Max bytes must not be negative!");
+        }
+        mMaxBytes = maxBytes;
+        trimToSize(maxBytes, null);
+    }
+
+    /**
+     * 淘汰缓存直到占用不超过指定大小(之后有需要时还会重新创建)
+     */
+    public synchronized void trimToSize(long maxBytes) {
+        trimToSize(maxBytes, null);
+    }
+
+    /**
+     * 淘汰所有缓存
+     */
+    public synchronized void clear() {
+        trimToSize(0, null);
+    }
+
+    /**
+     * 获取当前的占用和命中率
+     */
+    @NonNull
+    public synchronized Stats getStats() {
+        removeCollectedRecords();
+        long[] hitCounts = new long[CACHE_KIND_COUNT];
+        long[] missCounts = new long[CACHE_KIND_COUNT];
+        for (int i = 0; i < CACHE_KIND_COUNT; i++) {
+            hitCounts[i] = mHitCounts.get(i);
+            missCounts[i] = mMissCounts.get(i);
+        }
+        return new Stats(mByteCount, mMaxBytes, mRecords.size(), mKindBytes.clone(), hitCounts, missCounts, mEvictionCounts.clone());
+    }
+
+    /**
+     * 清零命中、未命中、淘汰次数
+     */
+    public synchronized void resetStats() {
+        for (int i = 0; i < CACHE_KIND_COUNT; i++) {
+            mHitCounts.set(i, 0);
+            mMissCounts.set(i, 0);
+            mEvictionCounts[i] = 0;
+        }
+    }
+
+    /**
+     * 系统内存紧张：越紧张释放得越多。应用还在前台时按比例缩小，CRITICAL时全部释放；
+     * 进入后台后，在LRU列表中越靠后(越可能被杀掉)释放得越多
+     */
+    @Override
+    public void onTrimMemory(int level) {
+        synchronized (this) {
+            if (level >= TRIM_MEMORY_MODERATE) {
+                trimToSize(0, null);
+            } else if (level >= TRIM_MEMORY_BACKGROUND) {
+                trimToSize(mByteCount / 4, null);
+            } else if (level >= TRIM_MEMORY_UI_HIDDEN) {
+                trimToSize(mByteCount / 2, null);
+            } else if (level >= TRIM_MEMORY_RUNNING_CRITICAL) {
+                trimToSize(0, null);
+            } else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+                trimToSize(mByteCount / 2, null);
+            } else if (level >= TRIM_MEMORY_RUNNING_MODERATE) {
+                trimToSize(mByteCount * 3 / 4, null);
+            }
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        clear();
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+
+    /**
+     * 缓存的占用改变了(创建、重建、释放)，只能在缓存的绘制线程调用。超出上限时淘汰其他缓存(不会淘汰这一个)
+     *
+     * @param bytes 当前的占用，0表示已经释放
+     */
+    synchronized void update(@NonNull CoordinatedCache cache, long bytes) {
+        cache.mOwnerThread = Thread.currentThread();
+        cache.mLastUsedTime = SystemClock.uptimeMillis();
+        Record record = cache.mRecord;
+        if (bytes <= 0) {
+            if (record != null) {
+                remove(record);
+            }
+            return;
+        }
+        //重新计入占用了，之前的淘汰作废
+        cache.mReleasePending = false;
+        if (record == null) {
+            record = cache.mRecord = new Record(cache);
+            mRecords.add(record);
+        }
+        mByteCount += bytes - record.mBytes;
+        mKindBytes[record.mKind] += bytes - record.mBytes;
+        record.mBytes = bytes;
+        trimToSize(mMaxBytes, record);
+    }
+
+    /**
+     * 命中缓存(绘制线程调用，不加锁)
+     */
+    void hit(@NonNull CoordinatedCache cache) {
+        cache.mLastUsedTime = SystemClock.uptimeMillis();
+        mHitCounts.incrementAndGet(cache.mKind);
+    }
+
+    /**
+     * 没有命中，需要重新生成缓存(绘制线程调用，不加锁)
+     */
+    void miss(@NonNull CoordinatedCache cache) {
+        cache.mLastUsedTime = SystemClock.uptimeMillis();
+        mMissCounts.incrementAndGet(cache.mKind);
+    }
+
+    /**
+     * 淘汰缓存直到占用不超过指定大小
+     *
+     * @param keep 不淘汰的缓存(正在更新的)
+     */
+    private void trimToSize(long maxBytes, Record keep) {
+        if (mByteCount <= maxBytes) {
+            return;
+        }
+        removeCollectedRecords();
+        long now = SystemClock.uptimeMillis();
+        while (mByteCount > maxBytes) {
+            Record victim = null;
+            CoordinatedCache victimCache = null;
+            long maxScore = -1;
+            for (int i = 0; i < mRecords.size(); i++) {
+                Record record = mRecords.get(i);
+                CoordinatedCache cache = record.mCache.get();
+                if (record == keep || cache == null) {
+                    continue;
+                }
+                //又旧又大的优先淘汰
+                long score = (Math.max(0, now - cache.mLastUsedTime) + 1) * record.mBytes;
+                if (score > maxScore) {
+                    maxScore = score;
+                    victim = record;
+                    victimCache = cache;
+                }
+            }
+            if (victim == null) {
+                break;
+            }
+            remove(victim);
+            mEvictionCounts[victim.mKind]++;
+            if (victimCache.mOwnerThread == Thread.currentThread() && !victimCache.isInUse()) {
+                victimCache.mReleasePending = false;
+                victimCache.onRelease();
+            } else {
+                //不能在这里释放，交给拥有者线程
+                victimCache.mReleasePending = true;
+                victimCache.requestRelease();
+            }
+        }
+    }
+
+    /**
+     * 移除已经被回收的缓存的记录(ArrowDrawable没有释放缓存就被回收了，缓存也跟着被回收了)
+     */
+    private void removeCollectedRecords() {
+        for (int i = mRecords.size() - 1; i >= 0; i--) {
+            Record record = mRecords.get(i);
+            if (record.mCache.get() == null) {
+                mRecords.remove(i);
+                mByteCount -= record.mBytes;
+                mKindBytes[record.mKind] -= record.mBytes;
+            }
+        }
+    }
+
+    private void remove(@NonNull Record record) {
+        mRecords.remove(record);
+        mByteCount -= record.mBytes;
+        mKindBytes[record.mKind] -= record.mBytes;
+        CoordinatedCache cache = record.mCache.get();
+        if (cache != null) {
+            cache.mRecord = null;
+        }
+    }
+
+    /**
+     * 一份缓存的占用记录，只弱引用缓存，不影响ArrowDrawable被回收
+     */
+    static final class Record {
+
+        private final WeakReference<CoordinatedCache> mCache;
+        private final int mKind;
+        private long mBytes;
+
+        private Record(@NonNull CoordinatedCache cache) {
+            mCache = new WeakReference<>(cache);
+            mKind = cache.mKind;
+        }
+    }
+
+    /**
+     * 某一时刻的占用和命中率
+     */
+    public static final class Stats {
+
+        private final long mByteCount;
+        private final long mMaxBytes;
+        private final int mEntryCount;
+        private final long[] mKindBytes;
+        private final long[] mHitCounts;
+        private final long[] mMissCounts;
+        private final long[] mEvictionCounts;
+
+        private Stats(long byteCount, long maxBytes, int entryCount, long[] kindBytes,
+                      long[] hitCounts, long[] missCounts, long[] evictionCounts) {
+            mByteCount = byteCount;
+            mMaxBytes = maxBytes;
+            mEntryCount = entryCount;
+            mKindBytes = kindBytes;
+            mHitCounts = hitCounts;
+            mMissCounts = missCounts;
+            mEvictionCounts = evictionCounts;
+        }
+
+        /**
+         * 所有缓存的占用(字节)
+         */
+        public long getByteCount() {
+            return mByteCount;
+        }
+
+        /**
+         * 某一类缓存的占用(字节)
+         *
+         * @param kind {@link #CACHE_LAYER}、{@link #CACHE_SPRITE}、{@link #CACHE_PICTURE}、{@link #CACHE_STREAK}
+         */
+        public long getByteCount(int kind) {
+            return mKindBytes[kind];
+        }
+
+        public long getMaxBytes() {
+            return mMaxBytes;
+        }
+
+        /**
+         * 占用/上限(0~1)
+         */
+        public float getOccupancy() {
+            return mMaxBytes == 0 ? mByteCount == 0 ? 0 : 1 : (float) mByteCount / mMaxBytes;
+        }
+
+        /**
+         * 有占用的缓存份数
+         */
+        public int getEntryCount() {
+            return mEntryCount;
+        }
+
+        public long getHitCount(int kind) {
+            return mHitCounts[kind];
+        }
+
+        public long getMissCount(int kind) {
+            return mMissCounts[kind];
+        }
+
+        public long getEvictionCount(int kind) {
+            return mEvictionCounts[kind];
+        }
+
+        public long getHitCount() {
+            return sum(mHitCounts);
+        }
+
+        public long getMissCount() {
+            return sum(mMissCounts);
+        }
+
+        public long getEvictionCount() {
+            return sum(mEvictionCounts);
+        }
+
+        /**
+         * 某一类缓存的命中率(0~1)，还没有用到过时为0
+         */
+        public float getHitRate(int kind) {
+            return hitRate(mHitCounts[kind], mMissCounts[kind]);
+        }
+
+        /**
+         * 所有缓存的命中率(0~1)
+         */
+        public float getHitRate() {
+            return hitRate(getHitCount(), getMissCount());
+        }
+
+        private static long sum(long[] values) {
+            long sum = 0;
+            for (long value : values) {
+                sum += value;
+            }
+            return sum;
+        }
+
+        private static float hitRate(long hitCount, long missCount) {
+            return hitCount + missCount == 0 ? 0 : (float) hitCount / (hitCount + missCount);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder(String.format(Locale.US, "%d/%d bytes (%.1f%%), %d entries, hit rate %.1f%%, %d evictions",
+                    mByteCount, mMaxBytes, getOccupancy() * 100, mEntryCount, getHitRate() * 100, getEvictionCount()));
+            for (int i = 0; i < CACHE_KIND_COUNT; i++) {
+                builder.append(String.format(Locale.US, "\n  %-8s %d bytes, %d hits, %d misses, %d evictions",
+                        KIND_NAMES[i], mKindBytes[i], mHitCounts[i], mMissCounts[i], mEvictionCounts[i]));
+            }
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.wuyr.arrowdrawable;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Picture;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * 把绘制操作直接转给Canvas的{@link ArrowRenderer}
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午6:10
+ */
+public final class CanvasArrowRenderer implements ArrowRenderer {
+
+    private Canvas mCanvas;
+
+    public CanvasArrowRenderer() {
+    }
+
+    public CanvasArrowRenderer(@Nullable Canvas canvas) {
+        mCanvas = canvas;
+    }
+
+    /**
+     * 设置要画到的Canvas
+     */
+    public void setCanvas(@Nullable Canvas canvas) {
+        mCanvas = canvas;
+    }
+
+    @Nullable
+    public Canvas getCanvas() {
+        return mCanvas;
+    }
+
+    @Override
+    public int save() {
+        return mCanvas.save();
+    }
+
+    @Override
+    public void restoreToCount(int saveCount) {
+        mCanvas.restoreToCount(saveCount);
+    }
+
+    @Override
+    public void translate(float dx, float dy) {
+        mCanvas.translate(dx, dy);
+    }
+
+    @Override
+    public void scale(float sx, float sy) {
+        mCanvas.scale(sx, sy);
+    }
+
+    @Override
+    public void skew(float sx, float sy) {
+        mCanvas.skew(sx, sy);
+    }
+
+    @Override
+    public void drawCircle(float cx, float cy, float radius, @NonNull Paint paint) {
+        mCanvas.drawCircle(cx, cy, radius, paint);
+    }
+
+    @Override
+    public void drawLine(float startX, float startY, float stopX, float stopY, @NonNull Paint paint) {
+        mCanvas.drawLine(startX, startY, stopX, stopY, paint);
+    }
+
+    @Override
+    public void drawPath(@NonNull Path path, @NonNull Paint paint) {
+        mCanvas.drawPath(path, paint);
+    }
+
+    @Override
+    public void drawRect(@NonNull RectF rect, @NonNull Paint paint) {
+        mCanvas.drawRect(rect, paint);
+    }
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, @NonNull Paint paint) {
+        mCanvas.drawRect(left, top, right, bottom, paint);
+    }
+
+    /**
+     * 画缓存的帧(开启了拖动状态的帧缓存时)
+     */
+    void drawPicture(@NonNull Picture picture) {
+        mCanvas.drawPicture(picture);
+    }
+
+    @Override
+    public void drawBitmap(@NonNull Bitmap bitmap, @NonNull Rect src, @NonNull RectF dst, @Nullable Paint paint) {
+        mCanvas.drawBitmap(bitmap, src, dst, paint);
+    }
+}
@@ -0,0 +1,51 @@
+package com.wuyr.arrowdrawable;
+
+/**
+ * 由{@link CacheCoordinator}统一管理的一份缓存(某个ArrowDrawable的某一类缓存)。
+ * <p>
+ * 缓存只能在拥有者(绘制)线程中读写，所以协调器在其他线程淘汰时只标记{@link #mReleasePending}，
+ * 并通过{@link #requestRelease()}让拥有者线程尽快调用{@link #onRelease()}真正释放(不用等到下一次绘制)；
+ * 在拥有者线程中淘汰的话直接释放
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午10:50
+ */
+abstract class CoordinatedCache {
+
+    final int mKind;//缓存的种类，CacheCoordinator.CACHE_XXX
+    volatile long mLastUsedTime;//最近一次用到的时间(uptimeMillis)
+    volatile boolean mReleasePending;//已经被淘汰，等拥有者线程释放
+    volatile Thread mOwnerThread;//最近一次更新占用大小的线程
+    CacheCoordinator.Record mRecord;//协调器中的记录，没有占用时为null(由协调器加锁访问)
+
+    CoordinatedCache(int kind) {
+        mKind = kind;
+    }
+
+    /**
+     * 在拥有者线程中释放缓存，释放后要通过{@link CacheCoordinator#update(CoordinatedCache, long)}报告占用为0
+     */
+    abstract void onRelease();
+
+    /**
+     * 已经在其他线程被淘汰(任意线程调用)：安排拥有者线程调用{@link #releaseIfPending()}，
+     * 到时候还在绘制或者不是拥有者线程的话，留到下一次绘制开始时释放
+     */
+    abstract void requestRelease();
+
+    /**
+     * 拥有者是否正在绘制(绘制中不能释放，这一帧可能已经画了缓存中的Bitmap)
+     */
+    abstract boolean isInUse();
+
+    /**
+     * 拥有者线程中调用：如果已经被淘汰，释放缓存
+     */
+    final void releaseIfPending() {
+        if (mReleasePending) {
+            mReleasePending = false;
+            onRelease();
+        }
+    }
+}
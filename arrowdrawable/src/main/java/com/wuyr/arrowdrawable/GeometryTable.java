@@ -0,0 +1,313 @@
+package com.wuyr.arrowdrawable;
+
+import android.support.annotation.NonNull;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 预先计算好的几何数据表：某个尺寸下，弓在静止和拉满两个弯曲角度分解后的点(和每个点的半径)，以及箭的轮廓。
+ * <p>
+ * 尺寸固定的话，这些数据每次启动算出来都是一样的，可以用{@link #generate(File, int, int, int, float)}预先生成成文件，
+ * 运行时{@link #map(File)}内存映射进来，再{@link ArrowDrawable#setGeometryTable(GeometryTable)}，
+ * 之后弓的角度正好是表中的某一行时(静止、拉满、坠落时完全展开的弓，大部分帧都是这些角度)直接查表，
+ * 不用再分解Path，也不用计算半径，数据也不会复制到Java堆中。
+ * 拖动中间的角度照常计算，不取最接近的角度：不同角度的点数一般不一样，不能逐点插值，取最接近的又会让弓一格一格地跳，
+ * 所以这些角度宁可不省，也要保证画出来的弓跟运行时算的完全一样，表中也就只生成运行时会查的这两个角度。
+ * 尺寸、弓长或者点密度对不上的表会被忽略(照常计算)。
+ * <p>
+ * 文件格式(大端序，全部是4字节的int或float)：
+ * <pre>
+ * 文件头: magic("ARGT") 版本 宽 高 弓长 点密度 初始角度 可弯曲角度 行数(角度数，第i行是 初始角度 + 可弯曲角度 * i / (行数 - 1)) 箭的轮廓点数
+ * 箭的轮廓: 轮廓点数 * (x, y)
+ * 每一行的起始位置: 行数 * int(在点数据中的下标，以点为单位)
+ * 每一行的点数: 行数 * int
+ * 每一行的范围: 行数 * (left, top, right, bottom)
+ * 点数据: 所有行的点 * (x, y, 半径)
+ * </pre>
+ * 表中的弓没有垂直偏移，用的时候再加上
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午9:10
+ */
+public final class GeometryTable {
+
+    static final int MAGIC = 0x41524754;//"ARGT"
+    static final int VERSION = 1;
+    private static final int HEADER_INTS = 10;//文件头的字段数
+    private static final int POINT_FLOATS = 3;//每个点的字段数(x, y, 半径)
+    private static final float ROW_TOLERANCE = .001F;//跟某一行的角度相差不超过行间距的多少，就当作是这一行
+
+    private final int mWidth;
+    private final int mHeight;
+    private final int mBowLength;
+    private final float mPrecision;
+    private final float mBaseAngle;
+    private final float mUsableAngle;
+    private final int mRowCount;
+    private final FloatBuffer mArrowOutline;
+    private final IntBuffer mRowOffsets;
+    private final IntBuffer mRowPointCounts;
+    private final FloatBuffer mRowBounds;
+    private final FloatBuffer mPoints;
+
+    private GeometryTable(@NonNull ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < HEADER_INTS * 4 || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a geometry table!");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported geometry table version: " + buffer.getInt(4));
+        }
+        mWidth = buffer.getInt(8);
+        mHeight = buffer.getInt(12);
+        mBowLength = buffer.getInt(16);
+        mPrecision = buffer.getFloat(20);
+        mBaseAngle = buffer.getFloat(24);
+        mUsableAngle = buffer.getFloat(28);
+        mRowCount = buffer.getInt(32);
+        int arrowPointCount = buffer.getInt(36);
+        //字段数超过int范围的肯定不是完整的文件
+        if (mRowCount < 1 || mRowCount > Integer.MAX_VALUE / 16 || arrowPointCount < 0 || arrowPointCount > Integer.MAX_VALUE / 8) {
+            throw new IOException("Corrupted geometry table!");
+        }
+        int position = HEADER_INTS * 4;
+        mArrowOutline = slice(buffer, position, arrowPointCount * 2).asFloatBuffer();
+        position += arrowPointCount * 2 * 4;
+        mRowOffsets = slice(buffer, position, mRowCount).asIntBuffer();
+        position += mRowCount * 4;
+        mRowPointCounts = slice(buffer, position, mRowCount).asIntBuffer();
+        position += mRowCount * 4;
+        mRowBounds = slice(buffer, position, mRowCount * 4).asFloatBuffer();
+        position += mRowCount * 4 * 4;
+        long pointCount = 0;
+        for (int i = 0; i < mRowCount; i++) {
+            int offset = mRowOffsets.get(i);
+            int count = mRowPointCounts.get(i);
+            if (offset < 0 || count < 0) {
+                throw new IOException("Corrupted geometry table!");
+            }
+            pointCount = Math.max(pointCount, (long) offset + count);
+        }
+        if (pointCount * POINT_FLOATS > Integer.MAX_VALUE) {
+            throw new IOException("Corrupted geometry table!");
+        }
+        mPoints = slice(buffer, position, (int) pointCount * POINT_FLOATS).asFloatBuffer();
+    }
+
+    /**
+     * 截取一段(只是视图，不复制)
+     *
+     * @param count 4字节字段的个数
+     */
+    private static ByteBuffer slice(ByteBuffer buffer, int position, int count) throws IOException {
+        if (count < 0 || position + (long) count * 4 > buffer.limit()) {
+            throw new IOException("Truncated geometry table!");
+        }
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(position);
+        duplicate.limit(position + count * 4);
+        return duplicate.slice();
+    }
+
+    /**
+     * 内存映射几何数据表文件(映射后文件就可以关闭了)
+     */
+    @NonNull
+    public static GeometryTable map(@NonNull File file) throws IOException {
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = input.getChannel();
+            return new GeometryTable(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } finally {
+            input.close();
+        }
+    }
+
+    /**
+     * 从已经映射好的ByteBuffer中读取(例如不压缩的asset：用AssetFileDescriptor的起始位置和长度映射)，不会复制数据
+     */
+    @NonNull
+    public static GeometryTable wrap(@NonNull ByteBuffer buffer) throws IOException {
+        return new GeometryTable(buffer);
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    public int getBowLength() {
+        return mBowLength;
+    }
+
+    /**
+     * 表中弓的点密度，见{@link ArrowDrawable#setPrecision(float)}
+     */
+    public float getPrecision() {
+        return mPrecision;
+    }
+
+    /**
+     * 行数(弯曲角度数，{@link #generate(File, int, int, int, float)}生成的表是2：初始角度和拉满时的角度)
+     */
+    public int getRowCount() {
+        return mRowCount;
+    }
+
+    /**
+     * 是否是这个尺寸、角度范围、点密度的表
+     */
+    boolean matches(int width, int height, float bowLength, float precision, float baseAngle, float usableAngle) {
+        return mWidth == width && mHeight == height && mBowLength == bowLength && mPrecision == precision
+                && mBaseAngle == baseAngle && mUsableAngle == usableAngle;
+    }
+
+    /**
+     * 获取这个角度所在的行
+     *
+     * @return 行的下标，表中没有这个角度时为-1
+     */
+    int getRow(float angle) {
+        float position = mRowCount == 1 || mUsableAngle == 0 ? angle - mBaseAngle
+                : (angle - mBaseAngle) / mUsableAngle * (mRowCount - 1);
+        int row = Math.round(position);
+        if (row < 0 || row >= mRowCount || Math.abs(position - row) > ROW_TOLERANCE) {
+            return -1;
+        }
+        return row;
+    }
+
+    int getPointCount(int row) {
+        return mRowPointCounts.get(row);
+    }
+
+    float getX(int row, int index) {
+        return mPoints.get((mRowOffsets.get(row) + index) * POINT_FLOATS);
+    }
+
+    float getY(int row, int index) {
+        return mPoints.get((mRowOffsets.get(row) + index) * POINT_FLOATS + 1);
+    }
+
+    float getRadius(int row, int index) {
+        return mPoints.get((mRowOffsets.get(row) + index) * POINT_FLOATS + 2);
+    }
+
+    /**
+     * 获取这一行所有点的范围(不含半径)
+     *
+     * @param side 0: left, 1: top, 2: right, 3: bottom
+     */
+    float getBound(int row, int side) {
+        return mRowBounds.get(row * 4 + side);
+    }
+
+    /**
+     * 箭(完整长度)的轮廓点数
+     */
+    int getArrowPointCount() {
+        return mArrowOutline.limit() / 2;
+    }
+
+    float getArrowX(int index) {
+        return mArrowOutline.get(index * 2);
+    }
+
+    float getArrowY(int index) {
+        return mArrowOutline.get(index * 2 + 1);
+    }
+
+    /**
+     * 生成几何数据表文件
+     *
+     * @param file      输出的文件
+     * @param width     ArrowDrawable的宽
+     * @param height    ArrowDrawable的高
+     * @param bowLength 弓长
+     * @param precision 点密度，要跟运行时的{@link ArrowDrawable#setPrecision(float)}一样(默认2)
+     */
+    public static void generate(@NonNull File file, int width, int height, int bowLength, float precision) throws IOException {
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+        try {
+            generate(out, width, height, bowLength, precision);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * 生成几何数据表，参数同{@link #generate(File, int, int, int, float)}
+     */
+    public static void generate(@NonNull OutputStream out, int width, int height, int bowLength, float precision) throws IOException {
+        ArrowDrawable drawable = ArrowDrawable.create(width, height, bowLength);
+        drawable.setPrecision(precision);
+        float baseAngle = drawable.getBaseAngle();
+        float usableAngle = drawable.getUsableAngle();
+        //运行时只有静止(坠落后完全展开的弓也是)和拉满这两个角度会查表
+        float[][] rows = {drawable.decomposeBowPath(baseAngle), drawable.decomposeBowPath(baseAngle + usableAngle)};
+        int rowCount = rows.length;
+        float[] arrowOutline = drawable.getArrowOutline();
+
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(width);
+        data.writeInt(height);
+        data.writeInt(bowLength);
+        data.writeFloat(precision);
+        data.writeFloat(baseAngle);
+        data.writeFloat(usableAngle);
+        data.writeInt(rowCount);
+        data.writeInt(arrowOutline.length / 2);
+        for (float value : arrowOutline) {
+            data.writeFloat(value);
+        }
+        int offset = 0;
+        for (float[] row : rows) {
+            data.writeInt(offset);
+            offset += row.length / 2;
+        }
+        for (float[] row : rows) {
+            data.writeInt(row.length / 2);
+        }
+        for (float[] row : rows) {
+            float left = Float.MAX_VALUE, top = Float.MAX_VALUE, right = -Float.MAX_VALUE, bottom = -Float.MAX_VALUE;
+            for (int i = 0; i < row.length; i += 2) {
+                left = Math.min(left, row[i]);
+                right = Math.max(right, row[i]);
+                top = Math.min(top, row[i + 1]);
+                bottom = Math.max(bottom, row[i + 1]);
+            }
+            if (row.length == 0) {
+                left = top = right = bottom = 0;
+            }
+            data.writeFloat(left);
+            data.writeFloat(top);
+            data.writeFloat(right);
+            data.writeFloat(bottom);
+        }
+        for (float[] row : rows) {
+            int count = row.length / 2;
+            for (int i = 0; i < count; i++) {
+                data.writeFloat(row[i * 2]);
+                data.writeFloat(row[i * 2 + 1]);
+                //跟运行时一样，半径按点在弓上的位置算
+                data.writeFloat(drawable.getBowRadius((float) i / count));
+            }
+        }
+        data.flush();
+    }
+}
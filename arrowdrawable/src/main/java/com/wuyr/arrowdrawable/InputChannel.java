@@ -0,0 +1,89 @@
+package com.wuyr.arrowdrawable;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 跨线程发布进度和指令的通道，无锁：
+ * 进度和所有指令打包在同一个long里(低32位是进度的float bits，高位是标志位)，
+ * 任何线程都可以通过CAS写入，绘制线程每帧用一次getAndSet取出，所以拿到的总是一份完整一致的快照
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午4:05
+ */
+final class InputChannel {
+
+    static final long FLAG_PROGRESS = 1L << 32;//有新的进度
+    static final long FLAG_FIRE = 1L << 33;//发射
+    static final long FLAG_HIT = 1L << 34;//命中
+    static final long FLAG_MISS = 1L << 35;//未命中
+    static final long FLAG_RESET = 1L << 36;//重置
+
+    private static final long PROGRESS_MASK = 0xFFFFFFFFL;
+
+    private final AtomicLong mPending = new AtomicLong();//还没被绘制线程取走的进度和指令
+    private final AtomicBoolean mInvalidatePosted = new AtomicBoolean();//是否已经请求了重绘，还没执行
+
+    /**
+     * 发布进度，覆盖之前还没被取走的进度
+     */
+    void publishProgress(float progress) {
+        long bits = Float.floatToRawIntBits(progress) & PROGRESS_MASK;
+        long current;
+        do {
+            current = mPending.get();
+        } while (!mPending.compareAndSet(current, (current & ~PROGRESS_MASK) | FLAG_PROGRESS | bits));
+    }
+
+    /**
+     * 发布指令，重置指令会丢弃之前还没被取走的进度和指令；
+     * 命中和未命中互斥，发布其中一个会丢弃还没被取走的另一个(以最后发布的为准)
+     *
+     * @param flag {@link #FLAG_FIRE}, {@link #FLAG_HIT}, {@link #FLAG_MISS}, {@link #FLAG_RESET}
+     */
+    void publishCommand(long flag) {
+        if (flag == FLAG_RESET) {
+            mPending.set(FLAG_RESET);
+            return;
+        }
+        long exclusive = flag == FLAG_HIT ? FLAG_MISS : flag == FLAG_MISS ? FLAG_HIT : 0;
+        long current;
+        do {
+            current = mPending.get();
+        } while (!mPending.compareAndSet(current, (current & ~exclusive) | flag));
+    }
+
+    /**
+     * 取出所有还没处理的进度和指令(只能在绘制线程调用)
+     *
+     * @return 快照，没有的话为0
+     */
+    long consume() {
+        return mPending.get() == 0 ? 0 : mPending.getAndSet(0);
+    }
+
+    /**
+     * 请求重绘前调用，一次只能有一个请求在排队
+     *
+     * @return 需要请求重绘时为true
+     */
+    boolean markInvalidatePosted() {
+        return mInvalidatePosted.compareAndSet(false, true);
+    }
+
+    /**
+     * 重绘请求开始执行
+     */
+    void clearInvalidatePosted() {
+        mInvalidatePosted.set(false);
+    }
+
+    static boolean hasFlag(long snapshot, long flag) {
+        return (snapshot & flag) != 0;
+    }
+
+    static float getProgress(long snapshot) {
+        return Float.intBitsToFloat((int) (snapshot & PROGRESS_MASK));
+    }
+}
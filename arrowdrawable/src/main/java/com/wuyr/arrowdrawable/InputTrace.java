@@ -0,0 +1,234 @@
+package com.wuyr.arrowdrawable;
+
+import android.support.annotation.NonNull;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 输入轨迹：按时间顺序记录对ArrowDrawable的setProgress、fire、hit、miss、reset调用，
+ * 绑定到{@link ArrowDrawable#setInputTrace(InputTrace)}后开始记录，
+ * 之后可以保存成文本，用{@link #apply(ArrowDrawable, int, long)}配合{@link ArrowDrawable#setPlayTime(long)}按原来的节奏重放，
+ * 用真实用户的操作(不规则的拖动、随机的命中时机)来对比优化前后每帧的开销。
+ * <p>
+ * 文本格式：每行一个事件，"时间(ms) 类型 参数"，时间从第一个事件开始算
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午6:40
+ */
+public final class InputTrace {
+
+    /**
+     * 设置进度，参数是进度
+     */
+    public static final int TYPE_PROGRESS = 0;
+
+    /**
+     * 发射
+     */
+    public static final int TYPE_FIRE = 1;
+
+    /**
+     * 命中，参数是齐射模式下箭的索引，-1为全部
+     */
+    public static final int TYPE_HIT = 2;
+
+    /**
+     * 未命中，参数是齐射模式下箭的索引，-1为全部
+     */
+    public static final int TYPE_MISS = 3;
+
+    /**
+     * 重置
+     */
+    public static final int TYPE_RESET = 4;
+
+    private static final String[] TYPE_NAMES = {"progress", "fire", "hit", "miss", "reset"};
+
+    private long[] mTimes = new long[64];
+    private int[] mTypes = new int[64];
+    private float[] mValues = new float[64];
+    private int mSize;
+    private long mOrigin = -1;//第一个事件的绝对时间
+
+    /**
+     * 事件数量
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * 获取事件的时间(单位: 毫秒，从第一个事件开始算)
+     */
+    public long getTime(int index) {
+        checkIndex(index);
+        return mTimes[index];
+    }
+
+    /**
+     * 获取事件的类型
+     *
+     * @return {@link #TYPE_PROGRESS}, {@link #TYPE_FIRE}, {@link #TYPE_HIT}, {@link #TYPE_MISS}, {@link #TYPE_RESET}
+     */
+    public int getType(int index) {
+        checkIndex(index);
+        return mTypes[index];
+    }
+
+    /**
+     * 获取事件的参数(进度或者箭的索引)
+     */
+    public float getValue(int index) {
+        checkIndex(index);
+        return mValues[index];
+    }
+
+    /**
+     * 整条轨迹的时长(单位: 毫秒)
+     */
+    public long getDuration() {
+        return mSize == 0 ? 0 : mTimes[mSize - 1];
+    }
+
+    /**
+     * 清空所有事件
+     */
+    public void clear() {
+        mSize = 0;
+        mOrigin = -1;
+    }
+
+    /**
+     * 添加一个事件
+     *
+     * @param time  事件的时间(单位: 毫秒，从第一个事件开始算)，不能早于上一个事件
+     * @param type  事件的类型
+     * @param value 事件的参数
+     */
+    public void add(long time, int type, float value) {
+        if (type < TYPE_PROGRESS || type > TYPE_RESET) {
+            throw new IllegalArgumentException("Unknown type: " + type);
+        }
+        if (time < 0 || (mSize > 0 && time < mTimes[mSize - 1])) {
+            throw new IllegalArgumentException("Events must be added in time order: " + time);
+        }
+        if (mSize == mTimes.length) {
+            int capacity = mSize * 2;
+            mTimes = Arrays.copyOf(mTimes, capacity);
+            mTypes = Arrays.copyOf(mTypes, capacity);
+            mValues = Arrays.copyOf(mValues, capacity);
+        }
+        mTimes[mSize] = time;
+        mTypes[mSize] = type;
+        mValues[mSize] = value;
+        mSize++;
+    }
+
+    /**
+     * 记录ArrowDrawable收到的调用
+     *
+     * @param now 调用时的动画时间(绝对时间)
+     */
+    void record(long now, int type, float value) {
+        if (mOrigin < 0) {
+            mOrigin = now;
+        }
+        //播放时间往回跳的话，保持顺序
+        add(Math.max(now - mOrigin, mSize == 0 ? 0 : mTimes[mSize - 1]), type, value);
+    }
+
+    /**
+     * 把时间还没超过time的事件应用到ArrowDrawable上(ArrowDrawable不能绑定这条轨迹，否则会重复记录)
+     *
+     * @param drawable   目标
+     * @param fromIndex  从第几个事件开始
+     * @param time       当前的重放时间(单位: 毫秒，从第一个事件开始算)
+     * @return 下一个还没应用的事件的索引，全部应用完了的话为{@link #size()}
+     */
+    public int apply(@NonNull ArrowDrawable drawable, int fromIndex, long time) {
+        int index = fromIndex;
+        while (index < mSize && mTimes[index] <= time) {
+            float value = mValues[index];
+            switch (mTypes[index]) {
+                case TYPE_PROGRESS:
+                    drawable.setProgress(value);
+                    break;
+                case TYPE_FIRE:
+                    drawable.fire();
+                    break;
+                case TYPE_HIT:
+                    if (value < 0) {
+                        drawable.hit();
+                    } else {
+                        drawable.hit((int) value);
+                    }
+                    break;
+                case TYPE_MISS:
+                    if (value < 0) {
+                        drawable.miss();
+                    } else {
+                        drawable.miss((int) value);
+                    }
+                    break;
+                default:
+                    drawable.reset();
+                    break;
+            }
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * 保存成文本
+     */
+    public void write(@NonNull Writer writer) throws IOException {
+        for (int i = 0; i < mSize; i++) {
+            writer.write(String.format(Locale.US, "%d %s %s\n", mTimes[i], TYPE_NAMES[mTypes[i]], formatValue(mValues[i])));
+        }
+        writer.flush();
+    }
+
+    /**
+     * 从文本中读取(空行和#开头的行会被忽略)
+     */
+    @NonNull
+    public static InputTrace read(@NonNull Reader reader) throws IOException {
+        InputTrace trace = new InputTrace();
+        BufferedReader in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split("\\s+");
+            try {
+                int type = Arrays.asList(TYPE_NAMES).indexOf(parts[1]);
+                float value = parts.length > 2 ? Float.parseFloat(parts[2]) : 0;
+                trace.add(Long.parseLong(parts[0]), type, value);
+            } catch (RuntimeException e) {
+                throw new IOException("Invalid trace at line " + lineNumber + ": " + line, e);
+            }
+        }
+        return trace;
+    }
+
+    private static String formatValue(float value) {
+        return value == (int) value ? String.valueOf((int) value) : String.valueOf(value);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", size: " + mSize);
+        }
+    }
+}
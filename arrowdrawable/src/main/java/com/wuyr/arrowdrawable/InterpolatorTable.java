@@ -0,0 +1,67 @@
+package com.wuyr.arrowdrawable;
+
+import android.animation.TimeInterpolator;
+import android.support.annotation.NonNull;
+
+/**
+ * 插值器采样表：在配置时把插值器采样成固定长度的数组，
+ * 每帧只需要查表(相邻两个采样点线性插值)，跟插值器本身的计算量无关
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 上午10:12
+ */
+final class InterpolatorTable {
+
+    /**
+     * 默认采样数
+     */
+    static final int DEFAULT_SAMPLE_COUNT = 256;
+
+    private final float[] mValues;//采样结果，共(sampleCount + 1)个，包含两个端点
+
+    InterpolatorTable(@NonNull TimeInterpolator interpolator) {
+        this(interpolator, DEFAULT_SAMPLE_COUNT);
+    }
+
+    /**
+     * @param interpolator 要采样的插值器
+     * @param sampleCount  采样数(区间个数)
+     */
+    InterpolatorTable(@NonNull TimeInterpolator interpolator, int sampleCount) {
+        if (sampleCount < 1) {
+            throw new IllegalArgumentException("Sample count must be greater than 0!");
+        }
+        mValues = new float[sampleCount + 1];
+        for (int i = 0; i <= sampleCount; i++) {
+            mValues[i] = interpolator.getInterpolation((float) i / sampleCount);
+        }
+    }
+
+    /**
+     * 查表获取插值后的进度
+     *
+     * @param fraction 原始进度(0~1)
+     * @return 插值后的进度
+     */
+    float getInterpolation(float fraction) {
+        if (fraction <= 0) {
+            return mValues[0];
+        }
+        final int lastIndex = mValues.length - 1;
+        if (fraction >= 1) {
+            return mValues[lastIndex];
+        }
+        float position = fraction * lastIndex;
+        int index = (int) position;
+        float start = mValues[index];
+        return start + (mValues[index + 1] - start) * (position - index);
+    }
+
+    /**
+     * 获取插值后的进度，table为空时视为线性
+     */
+    static float interpolate(InterpolatorTable table, float fraction) {
+        return table == null ? fraction : table.getInterpolation(fraction);
+    }
+}
@@ -0,0 +1,189 @@
+package com.wuyr.arrowdrawable;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+/**
+ * 分图层绘制：弓、手柄、弦、箭、箭尾各是一个图层，每个图层有自己的脏标记和离屏缓存。
+ * <p>
+ * 图层的形状改变时标记为脏({@link #invalidate(int)})，只是平移的话只记录偏移({@link #offset(int, float)})；
+ * 连续两帧形状都没变的图层会被渲染到一张ALPHA_8的Bitmap中，之后直接把Bitmap平移到当前位置画出来(用图层的画笔着色)，
+ * 不用重新计算，也不用重新光栅化。坠落的线条每帧都在变，不缓存
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午7:40
+ */
+final class LayerCache {
+
+    static final int LAYER_BOW = 0;
+    static final int LAYER_HANDLE = 1;
+    static final int LAYER_STRING = 2;
+    static final int LAYER_ARROW = 3;
+    static final int LAYER_TAIL = 4;
+    private static final int LAYER_COUNT = 5;
+
+    private final Bitmap[] mBitmaps = new Bitmap[LAYER_COUNT];
+    private final boolean[] mCached = new boolean[LAYER_COUNT];//缓存是否有效
+    private final boolean[] mDrawnClean = new boolean[LAYER_COUNT];//形状改变后是否已经直接画过一次
+    private final RectF[] mBounds = new RectF[LAYER_COUNT];//缓存对应的区域(渲染时的位置，左上角对齐到像素，跟缓存的像素一一对应)
+    private final float[] mScaleY = new float[LAYER_COUNT];//渲染缓存时的垂直缩放比例
+    private final float[] mOffsetY = new float[LAYER_COUNT];//渲染之后图层的垂直偏移
+    private final Rect[] mSrc = new Rect[LAYER_COUNT];//缓存在Bitmap中的区域
+    private final RectF mDst = new RectF();
+    private final Paint mBlitPaint = new Paint(Paint.FILTER_BITMAP_FLAG);//画缓存用的画笔(不能带模糊特效)
+    private final Paint mMaskPaint = new Paint();//渲染缓存用的画笔(只要透明度)
+    private Canvas mCanvas;
+
+    /**
+     * 图层的形状改变了，缓存失效
+     */
+    void invalidate(int layer) {
+        mCached[layer] = false;
+        mDrawnClean[layer] = false;
+    }
+
+    /**
+     * 所有图层的缓存都失效(尺寸、缩放比例改变时)
+     */
+    void invalidateAll() {
+        for (int i = 0; i < LAYER_COUNT; i++) {
+            invalidate(i);
+        }
+    }
+
+    /**
+     * 图层只是垂直平移了，缓存还可以继续用
+     */
+    void offset(int layer, float dy) {
+        if (mCached[layer]) {
+            mOffsetY[layer] += dy;
+        }
+    }
+
+    /**
+     * 图层的缓存是否有效
+     */
+    boolean isCached(int layer) {
+        return mCached[layer];
+    }
+
+    /**
+     * 这一帧是否要把图层渲染到缓存中：形状改变后的第一帧直接画(可能下一帧又变了)，之后再缓存
+     */
+    boolean shouldCache(int layer) {
+        if (mDrawnClean[layer]) {
+            return true;
+        }
+        mDrawnClean[layer] = true;
+        return false;
+    }
+
+    /**
+     * 开始把图层渲染到缓存中
+     *
+     * @param bounds 图层当前的区域
+     * @param scaleX 画到屏幕上时的水平缩放比例(按实际的像素渲染，画出来才不会模糊)
+     * @param scaleY 画到屏幕上时的垂直缩放比例
+     * @return 用来渲染的Canvas(坐标系跟图层一样)，区域为空时为null
+     */
+    @Nullable
+    Canvas beginCache(int layer, @NonNull RectF bounds, float scaleX, float scaleY) {
+        //左上角对齐到屏幕像素，画出来的时候缓存的每个像素正好落在一个屏幕像素上，不会被插值模糊
+        float left = (float) Math.floor(bounds.left * scaleX);
+        float top = (float) Math.floor(bounds.top * scaleY);
+        int width = (int) Math.ceil(bounds.right * scaleX - left);
+        int height = (int) Math.ceil(bounds.bottom * scaleY - top);
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
+        Bitmap bitmap = mBitmaps[layer];
+        if (bitmap == null || bitmap.getWidth() < width || bitmap.getHeight() < height) {
+            //尺寸不够才重新创建，弓坠落、箭收缩时都可以复用(旧的不recycle，见release)
+            bitmap = mBitmaps[layer] = Bitmap.createBitmap(width, height, Bitmap.Config.ALPHA_8);
+        } else {
+            bitmap.eraseColor(Color.TRANSPARENT);
+        }
+        if (mBounds[layer] == null) {
+            mBounds[layer] = new RectF();
+            mSrc[layer] = new Rect();
+        }
+        //区域按缓存的像素数算，不是原来的bounds，否则画出来会有不到一个像素的缩放
+        mBounds[layer].set(left / scaleX, top / scaleY, (left + width) / scaleX, (top + height) / scaleY);
+        mSrc[layer].set(0, 0, width, height);
+        mScaleY[layer] = scaleY;
+        mOffsetY[layer] = 0;
+        mCached[layer] = true;
+        if (mCanvas == null) {
+            mCanvas = new Canvas();
+        }
+        mCanvas.setBitmap(bitmap);
+        mCanvas.restoreToCount(1);
+        mCanvas.save();
+        mCanvas.scale(scaleX, scaleY);
+        mCanvas.translate(-mBounds[layer].left, -mBounds[layer].top);
+        return mCanvas;
+    }
+
+    /**
+     * 获取渲染缓存用的画笔：跟图层的画笔一样，但只保留透明度
+     */
+    @NonNull
+    Paint getMaskPaint(@NonNull Paint paint) {
+        mMaskPaint.set(paint);
+        mMaskPaint.setColor(Color.BLACK);
+        mMaskPaint.setColorFilter(null);
+        return mMaskPaint;
+    }
+
+    /**
+     * 把图层的缓存画到当前位置
+     *
+     * @param paint 图层的画笔，用来着色
+     * @return 画出的区域
+     */
+    @NonNull
+    RectF draw(@NonNull ArrowRenderer renderer, int layer, @NonNull Paint paint) {
+        RectF bounds = mBounds[layer];
+        //平移之后也对齐到屏幕像素
+        float scaleY = mScaleY[layer];
+        float offsetY = Math.round(mOffsetY[layer] * scaleY) / scaleY;
+        mDst.set(bounds.left, bounds.top + offsetY, bounds.right, bounds.bottom + offsetY);
+        mBlitPaint.setColor(paint.getColor());
+        mBlitPaint.setColorFilter(paint.getColorFilter());
+        renderer.drawBitmap(mBitmaps[layer], mSrc[layer], mDst, mBlitPaint);
+        return mDst;
+    }
+
+    /**
+     * 所有缓存占用的字节数
+     */
+    int getByteCount() {
+        int byteCount = 0;
+        for (Bitmap bitmap : mBitmaps) {
+            if (bitmap != null) {
+                byteCount += bitmap.getByteCount();
+            }
+        }
+        return byteCount;
+    }
+
+    /**
+     * 释放所有缓存：只丢掉引用交给GC，不recycle(API 21以下硬件加速的DisplayList可能还引用着，重放时会画已经回收的Bitmap)
+     */
+    void release() {
+        for (int i = 0; i < LAYER_COUNT; i++) {
+            mBitmaps[i] = null;
+            invalidate(i);
+        }
+        if (mCanvas != null) {
+            mCanvas.setBitmap(null);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.wuyr.arrowdrawable;
+
+import android.graphics.Picture;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 拖动状态的帧缓存：把进度量化成若干个区间，每个区间缓存一份录制好的{@link Picture}，
+ * 最多缓存指定数量，超出时淘汰最久没有用过的
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 上午11:40
+ */
+final class PictureCache {
+
+    private final int mBucketCount;//进度被量化成的区间数
+    private final int mMaxCount;//最多缓存多少个Picture
+    private final LinkedHashMap<Integer, Picture> mPictures;
+    private int mGeneration;//每次清空缓存都会+1，用来丢弃旧配置下录制的Picture
+
+    /**
+     * @param bucketCount 进度被量化成的区间数
+     * @param maxCount    最多缓存多少个Picture
+     */
+    PictureCache(int bucketCount, int maxCount) {
+        if (bucketCount < 2 || maxCount < 1) {
+            throw new IllegalArgumentException("Invalid cache size!");
+        }
+        mBucketCount = bucketCount;
+        mMaxCount = maxCount;
+        mPictures = new LinkedHashMap<Integer, Picture>(Math.min(bucketCount, maxCount), .75F, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Picture> eldest) {
+                return size() > mMaxCount;
+            }
+        };
+    }
+
+    int getBucketCount() {
+        return mBucketCount;
+    }
+
+    int getMaxCount() {
+        return mMaxCount;
+    }
+
+    /**
+     * 获取进度所在的区间
+     */
+    int getBucket(float progress) {
+        return Math.round(progress * (mBucketCount - 1));
+    }
+
+    /**
+     * 获取区间对应的进度
+     */
+    float getProgress(int bucket) {
+        return (float) bucket / (mBucketCount - 1);
+    }
+
+    synchronized Picture get(int bucket) {
+        return mPictures.get(bucket);
+    }
+
+    synchronized void put(int bucket, Picture picture) {
+        mPictures.put(bucket, picture);
+    }
+
+    /**
+     * 放入缓存，如果在此期间缓存被清空过则丢弃
+     *
+     * @param generation 开始录制时的{@link #getGeneration()}
+     * @return 是否放入成功
+     */
+    synchronized boolean put(int bucket, Picture picture, int generation) {
+        if (generation != mGeneration) {
+            return false;
+        }
+        if (!mPictures.containsKey(bucket)) {
+            mPictures.put(bucket, picture);
+        }
+        return true;
+    }
+
+    synchronized boolean contains(int bucket) {
+        return mPictures.containsKey(bucket);
+    }
+
+    synchronized int getGeneration() {
+        return mGeneration;
+    }
+
+    synchronized int size() {
+        return mPictures.size();
+    }
+
+    synchronized void clear() {
+        mPictures.clear();
+        mGeneration++;
+    }
+}
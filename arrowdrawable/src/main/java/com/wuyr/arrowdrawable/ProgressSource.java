@@ -0,0 +1,19 @@
+package com.wuyr.arrowdrawable;
+
+/**
+ * 进度来源：绑定到{@link ArrowDrawable#setProgressSource(ProgressSource, boolean)}后，
+ * ArrowDrawable会在拖动状态下每帧最多读取一次进度，不用每次更新都调用{@link ArrowDrawable#setProgress(float)}
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午4:50
+ */
+public interface ProgressSource {
+
+    /**
+     * 获取当前进度，会在主线程调用，如果进度是在其他线程更新的，需要保证线程安全
+     *
+     * @return 当前进度(0~1)
+     */
+    float getProgress();
+}
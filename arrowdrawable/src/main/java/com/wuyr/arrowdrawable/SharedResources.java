@@ -0,0 +1,108 @@
+package com.wuyr.arrowdrawable;
+
+import android.graphics.BlurMaskFilter;
+import android.graphics.PathMeasure;
+import android.graphics.PointF;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 所有ArrowDrawable共用的、不可变或线程安全的对象，避免每个实例都持有一份
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午3:02
+ */
+final class SharedResources {
+
+    private static final int MAX_MASK_FILTER_COUNT = 8;//最多缓存多少种半径的BlurMaskFilter
+
+    /**
+     * 线条随机位置用的Random(线程安全)
+     */
+    static final Random RANDOM = new Random();
+
+    /**
+     * 弓身各位置的粗细比例(只读，参数只需要校验一次)
+     */
+    static final ScaleHelper BOW_SCALE_HELPER = new ScaleHelper(.2F, 0, 1, .05F, 2F, .5F, 1, .95F, .2F, 1);
+
+    private static final Map<Float, BlurMaskFilter> MASK_FILTERS = new HashMap<>();
+
+    private static final ThreadLocal<Scratch> SCRATCH = new ThreadLocal<>();
+
+    private static final long BACKGROUND_KEEP_ALIVE = 3;//后台线程空闲多少秒后退出
+    private static ThreadPoolExecutor sBackgroundExecutor;
+
+    private SharedResources() {
+    }
+
+    /**
+     * 获取指定半径的BlurMaskFilter，相同半径的共用一个
+     *
+     * @param radius 模糊半径
+     */
+    static BlurMaskFilter getBlurMaskFilter(float radius) {
+        synchronized (MASK_FILTERS) {
+            BlurMaskFilter filter = MASK_FILTERS.get(radius);
+            if (filter == null) {
+                if (MASK_FILTERS.size() >= MAX_MASK_FILTER_COUNT) {
+                    //尺寸种类一般很少，满了直接清空就行
+                    MASK_FILTERS.clear();
+                }
+                filter = new BlurMaskFilter(radius, BlurMaskFilter.Blur.NORMAL);
+                MASK_FILTERS.put(radius, filter);
+            }
+            return filter;
+        }
+    }
+
+    /**
+     * 获取当前线程共用的临时对象(低内存占用模式下的ArrowDrawable用)
+     */
+    static Scratch getScratch() {
+        Scratch scratch = SCRATCH.get();
+        if (scratch == null) {
+            scratch = new Scratch();
+            SCRATCH.set(scratch);
+        }
+        return scratch;
+    }
+
+    /**
+     * 获取所有ArrowDrawable共用的后台线程(只有一个，任务按提交顺序执行，空闲一段时间后自动退出)，
+     * 用来预先录制帧缓存、创建发射后才用到的对象等
+     */
+    static synchronized Executor getBackgroundExecutor() {
+        if (sBackgroundExecutor == null) {
+            sBackgroundExecutor = new ThreadPoolExecutor(1, 1, BACKGROUND_KEEP_ALIVE, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "ArrowDrawable-background");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            sBackgroundExecutor.allowCoreThreadTimeOut(true);
+        }
+        return sBackgroundExecutor;
+    }
+
+    /**
+     * 计算几何数据时用的临时对象，只在一次计算中有效，不能跨帧保存里面的结果。
+     * 同一个线程中的ArrowDrawable是依次绘制的，所以可以按线程共用
+     */
+    static final class Scratch {
+        final PathMeasure pathMeasure = new PathMeasure();
+        final float[] position = new float[2];
+        final PointF point = new PointF();
+    }
+}
@@ -0,0 +1,84 @@
+package com.wuyr.arrowdrawable;
+
+import android.graphics.Bitmap;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.support.annotation.NonNull;
+
+/**
+ * 发射后箭上下移动(一上一下为一个周期)的预渲染帧：整个周期按帧间隔渲染成一排，横向拼在同一张ALPHA_8的Bitmap上，
+ * 播放时每帧只需要从中截取一格画出来，不用再画箭的Path和带模糊特效的箭尾。
+ * 只保存透明度，画的时候用箭的Paint着色，所以颜色、透明度、颜色过滤器改变时不用重新渲染
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午7:10
+ */
+final class SpriteStrip {
+
+    private final Bitmap mBitmap;
+    private final int mFrameCount;//一个周期的帧数
+    private final int mCellWidth;//每一格的宽度
+    private final int mCellHeight;//每一格的高度
+    private final float mLeft;//每一格对应的区域(箭在周期起点时)
+    private final float mTop;
+    private final Rect mSrc = new Rect();
+    private final RectF mDst = new RectF();
+
+    /**
+     * @param bitmap     所有帧横向拼在一起的Bitmap
+     * @param frameCount 一个周期的帧数
+     * @param cellWidth  每一格的宽度
+     * @param cellHeight 每一格的高度
+     * @param left       每一格的左边对应的x坐标
+     * @param top        每一格的顶部对应的y坐标(箭在周期起点时)
+     */
+    SpriteStrip(@NonNull Bitmap bitmap, int frameCount, int cellWidth, int cellHeight, float left, float top) {
+        mBitmap = bitmap;
+        mFrameCount = frameCount;
+        mCellWidth = cellWidth;
+        mCellHeight = cellHeight;
+        mLeft = left;
+        mTop = top;
+    }
+
+    int getFrameCount() {
+        return mFrameCount;
+    }
+
+    /**
+     * 获取周期内某一时刻对应的帧
+     *
+     * @param phaseTime 在周期内的时间
+     * @param period    周期时长
+     */
+    int getFrame(long phaseTime, long period) {
+        int frame = (int) (phaseTime * mFrameCount / period);
+        return frame < 0 ? 0 : frame >= mFrameCount ? mFrameCount - 1 : frame;
+    }
+
+    /**
+     * 画出指定的帧
+     *
+     * @param frame   帧的索引
+     * @param offsetY 箭的周期起点跟渲染时相比的垂直偏移
+     * @param paint   用来着色的Paint
+     * @return 画出的区域
+     */
+    @NonNull
+    RectF draw(@NonNull ArrowRenderer renderer, int frame, float offsetY, @NonNull Paint paint) {
+        int left = frame * mCellWidth;
+        mSrc.set(left, 0, left + mCellWidth, mCellHeight);
+        mDst.set(mLeft, mTop + offsetY, mLeft + mCellWidth, mTop + offsetY + mCellHeight);
+        renderer.drawBitmap(mBitmap, mSrc, mDst, paint);
+        return mDst;
+    }
+
+    /**
+     * 占用的内存(字节)
+     */
+    int getByteCount() {
+        return mBitmap.getByteCount();
+    }
+}
@@ -0,0 +1,126 @@
+package com.wuyr.arrowdrawable;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapShader;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.Shader;
+import android.support.annotation.NonNull;
+
+import java.util.Random;
+
+/**
+ * 用Shader画坠落的线条：每个尺寸只预先画一次可以垂直平铺的线条纹理，
+ * 之后每帧只平移Shader的矩阵，不管线条有多密，每帧都只是画一个矩形
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午2:20
+ */
+final class StreakRenderer {
+
+    private static final long SEED = 0x5EED;//固定的随机种子，同样的参数画出来的纹理都一样
+
+    private final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Matrix mShaderMatrix = new Matrix();
+    private Bitmap mTile;//可以垂直平铺的线条纹理(ALPHA_8，颜色由画笔决定)
+    private int mWidth;
+    private int mHeight;
+    private float mStrokeWidth;
+    private int mDensity;
+
+    /**
+     * 更新纹理参数，有改变的话重新生成纹理
+     *
+     * @param width       纹理宽度
+     * @param height      纹理高度(平铺的周期)
+     * @param strokeWidth 线条宽度
+     * @param density     纹理中线条的数量
+     * @return 是否重新画了纹理
+     */
+    boolean update(int width, int height, float strokeWidth, int density) {
+        if (mTile != null && width == mWidth && height == mHeight
+                && strokeWidth == mStrokeWidth && density == mDensity) {
+            return false;
+        }
+        release();
+        mWidth = width;
+        mHeight = height;
+        mStrokeWidth = strokeWidth;
+        mDensity = density;
+        if (width <= 0 || height <= 0) {
+            return false;
+        }
+        mTile = Bitmap.createBitmap(width, height, Bitmap.Config.ALPHA_8);
+        drawTile(new Canvas(mTile));
+        mPaint.setShader(new BitmapShader(mTile, Shader.TileMode.CLAMP, Shader.TileMode.REPEAT));
+        return true;
+    }
+
+    /**
+     * 纹理占用的字节数
+     */
+    int getByteCount() {
+        return mTile == null ? 0 : mTile.getByteCount();
+    }
+
+    /**
+     * 画线条纹理，跨越上下边界的线条在另一边也要画一次，这样平铺起来才是连续的
+     */
+    private void drawTile(@NonNull Canvas canvas) {
+        Paint paint = new Paint();
+        paint.setAntiAlias(true);
+        paint.setStyle(Paint.Style.STROKE);
+        paint.setStrokeCap(Paint.Cap.ROUND);
+        paint.setStrokeWidth(mStrokeWidth);
+        Random random = new Random(SEED);
+        for (int i = 0; i < mDensity; i++) {
+            float x = random.nextFloat() * mWidth;
+            float startY = random.nextFloat() * mHeight;
+            //长度取 高度的 1/8 ~ 1/2
+            float length = mHeight / 8F + random.nextFloat() * mHeight * 3 / 8;
+            canvas.drawLine(x, startY, x, startY + length, paint);
+            if (startY + length > mHeight) {
+                canvas.drawLine(x, startY - mHeight, x, startY + length - mHeight, paint);
+            }
+        }
+    }
+
+    /**
+     * 设置线条的颜色(只在改变时调用，画的时候不再修改画笔)
+     *
+     * @param color  线条颜色
+     * @param alpha  透明度
+     * @param filter 颜色过滤器
+     */
+    void setColor(int color, int alpha, ColorFilter filter) {
+        mPaint.setColor(color);
+        mPaint.setAlpha(alpha);
+        mPaint.setColorFilter(filter);
+    }
+
+    /**
+     * 画线条
+     *
+     * @param fraction 当前在一个周期中的进度(0~1)
+     */
+    void draw(@NonNull ArrowRenderer renderer, float fraction) {
+        if (mTile == null) {
+            return;
+        }
+        //向下平移，看起来就是线条在坠落
+        mShaderMatrix.setTranslate(0, fraction * mHeight);
+        mPaint.getShader().setLocalMatrix(mShaderMatrix);
+        renderer.drawRect(0, 0, mWidth, mHeight, mPaint);
+    }
+
+    /**
+     * 释放纹理(只丢掉引用，不recycle，见{@link LayerCache#release()})
+     */
+    void release() {
+        mPaint.setShader(null);
+        mTile = null;
+    }
+}
@@ -0,0 +1,29 @@
+package com.wuyr.arrowdrawable;
+
+import android.os.Build;
+import android.os.Trace;
+import android.support.annotation.NonNull;
+
+/**
+ * 输出到系统trace(systrace、Perfetto、Android Studio Profiler中可以看到)，API 18以下什么都不做
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午10:10
+ */
+public final class SystemTracer implements ArrowTracer {
+
+    @Override
+    public void beginSection(@NonNull String name) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.beginSection(name);
+        }
+    }
+
+    @Override
+    public void endSection() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.endSection();
+        }
+    }
+}
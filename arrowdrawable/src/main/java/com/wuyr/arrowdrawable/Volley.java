@@ -0,0 +1,160 @@
+package com.wuyr.arrowdrawable;
+
+/**
+ * 齐射模式下每支箭的状态，全部用基本类型数组保存，
+ * 箭的形状共用{@link ArrowDrawable}中的Path，画的时候只平移画布，所以每帧的开销只跟箭的数量线性相关，并且不会分配内存
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午1:05
+ */
+final class Volley {
+
+    /**
+     * 上下移动中
+     */
+    static final int PHASE_DANCING = 0;
+
+    /**
+     * 射向目标中
+     */
+    static final int PHASE_HITTING = 1;
+
+    /**
+     * 命中后左右摆动中
+     */
+    static final int PHASE_SKEWING = 2;
+
+    /**
+     * 已命中(静止)
+     */
+    static final int PHASE_HIT = 3;
+
+    /**
+     * 未命中，正在飞出
+     */
+    static final int PHASE_MISSING = 4;
+
+    /**
+     * 未命中，已飞出
+     */
+    static final int PHASE_MISSED = 5;
+
+    final int count;//箭的数量
+    final int[] phases;//当前阶段
+    final long[] startTimes;//当前阶段的开始时间
+    final float[] offsetX;//水平偏移量(相对于中心)
+    final float[] offsetY;//垂直偏移量(相对于收缩后的位置)
+    final float[] moveDistances;//上下移动时，当前方向要移动的距离
+    final float[] lastDistances;//当前阶段上一帧已经移动的距离
+    final float[] targetDistances;//命中或未命中时要移动的距离
+    final int[] skewCounts;//当前摆动的次数
+    final float[] skewTans;//当前摆动的幅度(正切值)
+
+    Volley(int count) {
+        this.count = count;
+        phases = new int[count];
+        startTimes = new long[count];
+        offsetX = new float[count];
+        offsetY = new float[count];
+        moveDistances = new float[count];
+        lastDistances = new float[count];
+        targetDistances = new float[count];
+        skewCounts = new int[count];
+        skewTans = new float[count];
+    }
+
+    /**
+     * 复制另一个Volley的所有状态(数量要一样)
+     */
+    void set(Volley source) {
+        System.arraycopy(source.phases, 0, phases, 0, count);
+        System.arraycopy(source.startTimes, 0, startTimes, 0, count);
+        System.arraycopy(source.offsetX, 0, offsetX, 0, count);
+        System.arraycopy(source.offsetY, 0, offsetY, 0, count);
+        System.arraycopy(source.moveDistances, 0, moveDistances, 0, count);
+        System.arraycopy(source.lastDistances, 0, lastDistances, 0, count);
+        System.arraycopy(source.targetDistances, 0, targetDistances, 0, count);
+        System.arraycopy(source.skewCounts, 0, skewCounts, 0, count);
+        System.arraycopy(source.skewTans, 0, skewTans, 0, count);
+    }
+
+    /**
+     * 发射时重置，所有箭并排摆放
+     *
+     * @param spacing 相邻两支箭的间距
+     */
+    void reset(float spacing) {
+        float center = (count - 1) / 2F;
+        for (int i = 0; i < count; i++) {
+            phases[i] = PHASE_DANCING;
+            startTimes[i] = 0;
+            offsetX[i] = (i - center) * spacing;
+            offsetY[i] = 0;
+            lastDistances[i] = 0;
+            skewCounts[i] = 0;
+        }
+    }
+
+    /**
+     * 收缩结束后开始上下移动，每支箭错开一段时间，不然看起来就跟一支箭一样了
+     *
+     * @param startTime    开始时间
+     * @param moveDuration 每次上下移动的时长
+     * @param moveDistance 每次上下移动的距离
+     */
+    void startDancing(long startTime, long moveDuration, float moveDistance) {
+        for (int i = 0; i < count; i++) {
+            startTimes[i] = startTime + moveDuration * i / count;
+            //第一次要向上移动，所以是负数
+            moveDistances[i] = -Math.abs(moveDistance);
+            lastDistances[i] = 0;
+        }
+    }
+
+    /**
+     * 切换阶段
+     */
+    void setPhase(int index, int phase, long startTime) {
+        phases[index] = phase;
+        startTimes[index] = startTime;
+        lastDistances[index] = 0;
+    }
+
+    /**
+     * 是否还有箭在动
+     */
+    boolean isAnimating() {
+        for (int i = 0; i < count; i++) {
+            if (phases[i] != PHASE_HIT && phases[i] != PHASE_MISSED) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 是否有箭命中了目标
+     */
+    boolean hasHit() {
+        for (int i = 0; i < count; i++) {
+            if (phases[i] == PHASE_HIT) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 是否需要继续画坠落的线条(还有箭在飞)
+     */
+    boolean isFlying() {
+        for (int i = 0; i < count; i++) {
+            int phase = phases[i];
+            if (phase == PHASE_DANCING || phase == PHASE_HITTING || phase == PHASE_MISSING) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
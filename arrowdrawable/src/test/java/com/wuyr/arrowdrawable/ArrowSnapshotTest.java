@@ -0,0 +1,248 @@
+package com.wuyr.arrowdrawable;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.RectF;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 快照的往返测试：在动画的各个阶段保存，恢复到另一个实例上之后再保存一次，两份快照应该完全一样；
+ * 之后两个实例再播放同样的时间，每一帧箭、箭尾的范围和画出来的像素也要完全一样
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午8:10
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class ArrowSnapshotTest {
+
+    private static final int WIDTH = 300;
+    private static final int HEIGHT = 300;
+    private static final int BOW_LENGTH = 120;
+    private static final long FRAME_TIME = 16;
+    private static final long RESTORED_PLAY_TIME = 5000;//恢复到的实例的播放时间
+    private static final int PLAY_FRAMES = 30;//恢复后继续比较的帧数
+
+    private final NoOpCanvas mCanvas = new NoOpCanvas();
+
+    @Test
+    public void dragging() {
+        ArrowDrawable drawable = newDrawable();
+        drawable.setProgress(.6F);
+        drawable.draw(mCanvas);
+        ArrowSnapshot snapshot = assertRoundTrip(drawable);
+        assertEquals(ArrowDrawable.STATE_DRAGGING, snapshot.getState());
+        assertEquals(.6F, snapshot.getProgress(), 0);
+    }
+
+    @Test
+    public void firing() {
+        ArrowDrawable drawable = fire(newDrawable());
+        playUntil(drawable, 50);
+        assertRoundTrip(drawable);
+    }
+
+    @Test
+    public void shrinking() {
+        ArrowDrawable drawable = fire(newDrawable());
+        //播放到箭刚开始收缩
+        ArrowSnapshot snapshot = new ArrowSnapshot();
+        do {
+            playUntil(drawable, drawable.getPlayTime() + FRAME_TIME);
+            drawable.saveState(snapshot);
+        } while (snapshot.shrinkStartTime == 0 || snapshot.shrinkStartTime > -FRAME_TIME);
+        assertFalse(assertRoundTrip(drawable).arrowShrunk);
+    }
+
+    @Test
+    public void dancing() {
+        ArrowDrawable drawable = fire(newDrawable());
+        playUntil(drawable, 1000);
+        assertTrue(assertRoundTrip(drawable).arrowShrunk);
+    }
+
+    @Test
+    public void skewing() {
+        ArrowDrawable drawable = fire(newDrawable());
+        playUntil(drawable, 1000);
+        drawable.hit();
+        playUntil(drawable, 1100);
+        ArrowSnapshot snapshot = assertRoundTrip(drawable);
+        assertEquals(ArrowDrawable.STATE_HITTING, snapshot.getState());
+        assertTrue(snapshot.skewCount > 0);
+    }
+
+    @Test
+    public void missing() {
+        ArrowDrawable drawable = fire(newDrawable());
+        playUntil(drawable, 1000);
+        drawable.miss();
+        playUntil(drawable, 1200);
+        assertRoundTrip(drawable);
+    }
+
+    @Test
+    public void volley() {
+        ArrowDrawable drawable = newDrawable();
+        drawable.setVolleyCount(5);
+        fire(drawable);
+        playUntil(drawable, 1000);
+        drawable.hit(1);
+        drawable.miss(3);
+        playUntil(drawable, 1100);
+        ArrowSnapshot snapshot = assertRoundTrip(drawable);
+        assertEquals(5, snapshot.volley.count);
+    }
+
+    @Test
+    public void volleySettled() {
+        ArrowDrawable drawable = newDrawable();
+        drawable.setVolleyCount(3);
+        fire(drawable);
+        playUntil(drawable, 1000);
+        drawable.hit(0);
+        drawable.miss(1);
+        drawable.miss(2);
+        playUntil(drawable, 3000);
+        //所有的箭都停下来了，有一支命中
+        assertEquals(ArrowDrawable.STATE_HITTING, drawable.getAnimationState());
+        assertEquals(ArrowDrawable.STATE_HITTING, assertRoundTrip(drawable).getState());
+
+        drawable.reset();
+        fire(drawable);
+        playUntil(drawable, drawable.getPlayTime() + 1000);
+        drawable.miss();
+        playUntil(drawable, drawable.getPlayTime() + 2000);
+        assertEquals(ArrowDrawable.STATE_MISSING, drawable.getAnimationState());
+    }
+
+    @Test
+    public void empty() {
+        ArrowDrawable drawable = fire(newDrawable());
+        ArrowSnapshot snapshot = new ArrowSnapshot();
+        assertFalse(snapshot.isSaved());
+        drawable.restoreState(snapshot);
+        assertEquals(ArrowDrawable.STATE_NORMAL, drawable.getAnimationState());
+    }
+
+    private static ArrowDrawable newDrawable() {
+        ArrowDrawable drawable = ArrowDrawable.create(WIDTH, HEIGHT, BOW_LENGTH);
+        drawable.setPlayTime(0);
+        return drawable;
+    }
+
+    private ArrowDrawable fire(ArrowDrawable drawable) {
+        drawable.setProgress(1);
+        drawable.draw(mCanvas);
+        drawable.fire();
+        return drawable;
+    }
+
+    /**
+     * 按帧播放到指定的时间
+     */
+    private void playUntil(ArrowDrawable drawable, long playTime) {
+        for (long time = drawable.getPlayTime(); time <= playTime; time += FRAME_TIME) {
+            drawable.setPlayTime(time);
+            drawable.draw(mCanvas);
+        }
+    }
+
+    /**
+     * 保存，恢复到另一个实例(播放时间不同)上再保存，检查两份快照是否一样，再检查之后播放的每一帧是否一样
+     */
+    private ArrowSnapshot assertRoundTrip(ArrowDrawable drawable) {
+        ArrowSnapshot snapshot = drawable.saveState(new ArrowSnapshot());
+        assertTrue(snapshot.isSaved());
+        ArrowDrawable restored = newDrawable();
+        restored.setPlayTime(RESTORED_PLAY_TIME);
+        restored.restoreState(snapshot);
+        ArrowSnapshot copy = restored.saveState(new ArrowSnapshot());
+
+        assertEquals(snapshot.state, copy.state);
+        assertEquals(snapshot.progress, copy.progress, 0);
+        assertEquals(snapshot.arrowShrunk, copy.arrowShrunk);
+        if (snapshot.arrowShrunk) {
+            assertEquals(snapshot.tailTop, copy.tailTop, .001F);
+        }
+        assertEquals(snapshot.fireTime, copy.fireTime);
+        assertEquals(snapshot.shrinkStartTime, copy.shrinkStartTime);
+        assertEquals(snapshot.moveStartTime, copy.moveStartTime);
+        assertEquals(snapshot.hitStartTime, copy.hitStartTime);
+        assertEquals(snapshot.missStartTime, copy.missStartTime);
+        assertEquals(snapshot.skewStartTime, copy.skewStartTime);
+        assertEquals(snapshot.moveDistance, copy.moveDistance, 0);
+        assertEquals(snapshot.lastMoveDistance, copy.lastMoveDistance, 0);
+        assertEquals(snapshot.skewReversed, copy.skewReversed);
+        assertEquals(snapshot.skewCount, copy.skewCount);
+        assertEquals(snapshot.lineCount, copy.lineCount);
+        for (int i = 0; i < snapshot.lineCount; i++) {
+            assertEquals(snapshot.lineStartTimes[i], copy.lineStartTimes[i]);
+            assertEquals(snapshot.lineStartY[i], copy.lineStartY[i], 0);
+        }
+        if (snapshot.volley != null) {
+            assertArrayEquals(snapshot.volley.phases, copy.volley.phases);
+            assertArrayEquals(snapshot.volley.startTimes, copy.volley.startTimes);
+            assertArrayEquals(snapshot.volley.offsetY, copy.volley.offsetY, 0);
+        }
+        assertSameFrames(drawable, restored);
+        return snapshot;
+    }
+
+    /**
+     * 两个实例从各自当前的播放时间开始播放同样的时间，每一帧画出来的都要一样
+     */
+    private static void assertSameFrames(ArrowDrawable expected, ArrowDrawable actual) {
+        long expectedStart = expected.getPlayTime();
+        Bitmap expectedBitmap = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+        Bitmap actualBitmap = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+        Canvas expectedCanvas = new Canvas(expectedBitmap);
+        Canvas actualCanvas = new Canvas(actualBitmap);
+        RectF expectedBounds = new RectF();
+        RectF actualBounds = new RectF();
+        int[] expectedPixels = new int[WIDTH * HEIGHT];
+        int[] actualPixels = new int[WIDTH * HEIGHT];
+        for (int frame = 0; frame < PLAY_FRAMES; frame++) {
+            long time = frame * FRAME_TIME;
+            expected.setPlayTime(expectedStart + time);
+            actual.setPlayTime(RESTORED_PLAY_TIME + time);
+            expectedBitmap.eraseColor(Color.TRANSPARENT);
+            actualBitmap.eraseColor(Color.TRANSPARENT);
+            expected.draw(expectedCanvas);
+            actual.draw(actualCanvas);
+            assertEquals("state at +" + time + "ms", expected.getAnimationState(), actual.getAnimationState());
+
+            expected.getLayerBounds(LayerCache.LAYER_ARROW, expectedBounds);
+            actual.getLayerBounds(LayerCache.LAYER_ARROW, actualBounds);
+            assertSameBounds("arrow bounds at +" + time + "ms", expectedBounds, actualBounds);
+            expected.getLayerBounds(LayerCache.LAYER_TAIL, expectedBounds);
+            actual.getLayerBounds(LayerCache.LAYER_TAIL, actualBounds);
+            assertSameBounds("tail bounds at +" + time + "ms", expectedBounds, actualBounds);
+
+            expectedBitmap.getPixels(expectedPixels, 0, WIDTH, 0, 0, WIDTH, HEIGHT);
+            actualBitmap.getPixels(actualPixels, 0, WIDTH, 0, 0, WIDTH, HEIGHT);
+            assertArrayEquals("pixels at +" + time + "ms", expectedPixels, actualPixels);
+        }
+    }
+
+    /**
+     * 箭的位置是逐帧累加偏移算出来的，允许浮点误差
+     */
+    private static void assertSameBounds(String message, RectF expected, RectF actual) {
+        assertEquals(message, expected.left, actual.left, .001F);
+        assertEquals(message, expected.top, actual.top, .001F);
+        assertEquals(message, expected.right, actual.right, .001F);
+        assertEquals(message, expected.bottom, actual.bottom, .001F);
+    }
+}
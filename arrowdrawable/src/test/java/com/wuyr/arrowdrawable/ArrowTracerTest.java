@@ -0,0 +1,82 @@
+package com.wuyr.arrowdrawable;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 追踪的段要成对出现，每帧都在render段中，并且能区分出各个状态
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午10:10
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class ArrowTracerTest {
+
+    private static final long FRAME_TIME = 16;
+
+    @Test
+    public void balancedSections() {
+        RecordingTracer tracer = new RecordingTracer();
+        ArrowDrawable drawable = ArrowDrawable.create(300, 300, 120);
+        drawable.setTracer(tracer);
+        drawable.setLayerCacheEnabled(true);
+        drawable.setPlayTime(0);
+        drawable.setProgress(1);
+        drawFrame(drawable, tracer);
+        drawable.fire();
+        for (long time = FRAME_TIME; time <= 1200; time += FRAME_TIME) {
+            if (time == 1008) {
+                drawable.hit();
+            }
+            drawable.setPlayTime(time);
+            drawFrame(drawable, tracer);
+        }
+        assertTrue(tracer.mNames.contains("ArrowDrawable:dragging"));
+        assertTrue(tracer.mNames.contains("ArrowDrawable:firing"));
+        assertTrue(tracer.mNames.contains("ArrowDrawable:hitting"));
+        assertTrue(tracer.mNames.contains("ArrowDrawable.decomposeBow"));
+        assertTrue(tracer.mNames.contains("ArrowDrawable.drawLines"));
+        assertTrue(tracer.mNames.contains("ArrowDrawable.drawTail"));
+    }
+
+    private static void drawFrame(ArrowDrawable drawable, RecordingTracer tracer) {
+        drawable.draw(new NoOpCanvas());
+        assertEquals(0, tracer.mStack.size());
+    }
+
+    private static final class RecordingTracer implements ArrowTracer {
+
+        private final List<String> mStack = new ArrayList<>();
+        private final Set<String> mNames = new HashSet<>();
+
+        @Override
+        public void beginSection(@NonNull String name) {
+            if (mStack.isEmpty()) {
+                //最外层一定是render
+                assertEquals("ArrowDrawable.render", name);
+            }
+            mStack.add(name);
+            mNames.add(name);
+        }
+
+        @Override
+        public void endSection() {
+            assertTrue(!mStack.isEmpty());
+            mStack.remove(mStack.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.wuyr.arrowdrawable;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.support.annotation.NonNull;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * 批量渲染：每个任务的每一帧都按顺序输出，尺寸正确，进度回调次数等于任务数，输出出错时抛出原来的IOException；
+ * 复用上一个任务的ArrowDrawable画出来的跟新创建的一样
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午8:40
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class BatchRendererTest {
+
+    @Test
+    public void rendersAllFrames() throws IOException {
+        List<BatchRenderer.Job> jobs = newJobs();
+        final Map<String, AtomicInteger> nextFrames = new ConcurrentHashMap<>();
+        final AtomicInteger progressCount = new AtomicInteger();
+        BatchRenderer renderer = new BatchRenderer(3);
+        renderer.setProgressListener(new BatchRenderer.ProgressListener() {
+            @Override
+            public void onProgress(int completedJobs, int totalJobs, long completedFrames, long elapsedNanos) {
+                progressCount.incrementAndGet();
+            }
+        });
+        BatchRenderer.Result result = renderer.render(jobs, new BatchRenderer.Output() {
+            @Override
+            public void onFrame(@NonNull BatchRenderer.Job job, int frameIndex, @NonNull Bitmap bitmap) {
+                assertEquals(job.getWidth(), bitmap.getWidth());
+                assertEquals(job.getHeight(), bitmap.getHeight());
+                AtomicInteger next = nextFrames.get(job.getName());
+                if (next == null) {
+                    next = new AtomicInteger();
+                    nextFrames.put(job.getName(), next);
+                }
+                //同一个任务在同一个线程中按顺序渲染
+                assertEquals(next.getAndIncrement(), frameIndex);
+            }
+        });
+
+        long totalFrames = 0;
+        for (BatchRenderer.Job job : jobs) {
+            assertEquals(job.getTotalFrameCount(), nextFrames.get(job.getName()).get());
+            totalFrames += job.getTotalFrameCount();
+        }
+        assertEquals(jobs.size(), result.getJobCount());
+        assertEquals(totalFrames, result.getFrameCount());
+        assertEquals(jobs.size(), progressCount.get());
+    }
+
+    @Test
+    public void outputError() {
+        final IOException error = new IOException("disk full");
+        try {
+            new BatchRenderer(2).render(newJobs(), new BatchRenderer.Output() {
+                @Override
+                public void onFrame(@NonNull BatchRenderer.Job job, int frameIndex, @NonNull Bitmap bitmap) throws IOException {
+                    throw error;
+                }
+            });
+            fail();
+        } catch (IOException e) {
+            assertSame(error, e);
+        }
+    }
+
+    @Test
+    public void reusedDrawableMatchesFresh() throws IOException {
+        List<BatchRenderer.Job> jobs = newJobs();
+        //每个任务单独渲染，用的都是新创建的ArrowDrawable
+        Map<String, List<int[]>> fresh = new ConcurrentHashMap<>();
+        for (BatchRenderer.Job job : jobs) {
+            new BatchRenderer(1).render(Collections.singletonList(job), new PixelsOutput(fresh));
+        }
+        //倒序在同一个线程中渲染，除了第一个任务都是复用的
+        Collections.reverse(jobs);
+        Map<String, List<int[]>> reused = new ConcurrentHashMap<>();
+        new BatchRenderer(1).render(jobs, new PixelsOutput(reused));
+
+        for (BatchRenderer.Job job : jobs) {
+            List<int[]> expected = fresh.get(job.getName());
+            List<int[]> actual = reused.get(job.getName());
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertArrayEquals(job.getName() + " frame " + i, expected.get(i), actual.get(i));
+            }
+        }
+    }
+
+    private static List<BatchRenderer.Job> newJobs() {
+        List<BatchRenderer.Job> jobs = new ArrayList<>();
+        int[] sizes = {120, 200};
+        int[] colors = {Color.BLACK, Color.RED, Color.BLUE};
+        for (int size : sizes) {
+            for (int color : colors) {
+                jobs.add(new BatchRenderer.Job(size + "_" + Integer.toHexString(color), size, size, size / 2)
+                        .setColors(color, color, color, color)
+                        .setDragFrameCount(3)
+                        .setFrames(20, 50));
+            }
+        }
+        return jobs;
+    }
+
+    /**
+     * 保存每个任务每一帧的像素
+     */
+    private static final class PixelsOutput implements BatchRenderer.Output {
+
+        private final Map<String, List<int[]>> mFrames;
+
+        PixelsOutput(Map<String, List<int[]>> frames) {
+            mFrames = frames;
+        }
+
+        @Override
+        public void onFrame(@NonNull BatchRenderer.Job job, int frameIndex, @NonNull Bitmap bitmap) {
+            List<int[]> frames = mFrames.get(job.getName());
+            if (frames == null) {
+                frames = new ArrayList<>();
+                mFrames.put(job.getName(), frames);
+            }
+            int[] pixels = new int[bitmap.getWidth() * bitmap.getHeight()];
+            bitmap.getPixels(pixels, 0, bitmap.getWidth(), 0, 0, bitmap.getWidth(), bitmap.getHeight());
+            frames.add(pixels);
+            if (frameIndex == job.dragFrameCount - 1) {
+                //拉弓的最后一帧之后就是发射：线条是随机的，按任务固定种子，两次渲染才能逐像素比较
+                SharedResources.RANDOM.setSeed(job.getName().hashCode());
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.wuyr.arrowdrawable;
+
+import android.content.ComponentCallbacks2;
+import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 缓存协调：占用和命中次数统计正确，超出上限时淘汰最久没用的，内存紧张时缩小或清空，
+ * 在其他线程淘汰的缓存交给拥有者线程释放
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午10:50
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class CacheCoordinatorTest {
+
+    private static final int PICTURE = CacheCoordinator.CACHE_PICTURE;
+
+    private final CacheCoordinator mCoordinator = CacheCoordinator.getInstance();
+    private long mDefaultMaxBytes;
+
+    @Before
+    public void setUp() {
+        mDefaultMaxBytes = mCoordinator.getMaxBytes();
+        mCoordinator.clear();
+        mCoordinator.resetStats();
+    }
+
+    @After
+    public void tearDown() {
+        mCoordinator.setMaxBytes(mDefaultMaxBytes);
+        mCoordinator.clear();
+    }
+
+    @Test
+    public void accountsAndHits() {
+        ArrowDrawable drawable = newDrawable();
+        drawable.draw(new NoOpCanvas());
+        drawable.draw(new NoOpCanvas());
+        CacheCoordinator.Stats stats = mCoordinator.getStats();
+        assertEquals(1, stats.getEntryCount());
+        assertTrue(stats.getByteCount(PICTURE) > 0);
+        assertEquals(stats.getByteCount(PICTURE), stats.getByteCount());
+        assertEquals(1, stats.getMissCount(PICTURE));
+        assertEquals(1, stats.getHitCount(PICTURE));
+        assertEquals(.5F, stats.getHitRate(PICTURE), 0);
+
+        drawable.setDraggingPictureCacheEnabled(false);
+        assertEquals(0, mCoordinator.getStats().getByteCount());
+    }
+
+    @Test
+    public void evictLeastRecentlyUsed() {
+        ArrowDrawable first = newDrawable();
+        ArrowDrawable second = newDrawable();
+        first.draw(new NoOpCanvas());
+        long bytes = mCoordinator.getStats().getByteCount();
+        mCoordinator.setMaxBytes(bytes * 2);
+        SystemClock.sleep(100);
+        second.draw(new NoOpCanvas());
+        SystemClock.sleep(100);
+        //first比second更近用过
+        first.draw(new NoOpCanvas());
+        SystemClock.sleep(100);
+        ArrowDrawable third = newDrawable();
+        third.draw(new NoOpCanvas());
+
+        CacheCoordinator.Stats stats = mCoordinator.getStats();
+        assertEquals(bytes * 2, stats.getByteCount());
+        assertEquals(1, stats.getEvictionCount(PICTURE));
+        mCoordinator.resetStats();
+        first.draw(new NoOpCanvas());
+        assertEquals(1, mCoordinator.getStats().getHitCount(PICTURE));
+        second.draw(new NoOpCanvas());
+        assertEquals(1, mCoordinator.getStats().getMissCount(PICTURE));
+    }
+
+    @Test
+    public void trimMemory() {
+        ArrowDrawable[] drawables = new ArrowDrawable[4];
+        for (int i = 0; i < drawables.length; i++) {
+            drawables[i] = newDrawable();
+            drawables[i].draw(new NoOpCanvas());
+        }
+        long bytes = mCoordinator.getStats().getByteCount();
+        mCoordinator.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW);
+        assertEquals(bytes / 2, mCoordinator.getStats().getByteCount());
+        mCoordinator.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+        assertEquals(0, mCoordinator.getStats().getByteCount());
+        assertEquals(4, mCoordinator.getStats().getEvictionCount());
+
+        mCoordinator.resetStats();
+        for (ArrowDrawable drawable : drawables) {
+            drawable.draw(new NoOpCanvas());
+        }
+        assertEquals(4, mCoordinator.getStats().getMissCount(PICTURE));
+    }
+
+    @Test
+    public void releaseOnOwnerThread() throws InterruptedException {
+        ArrowDrawable drawable = newDrawable();
+        drawable.draw(new NoOpCanvas());
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                mCoordinator.clear();
+            }
+        };
+        thread.start();
+        thread.join();
+        //马上不计入占用，下一帧才真正释放
+        assertEquals(0, mCoordinator.getStats().getByteCount());
+        mCoordinator.resetStats();
+        drawable.draw(new NoOpCanvas());
+        assertEquals(1, mCoordinator.getStats().getMissCount(PICTURE));
+        assertEquals(0, mCoordinator.getStats().getHitCount(PICTURE));
+        assertTrue(mCoordinator.getStats().getByteCount() > 0);
+    }
+
+    @Test
+    public void releasePostedToOwner() throws InterruptedException {
+        ArrowDrawable drawable = newDrawable();
+        final List<Runnable> scheduled = new ArrayList<>();
+        final int[] invalidateCount = new int[1];
+        drawable.setCallback(new Drawable.Callback() {
+            @Override
+            public void invalidateDrawable(@NonNull Drawable who) {
+                invalidateCount[0]++;
+            }
+
+            @Override
+            public void scheduleDrawable(@NonNull Drawable who, @NonNull Runnable what, long when) {
+                scheduled.add(what);
+            }
+
+            @Override
+            public void unscheduleDrawable(@NonNull Drawable who, @NonNull Runnable what) {
+                scheduled.remove(what);
+            }
+        });
+        drawable.draw(new NoOpCanvas());
+        scheduled.clear();
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                mCoordinator.clear();
+            }
+        };
+        thread.start();
+        thread.join();
+        //不用等下一次绘制，交给宿主安排到绘制线程释放，释放后请求重绘
+        assertEquals(1, scheduled.size());
+        invalidateCount[0] = 0;
+        scheduled.get(0).run();
+        assertEquals(1, invalidateCount[0]);
+        mCoordinator.resetStats();
+        drawable.draw(new NoOpCanvas());
+        assertEquals(1, mCoordinator.getStats().getMissCount(PICTURE));
+        assertEquals(0, mCoordinator.getStats().getHitCount(PICTURE));
+    }
+
+    private static ArrowDrawable newDrawable() {
+        ArrowDrawable drawable = ArrowDrawable.create(300, 300, 120);
+        drawable.setDraggingPictureCacheEnabled(true);
+        drawable.setProgress(.6F);
+        return drawable;
+    }
+}
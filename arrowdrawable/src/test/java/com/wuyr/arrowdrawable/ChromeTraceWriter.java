@@ -0,0 +1,92 @@
+package com.wuyr.arrowdrawable;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 把追踪的段保存成Chrome trace格式(JSON)，可以直接拖到chrome://tracing或者ui.perfetto.dev中按时间线查看。
+ * 追踪时只把段名和时间记在数组中，{@link #write(Writer)}时才格式化，不会把格式化的开销算到段里。
+ * 段名中不能有需要转义的字符(ArrowDrawable的段名都是常量)
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午10:10
+ */
+final class ChromeTraceWriter implements ArrowTracer {
+
+    private static final int PID = 1;
+
+    private final long mStartTime = System.nanoTime();
+    private final List<String> mThreadNames = new ArrayList<>();
+    private String[] mNames = new String[4096];//段名，null表示结束
+    private long[] mTimes = new long[4096];//相对于开始的时间(纳秒)
+    private int[] mTids = new int[4096];
+    private int mSize;
+
+    ChromeTraceWriter() {
+        mThreadNames.add("main");
+    }
+
+    /**
+     * 之后的段记到新的一行(线程)中，例如每次重放一行
+     *
+     * @param name 行的名字
+     */
+    void nextThread(@NonNull String name) {
+        mThreadNames.add(name);
+    }
+
+    @Override
+    public void beginSection(@NonNull String name) {
+        add(name);
+    }
+
+    @Override
+    public void endSection() {
+        add(null);
+    }
+
+    private void add(String name) {
+        long time = System.nanoTime() - mStartTime;
+        if (mSize == mNames.length) {
+            mNames = Arrays.copyOf(mNames, mSize * 2);
+            mTimes = Arrays.copyOf(mTimes, mSize * 2);
+            mTids = Arrays.copyOf(mTids, mSize * 2);
+        }
+        mNames[mSize] = name;
+        mTimes[mSize] = time;
+        mTids[mSize] = mThreadNames.size();
+        mSize++;
+    }
+
+    /**
+     * 写出JSON，不会关闭Writer
+     */
+    void write(@NonNull Writer writer) throws IOException {
+        writer.write("{\"traceEvents\":[\n");
+        //每一行的名字
+        for (int i = 0; i < mThreadNames.size(); i++) {
+            writer.write(String.format(Locale.US, "{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":%d,\"tid\":%d,\"args\":{\"name\":\"%s\"}}",
+                    PID, i + 1, mThreadNames.get(i)));
+            writer.write(i < mThreadNames.size() - 1 || mSize > 0 ? ",\n" : "\n");
+        }
+        for (int i = 0; i < mSize; i++) {
+            if (mNames[i] != null) {
+                writer.write(String.format(Locale.US, "{\"name\":\"%s\",\"ph\":\"B\",\"ts\":%.3f,\"pid\":%d,\"tid\":%d}",
+                        mNames[i], mTimes[i] / 1000D, PID, mTids[i]));
+            } else {
+                writer.write(String.format(Locale.US, "{\"ph\":\"E\",\"ts\":%.3f,\"pid\":%d,\"tid\":%d}",
+                        mTimes[i] / 1000D, PID, mTids[i]));
+            }
+            writer.write(i < mSize - 1 ? ",\n" : "\n");
+        }
+        writer.write("]}\n");
+        writer.flush();
+    }
+}
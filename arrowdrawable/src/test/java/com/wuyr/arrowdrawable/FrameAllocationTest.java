@@ -0,0 +1,310 @@
+package com.wuyr.arrowdrawable;
+
+import android.graphics.Canvas;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+import java.util.Properties;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 每帧内存分配的回归测试：用固定的播放时间驱动每种动画状态画几千帧，
+ * 统计绘制线程平均每帧分配的字节数，以及分配超过{@link #LARGE_ALLOCATION}字节的帧数，
+ * 任何一个超过allocation-budget.properties中的预算就失败
+ * (只看平均值的话，每个周期只分配一次的大对象会被几十帧摊薄；
+ * 不直接看单帧最大值，是因为运行时偶尔会在某一帧里分配一大块，跟ArrowDrawable无关)。
+ * <p>
+ * 带上-Darrowdrawable.allocation.record=true运行时只记录不检查，
+ * 结果写到build/reports/allocation-budget.properties，确认后复制到预算文件中
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午5:10
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class FrameAllocationTest {
+
+    private static final String BUDGET_FILE = "allocation-budget.properties";
+    private static final String LARGE_FRAMES_SUFFIX = ".largeFrames";//分配了大块内存的帧数的预算
+    private static final int LARGE_ALLOCATION = 512;//单帧分配超过这个字节数就算分配了大块内存
+    private static final String RECORD_PROPERTY = "arrowdrawable.allocation.record";
+    private static final File RECORD_FILE = new File("build/reports/allocation-budget.properties");
+
+    private static final int WIDTH = 300;
+    private static final int HEIGHT = 300;
+    private static final int BOW_LENGTH = 120;
+    private static final long FRAME_TIME = 16;//每帧的播放时间间隔
+    private static final int WARM_UP_FRAMES = 300;//预热的帧数(懒加载的对象、JIT)，不统计
+    private static final int MEASURE_FRAMES = 3000;//统计的帧数
+    private static final int CYCLE_FRAMES = 60;//发射类场景每隔多少帧重新发射一次
+    private static final int DANCING_FRAME = 25;//发射后第几帧箭已经在上下移动(400ms)
+
+    private static ThreadMXBean sThreadMXBean;
+    private static Properties sBudget;
+    private static Properties sRecorded;
+
+    private ArrowDrawable mDrawable;
+    private final Canvas mCanvas = new NoOpCanvas();
+    private long mMeasureOverhead;
+
+    @BeforeClass
+    public static void loadBudget() throws IOException {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            sThreadMXBean = threadMXBean;
+        }
+        sBudget = new Properties();
+        InputStream in = FrameAllocationTest.class.getResourceAsStream(BUDGET_FILE);
+        assertNotNull("Missing " + BUDGET_FILE, in);
+        try {
+            sBudget.load(in);
+        } finally {
+            in.close();
+        }
+        sRecorded = new Properties();
+    }
+
+    @Before
+    public void setUp() {
+        //只有HotSpot等支持统计线程分配的JVM才能跑
+        assumeTrue(sThreadMXBean != null && ((com.sun.management.ThreadMXBean) sThreadMXBean).isThreadAllocatedMemorySupported());
+        ((com.sun.management.ThreadMXBean) sThreadMXBean).setThreadAllocatedMemoryEnabled(true);
+        mDrawable = ArrowDrawable.create(WIDTH, HEIGHT, BOW_LENGTH);
+        mDrawable.setPlayTime(0);
+        mMeasureOverhead = measureOverhead();
+    }
+
+    @Test
+    public void normal() {
+        check("normal", new Scenario() {
+            @Override
+            boolean advance(ArrowDrawable drawable, int frame) {
+                return true;
+            }
+        });
+    }
+
+    @Test
+    public void dragging() {
+        check("dragging", new Scenario() {
+            @Override
+            boolean advance(ArrowDrawable drawable, int frame) {
+                //来回拖动
+                int step = frame % 200;
+                drawable.setProgress((step < 100 ? step : 200 - step) / 100F);
+                return true;
+            }
+        });
+    }
+
+    @Test
+    public void firing() {
+        check("firing", new FiringScenario(1));
+    }
+
+    @Test
+    public void hitting() {
+        check("hitting", new FiringScenario(DANCING_FRAME) {
+            @Override
+            void onDancing(ArrowDrawable drawable) {
+                drawable.hit();
+            }
+        });
+    }
+
+    @Test
+    public void missing() {
+        check("missing", new FiringScenario(DANCING_FRAME) {
+            @Override
+            void onDancing(ArrowDrawable drawable) {
+                drawable.miss();
+            }
+        });
+    }
+
+    @Test
+    public void volley() {
+        mDrawable.setVolleyCount(5);
+        check("volley", new FiringScenario(DANCING_FRAME) {
+            @Override
+            void onDancing(ArrowDrawable drawable) {
+                //一半命中，一半未命中，剩下的继续上下移动
+                drawable.hit(0);
+                drawable.hit(1);
+                drawable.miss(3);
+            }
+        });
+    }
+
+    @Test
+    public void sprite() {
+        mDrawable.setSpriteStripEnabled(true);
+        check("sprite", new FiringScenario(DANCING_FRAME));
+    }
+
+    @Test
+    public void layers() {
+        mDrawable.setLayerCacheEnabled(true);
+        check("layers", new FiringScenario(DANCING_FRAME) {
+            @Override
+            void onDancing(ArrowDrawable drawable) {
+                drawable.hit();
+            }
+        });
+    }
+
+    @Test
+    public void streaks() {
+        mDrawable.setLineMode(ArrowDrawable.LINE_MODE_SHADER);
+        check("streaks", new FiringScenario(1));
+    }
+
+    /**
+     * 跑一遍场景，检查平均每帧分配的字节数和分配了大块内存的帧数是否超过预算
+     */
+    private void check(String name, Scenario scenario) {
+        runFrames(scenario, 0, WARM_UP_FRAMES);
+        long[] result = runFrames(scenario, WARM_UP_FRAMES, MEASURE_FRAMES);
+        String framesName = name + LARGE_FRAMES_SUFFIX;
+        if (Boolean.getBoolean(RECORD_PROPERTY)) {
+            record(name, result[0]);
+            record(framesName, result[1]);
+            return;
+        }
+        checkBudget(name, result[0], "bytes/frame on average");
+        checkBudget(framesName, result[1], "frames allocating more than " + LARGE_ALLOCATION + " bytes");
+    }
+
+    private static void checkBudget(String name, long value, String unit) {
+        String budget = sBudget.getProperty(name);
+        assertNotNull("No allocation budget for: " + name, budget);
+        assertTrue(String.format(Locale.US, "'%s': %d %s, budget is %s",
+                name, value, unit, budget), value <= Long.parseLong(budget.trim()));
+    }
+
+    /**
+     * 画指定数量的帧，只统计draw方法中分配的内存
+     *
+     * @return [平均每帧分配的字节数, 分配超过{@link #LARGE_ALLOCATION}字节的帧数]
+     */
+    private long[] runFrames(Scenario scenario, int firstFrame, int frameCount) {
+        long total = 0;
+        long largeFrames = 0;
+        int measuredFrames = 0;
+        for (int frame = firstFrame; frame < firstFrame + frameCount; frame++) {
+            mDrawable.setPlayTime(frame * FRAME_TIME);
+            if (!scenario.advance(mDrawable, frame)) {
+                mDrawable.draw(mCanvas);
+                continue;
+            }
+            long before = getAllocatedBytes();
+            mDrawable.draw(mCanvas);
+            long bytes = getAllocatedBytes() - before - mMeasureOverhead;
+            total += bytes;
+            if (bytes > LARGE_ALLOCATION) {
+                largeFrames++;
+            }
+            measuredFrames++;
+        }
+        return new long[]{measuredFrames == 0 ? 0 : Math.max(0, total / measuredFrames), largeFrames};
+    }
+
+    /**
+     * 统计本身分配的内存(有些JDK每次查询都会分配一个数组)
+     */
+    private long measureOverhead() {
+        long min = Long.MAX_VALUE;
+        for (int i = 0; i < 100; i++) {
+            long before = getAllocatedBytes();
+            long after = getAllocatedBytes();
+            min = Math.min(min, after - before);
+        }
+        return min;
+    }
+
+    private static long getAllocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) sThreadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static synchronized void record(String name, long bytesPerFrame) {
+        sRecorded.setProperty(name, String.valueOf(bytesPerFrame));
+        File parent = RECORD_FILE.getParentFile();
+        if (parent != null && !parent.exists() && !parent.mkdirs()) {
+            return;
+        }
+        OutputStream out = null;
+        try {
+            out = new FileOutputStream(RECORD_FILE);
+            sRecorded.store(out, "Measured bytes/frame, copy into src/test/resources/com/wuyr/arrowdrawable/" + BUDGET_FILE);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * 测试场景：每帧画之前设置输入
+     */
+    private abstract static class Scenario {
+
+        /**
+         * @return 这一帧是否要统计
+         */
+        abstract boolean advance(ArrowDrawable drawable, int frame);
+    }
+
+    /**
+     * 发射类场景：每隔{@link #CYCLE_FRAMES}帧重新拉满并发射一次，箭开始上下移动时回调{@link #onDancing(ArrowDrawable)}
+     */
+    private static class FiringScenario extends Scenario {
+
+        private final int mFirstMeasuredStep;//每个周期从第几帧开始统计
+
+        FiringScenario(int firstMeasuredStep) {
+            mFirstMeasuredStep = firstMeasuredStep;
+        }
+
+        @Override
+        boolean advance(ArrowDrawable drawable, int frame) {
+            int step = frame % CYCLE_FRAMES;
+            if (step == 0) {
+                drawable.reset();
+                drawable.setProgress(1);
+                //先画一帧拉满的状态，发射时要用到
+                drawable.draw(new NoOpCanvas());
+                drawable.fire();
+                return false;
+            }
+            if (step == DANCING_FRAME) {
+                onDancing(drawable);
+            }
+            return step >= mFirstMeasuredStep;
+        }
+
+        void onDancing(ArrowDrawable drawable) {
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.wuyr.arrowdrawable;
+
+import android.graphics.Bitmap;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 几何数据表：生成后映射回来的数据跟运行时算的一样，用表画出来的弓跟运行时算的一样(表中没有的角度照常计算)，
+ * 损坏的表加载时就报错
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午9:10
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class GeometryTableTest {
+
+    private static final int WIDTH = 300;
+    private static final int HEIGHT = 300;
+    private static final int BOW_LENGTH = 120;
+    private static final int ROW_COUNT = 2;//静止和拉满两个角度
+
+    @Test
+    public void mapFile() throws IOException {
+        File file = File.createTempFile("arrow", ".table");
+        try {
+            GeometryTable.generate(file, WIDTH, HEIGHT, BOW_LENGTH, 2);
+            GeometryTable table = GeometryTable.map(file);
+            assertEquals(WIDTH, table.getWidth());
+            assertEquals(HEIGHT, table.getHeight());
+            assertEquals(BOW_LENGTH, table.getBowLength());
+            assertEquals(ROW_COUNT, table.getRowCount());
+
+            ArrowDrawable drawable = ArrowDrawable.create(WIDTH, HEIGHT, BOW_LENGTH);
+            float[] points = drawable.decomposeBowPath(drawable.getBaseAngle());
+            int row = table.getRow(drawable.getBaseAngle());
+            assertEquals(points.length / 2, table.getPointCount(row));
+            for (int i = 0; i < points.length / 2; i++) {
+                assertEquals(points[i * 2], table.getX(row, i), 0);
+                assertEquals(points[i * 2 + 1], table.getY(row, i), 0);
+            }
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void sameAsRuntime() throws IOException {
+        GeometryTable table = GeometryTable.wrap(ByteBuffer.wrap(generate(2)));
+        //进度不超过0.5时是初始角度，拉满时是最大角度，表中都正好有；.77的角度在两行之间
+        for (float progress : new float[]{0, .3F, .77F, 1}) {
+            ArrowDrawable runtime = ArrowDrawable.create(WIDTH, HEIGHT, BOW_LENGTH);
+            ArrowDrawable mapped = ArrowDrawable.create(WIDTH, HEIGHT, BOW_LENGTH);
+            mapped.setGeometryTable(table);
+            runtime.setProgress(progress);
+            mapped.setProgress(progress);
+            RecordingRenderer expected = new RecordingRenderer();
+            RecordingRenderer actual = new RecordingRenderer();
+            runtime.render(expected);
+            mapped.render(actual);
+            assertEquals(expected.mCircleCount, actual.mCircleCount);
+            for (int i = 0; i < expected.mCircleCount * 3; i++) {
+                assertEquals(expected.mCircles[i], actual.mCircles[i], .001F);
+            }
+        }
+    }
+
+    @Test
+    public void ignoreMismatchedTable() throws IOException {
+        //点密度对不上，照常计算
+        GeometryTable table = GeometryTable.wrap(ByteBuffer.wrap(generate(3)));
+        ArrowDrawable drawable = ArrowDrawable.create(WIDTH, HEIGHT, BOW_LENGTH);
+        drawable.setGeometryTable(table);
+        RecordingRenderer renderer = new RecordingRenderer();
+        drawable.render(renderer);
+        assertEquals(drawable.decomposeBowPath(drawable.getBaseAngle()).length / 2, renderer.mCircleCount);
+    }
+
+    @Test
+    public void rejectCorruptedTable() {
+        byte[] data = generate(2);
+        try {
+            GeometryTable.wrap(ByteBuffer.wrap(Arrays.copyOf(data, data.length / 2)));
+            fail();
+        } catch (IOException ignored) {
+        }
+        //第一行的起始位置是负数
+        byte[] negativeOffset = data.clone();
+        ByteBuffer buffer = ByteBuffer.wrap(negativeOffset);
+        buffer.putInt(40 + buffer.getInt(36) * 8, -1);
+        try {
+            GeometryTable.wrap(buffer);
+            fail();
+        } catch (IOException ignored) {
+        }
+        //第一行的点数是负数
+        byte[] negativeCount = data.clone();
+        buffer = ByteBuffer.wrap(negativeCount);
+        buffer.putInt(40 + buffer.getInt(36) * 8 + ROW_COUNT * 4, -1);
+        try {
+            GeometryTable.wrap(buffer);
+            fail();
+        } catch (IOException ignored) {
+        }
+        data[0] = 0;
+        try {
+            GeometryTable.wrap(ByteBuffer.wrap(data));
+            fail();
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Test
+    public void rowOnlyForExactAngle() throws IOException {
+        GeometryTable table = GeometryTable.wrap(ByteBuffer.wrap(generate(2)));
+        ArrowDrawable drawable = ArrowDrawable.create(WIDTH, HEIGHT, BOW_LENGTH);
+        float usableAngle = drawable.getUsableAngle();
+        assertEquals(0, table.getRow(drawable.getBaseAngle()));
+        assertEquals(ROW_COUNT - 1, table.getRow(drawable.getBaseAngle() + usableAngle));
+        //拖动中间的角度不在表中
+        assertEquals(-1, table.getRow(drawable.getBaseAngle() + usableAngle * .5F));
+        assertEquals(-1, table.getRow(drawable.getBaseAngle() + usableAngle * .999F));
+        assertEquals(-1, table.getRow(drawable.getBaseAngle() - usableAngle));
+    }
+
+    private static byte[] generate(float precision) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            GeometryTable.generate(out, WIDTH, HEIGHT, BOW_LENGTH, precision);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 只记录画出来的圆(弓)
+     */
+    private static final class RecordingRenderer implements ArrowRenderer {
+
+        private float[] mCircles = new float[64];
+        private int mCircleCount;
+
+        @Override
+        public int save() {
+            return 1;
+        }
+
+        @Override
+        public void restoreToCount(int saveCount) {
+        }
+
+        @Override
+        public void translate(float dx, float dy) {
+        }
+
+        @Override
+        public void scale(float sx, float sy) {
+        }
+
+        @Override
+        public void skew(float sx, float sy) {
+        }
+
+        @Override
+        public void drawCircle(float cx, float cy, float radius, @NonNull Paint paint) {
+            if (mCircles.length < (mCircleCount + 1) * 3) {
+                mCircles = Arrays.copyOf(mCircles, mCircles.length * 2);
+            }
+            mCircles[mCircleCount * 3] = cx;
+            mCircles[mCircleCount * 3 + 1] = cy;
+            mCircles[mCircleCount * 3 + 2] = radius;
+            mCircleCount++;
+        }
+
+        @Override
+        public void drawLine(float startX, float startY, float stopX, float stopY, @NonNull Paint paint) {
+        }
+
+        @Override
+        public void drawPath(@NonNull Path path, @NonNull Paint paint) {
+        }
+
+        @Override
+        public void drawRect(@NonNull RectF rect, @NonNull Paint paint) {
+        }
+
+        @Override
+        public void drawRect(float left, float top, float right, float bottom, @NonNull Paint paint) {
+        }
+
+        @Override
+        public void drawBitmap(@NonNull Bitmap bitmap, @NonNull Rect src, @NonNull RectF dst, @Nullable Paint paint) {
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.wuyr.arrowdrawable;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Color;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 参考图回归测试：用当前的实现(逐个圆画的弓、BlurMaskFilter的箭尾阴影)在固定的时间点渲染每个状态的帧，
+ * 跟goldens目录下保存的参考图(场景名.png)比较，超出容差的像素比例超过{@link #MAX_DIFF_RATIO}就失败。
+ * <p>
+ * 参考图就是这个测试在Robolectric的native graphics(真实的Skia)下渲染出来的，
+ * 带上-Darrowdrawable.goldens.record=true运行时不比较，重新渲染并保存到build/reports/goldens，
+ * 确认后复制到src/test/resources/com/wuyr/arrowdrawable/goldens中。
+ * 同一个版本的Robolectric每次渲染的结果都一样，容差只是给不同平台的native库留的余地；
+ * 真机上各种渲染方式之间的比较见androidTest中的RenderingModeTest
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午11:50
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class GoldenImageTest {
+
+    private static final String GOLDEN_DIR = "goldens";
+    private static final String RECORD_PROPERTY = "arrowdrawable.goldens.record";
+    private static final File RECORD_DIR = new File("build/reports/goldens");
+    private static final int TOLERANCE = 8;//每个通道允许的误差
+    private static final float MAX_DIFF_RATIO = .001F;//允许超出容差的像素比例
+
+    private static final int WIDTH = 300;
+    private static final int HEIGHT = 300;
+    private static final int BOW_LENGTH = 120;
+    private static final long FRAME_TIME = 16;
+    private static final long SEED = 20261019;//线条的位置是随机的，固定种子才能每次都一样
+
+    private static final Scene[] SCENES = {
+            Scene.drag("start", .1F),
+            Scene.drag("dragging", .6F),
+            Scene.drag("full", 1),
+            Scene.fire("firing", 60, Scene.EVENT_NONE),
+            Scene.fire("dancing", 1000, Scene.EVENT_NONE),
+            Scene.fire("hitting", 1100, Scene.EVENT_HIT),
+            Scene.fire("missing", 1200, Scene.EVENT_MISS),
+            Scene.fire("volley", 1100, Scene.EVENT_HIT).volley(3),
+    };
+
+    private final Bitmap mActual = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+    private final int[] mExpectedPixels = new int[WIDTH * HEIGHT];
+    private final int[] mActualPixels = new int[WIDTH * HEIGHT];
+
+    @Test
+    public void matchesGoldens() throws IOException {
+        boolean record = Boolean.getBoolean(RECORD_PROPERTY);
+        StringBuilder failures = new StringBuilder();
+        for (Scene scene : SCENES) {
+            render(scene, mActual);
+            if (record) {
+                saveGolden(scene, mActual);
+                continue;
+            }
+            Bitmap golden = loadGolden(scene);
+            if (golden == null) {
+                failures.append(String.format(Locale.US, "golden [%s] missing, run with -D%s=true to record\n", scene.name, RECORD_PROPERTY));
+                continue;
+            }
+            float ratio = getMismatchedRatio(golden, mActual);
+            if (ratio > MAX_DIFF_RATIO) {
+                failures.append(String.format(Locale.US, "golden [%s] mismatched %.3f%%\n", scene.name, ratio * 100));
+            }
+        }
+        assertTrue("Rendering drifted from goldens:\n" + failures, failures.length() == 0);
+    }
+
+    /**
+     * 从头开始按帧播放到场景的时间点，最后一帧留在out中
+     */
+    private static void render(Scene scene, Bitmap out) {
+        SharedResources.RANDOM.setSeed(SEED);
+        ArrowDrawable drawable = ArrowDrawable.create(WIDTH, HEIGHT, BOW_LENGTH);
+        drawable.setBounds(0, 0, WIDTH, HEIGHT);
+        if (scene.volleyCount > 1) {
+            drawable.setVolleyCount(scene.volleyCount);
+        }
+        Canvas canvas = new Canvas(out);
+        drawable.setPlayTime(0);
+        drawable.setProgress(scene.progress);
+        drawFrame(drawable, canvas, out);
+        if (scene.fire) {
+            drawable.fire();
+            boolean eventSent = false;
+            for (long time = FRAME_TIME; time <= scene.time; time += FRAME_TIME) {
+                //先跳到这一帧的时间，命中/未命中才是从这一刻开始
+                drawable.setPlayTime(time);
+                if (!eventSent && scene.event != Scene.EVENT_NONE && time >= Scene.EVENT_TIME) {
+                    eventSent = true;
+                    if (scene.event == Scene.EVENT_HIT) {
+                        drawable.hit();
+                    } else {
+                        drawable.miss();
+                    }
+                }
+                drawFrame(drawable, canvas, out);
+            }
+        }
+    }
+
+    private static void drawFrame(ArrowDrawable drawable, Canvas canvas, Bitmap out) {
+        //不透明的背景，保存成PNG再读回来也不会有预乘透明度的误差；默认颜色都是白色，所以背景用黑色
+        out.eraseColor(Color.BLACK);
+        drawable.draw(canvas);
+    }
+
+    /**
+     * 逐个像素比较
+     *
+     * @return 超出容差的像素比例
+     */
+    private float getMismatchedRatio(Bitmap expected, Bitmap actual) {
+        if (expected.getWidth() != WIDTH || expected.getHeight() != HEIGHT) {
+            return 1;
+        }
+        expected.getPixels(mExpectedPixels, 0, WIDTH, 0, 0, WIDTH, HEIGHT);
+        actual.getPixels(mActualPixels, 0, WIDTH, 0, 0, WIDTH, HEIGHT);
+        int mismatched = 0;
+        for (int i = 0; i < mExpectedPixels.length; i++) {
+            int a = mExpectedPixels[i];
+            int b = mActualPixels[i];
+            for (int shift = 0; shift < 32; shift += 8) {
+                if (Math.abs(((a >>> shift) & 0xFF) - ((b >>> shift) & 0xFF)) > TOLERANCE) {
+                    mismatched++;
+                    break;
+                }
+            }
+        }
+        return (float) mismatched / mExpectedPixels.length;
+    }
+
+    private static Bitmap loadGolden(Scene scene) throws IOException {
+        InputStream in = GoldenImageTest.class.getResourceAsStream(GOLDEN_DIR + "/" + scene.name + ".png");
+        if (in == null) {
+            return null;
+        }
+        try {
+            return BitmapFactory.decodeStream(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void saveGolden(Scene scene, Bitmap bitmap) throws IOException {
+        if (!RECORD_DIR.exists() && !RECORD_DIR.mkdirs()) {
+            throw new IOException("Cannot create " + RECORD_DIR);
+        }
+        OutputStream out = new FileOutputStream(new File(RECORD_DIR, scene.name + ".png"));
+        try {
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * 一个场景：拖动到某个进度，或者发射后(可能命中/未命中)播放到某个时间点
+     */
+    private static final class Scene {
+
+        static final int EVENT_NONE = 0;
+        static final int EVENT_HIT = 1;
+        static final int EVENT_MISS = 2;
+        static final long EVENT_TIME = 1000;//发射后多久命中/未命中(箭已经开始上下移动)
+
+        final String name;
+        final float progress;
+        final boolean fire;
+        final long time;
+        final int event;
+        int volleyCount = 1;
+
+        private Scene(String name, float progress, boolean fire, long time, int event) {
+            this.name = name;
+            this.progress = progress;
+            this.fire = fire;
+            this.time = time;
+            this.event = event;
+        }
+
+        static Scene drag(String name, float progress) {
+            return new Scene(name, progress, false, 0, EVENT_NONE);
+        }
+
+        static Scene fire(String name, long time, int event) {
+            return new Scene(name, 1, true, time, event);
+        }
+
+        Scene volley(int count) {
+            volleyCount = count;
+            return this;
+        }
+    }
+}
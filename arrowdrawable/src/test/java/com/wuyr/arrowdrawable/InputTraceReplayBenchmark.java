@@ -0,0 +1,216 @@
+package com.wuyr.arrowdrawable;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.PorterDuff;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Locale;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 用输入轨迹(traces目录下，可以用InputTrace录制，也可以手工编写)重放动画：播放时间按固定帧间隔前进，每帧先应用到期的输入再画一帧，
+ * 按画之前的状态分组统计每帧的耗时，输出P50/P90/P99/最大值(单位: 微秒)到build/reports/input-trace-replay.txt。
+ * 每条轨迹分别画到{@link NoOpCanvas}(只有计算的开销)和Bitmap上的真实Canvas(加上native graphics的光栅化)各统计一次。
+ * 统计完再带着{@link ChromeTraceWriter}在Bitmap上重放一遍，每帧各阶段的耗时保存到build/reports/input-trace-轨迹名-volley齐射数.json，
+ * 可以在chrome://tracing或者ui.perfetto.dev中按时间线查看。
+ * <p>
+ * 只输出结果不做检查，用来在真实的操作节奏下对比优化前后的开销
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午6:50
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class InputTraceReplayBenchmark {
+
+    private static final String[] TRACES = {"session"};
+    private static final File REPORT_DIR = new File("build/reports");
+    private static final File REPORT_FILE = new File(REPORT_DIR, "input-trace-replay.txt");
+    private static final String[] STATE_NAMES = {"normal", "dragging", "", "firing", "hitting", "missing"};
+
+    private static final int WIDTH = 300;
+    private static final int HEIGHT = 300;
+    private static final int BOW_LENGTH = 120;
+    private static final long FRAME_TIME = 16;//每帧的播放时间间隔
+    private static final int WARM_UP_COUNT = 2;//预热(JIT)的重放次数，不统计
+    private static final int REPLAY_COUNT = 5;//统计的重放次数
+
+    private static StringBuilder sReport;
+
+    private final Canvas mNoOpCanvas = new NoOpCanvas();
+    private final Canvas mBitmapCanvas = new Canvas(Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888));
+
+    @BeforeClass
+    public static void setUpClass() {
+        sReport = new StringBuilder();
+    }
+
+    @AfterClass
+    public static void writeReport() throws IOException {
+        if (!REPORT_DIR.exists() && !REPORT_DIR.mkdirs()) {
+            return;
+        }
+        Writer writer = new OutputStreamWriter(new FileOutputStream(REPORT_FILE), "UTF-8");
+        try {
+            writer.write(sReport.toString());
+        } finally {
+            writer.close();
+        }
+    }
+
+    @Test
+    public void single() throws IOException {
+        for (String name : TRACES) {
+            report(name, 1);
+        }
+    }
+
+    @Test
+    public void volley() throws IOException {
+        for (String name : TRACES) {
+            report(name, 5);
+        }
+    }
+
+    /**
+     * 重放一条轨迹，统计并输出每个状态下的帧耗时
+     *
+     * @param volleyCount 齐射的数量
+     */
+    private void report(String name, int volleyCount) throws IOException {
+        InputTrace trace = loadTrace(name);
+        assertTrue("Empty trace: " + name, trace.size() > 0);
+        sReport.append(String.format(Locale.US, "trace [%s] volley=%d, %d events, %d ms x %d replays\n",
+                name, volleyCount, trace.size(), trace.getDuration(), REPLAY_COUNT));
+        report(trace, volleyCount, "no-op canvas", mNoOpCanvas);
+        report(trace, volleyCount, "bitmap canvas", mBitmapCanvas);
+        writeTimeline(trace, name, volleyCount);
+    }
+
+    /**
+     * 重放到指定的Canvas上，统计并输出每个状态下的帧耗时
+     */
+    private void report(InputTrace trace, int volleyCount, String canvasName, Canvas canvas) {
+        for (int i = 0; i < WARM_UP_COUNT; i++) {
+            replay(trace, volleyCount, canvas, null, null);
+        }
+        FrameCosts[] costs = new FrameCosts[STATE_NAMES.length];
+        for (int i = 0; i < costs.length; i++) {
+            costs[i] = new FrameCosts();
+        }
+        for (int i = 0; i < REPLAY_COUNT; i++) {
+            replay(trace, volleyCount, canvas, costs, null);
+        }
+        sReport.append("  ").append(canvasName).append('\n');
+        for (int state = 0; state < costs.length; state++) {
+            FrameCosts cost = costs[state];
+            if (cost.size == 0) {
+                continue;
+            }
+            sReport.append(String.format(Locale.US, "    %-9s frames=%-6d p50=%-8.1f p90=%-8.1f p99=%-8.1f max=%.1f\n",
+                    STATE_NAMES[state], cost.size, cost.percentile(50), cost.percentile(90), cost.percentile(99), cost.percentile(100)));
+        }
+    }
+
+    /**
+     * 带着追踪重放一遍，保存成Chrome trace格式的时间线
+     */
+    private void writeTimeline(InputTrace trace, String name, int volleyCount) throws IOException {
+        ChromeTraceWriter tracer = new ChromeTraceWriter();
+        replay(trace, volleyCount, mBitmapCanvas, null, tracer);
+        if (!REPORT_DIR.exists() && !REPORT_DIR.mkdirs()) {
+            return;
+        }
+        File file = new File(REPORT_DIR, String.format(Locale.US, "input-trace-%s-volley%d.json", name, volleyCount));
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            tracer.write(writer);
+        } finally {
+            writer.close();
+        }
+        sReport.append("  timeline: ").append(file.getPath()).append('\n');
+    }
+
+    /**
+     * 用虚拟时钟重放一遍轨迹
+     *
+     * @param canvas 每帧画到这个Canvas上
+     * @param costs  按状态保存每帧的耗时，null为不统计
+     * @param tracer 绘制过程的追踪，null为不追踪
+     */
+    private void replay(InputTrace trace, int volleyCount, Canvas canvas, FrameCosts[] costs, ArrowTracer tracer) {
+        ArrowDrawable drawable = ArrowDrawable.create(WIDTH, HEIGHT, BOW_LENGTH);
+        drawable.setTracer(tracer);
+        drawable.setVolleyCount(volleyCount);
+        drawable.setPlayTime(0);
+        int next = 0;
+        //最后再多画一秒，让最后的动画播完
+        long endTime = trace.getDuration() + 1000;
+        for (long time = 0; time <= endTime; time += FRAME_TIME) {
+            drawable.setPlayTime(time);
+            next = trace.apply(drawable, next, time);
+            int state = drawable.getAnimationState();
+            canvas.drawColor(0, PorterDuff.Mode.CLEAR);
+            long start = System.nanoTime();
+            drawable.draw(canvas);
+            long cost = System.nanoTime() - start;
+            if (costs != null) {
+                costs[state].add(cost);
+            }
+        }
+    }
+
+    private static InputTrace loadTrace(String name) throws IOException {
+        InputStream in = InputTraceReplayBenchmark.class.getResourceAsStream("traces/" + name + ".trace");
+        assertNotNull("Missing trace: " + name, in);
+        try {
+            return InputTrace.read(new InputStreamReader(in, "UTF-8"));
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * 某个状态下每帧的耗时
+     */
+    private static class FrameCosts {
+
+        long[] nanos = new long[1024];
+        int size;
+
+        void add(long cost) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = cost;
+        }
+
+        /**
+         * @return 指定百分位的耗时(单位: 微秒)
+         */
+        float percentile(int percent) {
+            long[] sorted = Arrays.copyOf(nanos, size);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percent / 100F * size) - 1;
+            return sorted[Math.max(0, Math.min(size - 1, index))] / 1000F;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.wuyr.arrowdrawable;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 画图层缓存和直接画的结果要一样：缓存的像素跟屏幕像素一一对应，不能有缩放或者不到一个像素的错位
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午11:40
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class LayerCacheTest {
+
+    private static final int WIDTH = 300;
+    private static final int HEIGHT = 300;
+    private static final int BOW_LENGTH = 120;
+    private static final long FRAME_TIME = 16;
+    private static final int TOLERANCE = 2;//每个通道允许的误差
+
+    @Test
+    public void sameScale() {
+        assertSamePixels(WIDTH, HEIGHT);
+    }
+
+    @Test
+    public void fractionalScale() {
+        //宽高缩放比例不同，而且都不是整数
+        assertSamePixels(WIDTH * 3 / 2, HEIGHT * 7 / 4);
+    }
+
+    private static void assertSamePixels(int width, int height) {
+        Bitmap expected = drawDragging(false, width, height);
+        Bitmap actual = drawDragging(true, width, height);
+        for (int y = 0; y < expected.getHeight(); y++) {
+            for (int x = 0; x < expected.getWidth(); x++) {
+                int e = expected.getPixel(x, y);
+                int a = actual.getPixel(x, y);
+                int diff = Math.max(Math.max(Math.abs(Color.alpha(e) - Color.alpha(a)), Math.abs(premultiply(e, Color.red(e)) - premultiply(a, Color.red(a)))),
+                        Math.max(Math.abs(premultiply(e, Color.green(e)) - premultiply(a, Color.green(a))),
+                                Math.abs(premultiply(e, Color.blue(e)) - premultiply(a, Color.blue(a)))));
+                assertTrue(String.format("Pixel (%d, %d) differs: %08x != %08x", x, y, e, a), diff <= TOLERANCE);
+            }
+        }
+    }
+
+    /**
+     * getPixel返回的颜色没有预乘透明度，几乎透明的像素颜色差别很大，要乘上透明度再比较
+     */
+    private static int premultiply(int color, int channel) {
+        return channel * Color.alpha(color) / 255;
+    }
+
+    /**
+     * 拉满弓画几帧(弓、箭等图层形状不变，开启分图层绘制的话会画缓存)，返回最后一帧
+     *
+     * @param width  bounds的宽度(几何数据的尺寸不变，画的时候缩放)
+     * @param height bounds的高度
+     */
+    private static Bitmap drawDragging(boolean layerCacheEnabled, int width, int height) {
+        ArrowDrawable drawable = ArrowDrawable.create(WIDTH, HEIGHT, BOW_LENGTH);
+        drawable.setLayerCacheEnabled(layerCacheEnabled);
+        //bounds不在原点，检查缓存的位置也对齐到像素
+        drawable.setBounds(3, 5, 3 + width, 5 + height);
+        drawable.setPlayTime(0);
+        drawable.setProgress(1);
+        Bitmap bitmap = Bitmap.createBitmap(width + 6, height + 10, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        for (long time = 0; time <= 400; time += FRAME_TIME) {
+            drawable.setPlayTime(time);
+            bitmap.eraseColor(Color.TRANSPARENT);
+            drawable.draw(canvas);
+        }
+        return bitmap;
+    }
+}
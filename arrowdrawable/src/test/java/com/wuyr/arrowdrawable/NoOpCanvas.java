@@ -0,0 +1,68 @@
+package com.wuyr.arrowdrawable;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Picture;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+/**
+ * 什么都不画的Canvas，避免把Canvas本身的开销算进去
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午6:50
+ */
+final class NoOpCanvas extends Canvas {
+
+    @Override
+    public int save() {
+        return 1;
+    }
+
+    @Override
+    public void restoreToCount(int saveCount) {
+    }
+
+    @Override
+    public void translate(float dx, float dy) {
+    }
+
+    @Override
+    public void scale(float sx, float sy) {
+    }
+
+    @Override
+    public void skew(float sx, float sy) {
+    }
+
+    @Override
+    public void drawCircle(float cx, float cy, float radius, Paint paint) {
+    }
+
+    @Override
+    public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+    }
+
+    @Override
+    public void drawPath(Path path, Paint paint) {
+    }
+
+    @Override
+    public void drawRect(RectF rect, Paint paint) {
+    }
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+    }
+
+    @Override
+    public void drawPicture(Picture picture) {
+    }
+
+    @Override
+    public void drawBitmap(Bitmap bitmap, Rect src, RectF dst, Paint paint) {
+    }
+}
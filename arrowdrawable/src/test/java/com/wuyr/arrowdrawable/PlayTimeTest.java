@@ -0,0 +1,213 @@
+package com.wuyr.arrowdrawable;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 直接跳到某个播放时间，应该跟一帧一帧(16ms)播放到那个时间得到同样的状态；往回跳也一样
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午9:40
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class PlayTimeTest {
+
+    private static final int WIDTH = 300;
+    private static final int HEIGHT = 300;
+    private static final int BOW_LENGTH = 120;
+    private static final long FRAME_TIME = 16;
+    private static final long SEED = 42;
+    private static final long HIT_TIME = 1000;
+
+    private final NoOpCanvas mCanvas = new NoOpCanvas();
+
+    @Test
+    public void lines() {
+        //线条刚开始坠落，还有已经重新坠落过好几轮的
+        assertJumpMatchesStepping(300, -1, false);
+        assertJumpMatchesStepping(4000, -1, false);
+    }
+
+    @Test
+    public void dancing() {
+        assertJumpMatchesStepping(1000, -1, false);
+        assertJumpMatchesStepping(2345, -1, false);
+    }
+
+    @Test
+    public void skewing() {
+        assertJumpMatchesStepping(HIT_TIME + 150, HIT_TIME, false);
+        //摆动已经结束
+        assertJumpMatchesStepping(HIT_TIME + 2000, HIT_TIME, false);
+    }
+
+    @Test
+    public void volley() {
+        //只命中中间那支箭，其他的继续上下移动
+        assertJumpMatchesStepping(HIT_TIME + 150, HIT_TIME, true);
+    }
+
+    @Test
+    public void seekBackward() {
+        ArrowDrawable stepped = fire(newDrawable(false));
+        playUntil(stepped, HIT_TIME);
+        stepped.hit();
+        playUntil(stepped, HIT_TIME + 150);
+
+        ArrowDrawable seeked = fire(newDrawable(false));
+        playUntil(seeked, HIT_TIME);
+        seeked.hit();
+        playUntil(seeked, HIT_TIME + 600);
+        //跳回命中之后
+        seek(seeked, HIT_TIME + 150);
+        assertSameState(stepped, seeked);
+
+        //跳回命中之前，命中的指令还在
+        seek(seeked, 600);
+        assertEquals(ArrowDrawable.STATE_FIRING, seeked.getAnimationState());
+        seek(seeked, HIT_TIME + 150);
+        assertEquals(ArrowDrawable.STATE_FIRING, seeked.getAnimationState());
+    }
+
+    @Test
+    public void seekBeforeFire() {
+        ArrowDrawable drawable = newDrawable(false);
+        drawable.setProgress(1);
+        seek(drawable, 100);
+        drawable.fire();
+        playUntil(drawable, 500);
+        //回到发射前的拖动状态，发射的指令丢弃
+        seek(drawable, 50);
+        assertEquals(ArrowDrawable.STATE_DRAGGING, drawable.getAnimationState());
+        assertEquals(1, drawable.saveState(new ArrowSnapshot()).getProgress(), 0);
+        seek(drawable, 500);
+        assertEquals(ArrowDrawable.STATE_DRAGGING, drawable.getAnimationState());
+    }
+
+    @Test
+    public void seekBackwardAfterRestore() {
+        ArrowDrawable source = fire(newDrawable(false));
+        playUntil(source, 800);
+        ArrowSnapshot snapshot = source.saveState(new ArrowSnapshot());
+
+        ArrowDrawable restored = newDrawable(false);
+        restored.setPlayTime(800);
+        restored.restoreState(snapshot);
+        playUntil(restored, HIT_TIME);
+        restored.hit();
+        playUntil(restored, HIT_TIME + 300);
+        seek(restored, HIT_TIME + 150);
+
+        playUntil(source, HIT_TIME);
+        source.hit();
+        playUntil(source, HIT_TIME + 150);
+        assertSameState(source, restored);
+    }
+
+    /**
+     * 发射后，一个直接跳到指定时间，一个按帧播放到指定时间，比较两者的状态
+     *
+     * @param playTime 目标时间
+     * @param hitTime  命中的时间，-1为不命中
+     */
+    private void assertJumpMatchesStepping(long playTime, long hitTime, boolean volley) {
+        ArrowDrawable jumped = fire(newDrawable(volley));
+        if (hitTime >= 0) {
+            seek(jumped, hitTime);
+            hit(jumped, volley);
+        }
+        seek(jumped, playTime);
+
+        ArrowDrawable stepped = fire(newDrawable(volley));
+        if (hitTime >= 0) {
+            playUntil(stepped, hitTime);
+            hit(stepped, volley);
+        }
+        playUntil(stepped, playTime);
+
+        assertSameState(stepped, jumped);
+    }
+
+    private static void hit(ArrowDrawable drawable, boolean volley) {
+        if (volley) {
+            drawable.hit(1);
+        } else {
+            drawable.hit();
+        }
+    }
+
+    private static ArrowDrawable newDrawable(boolean volley) {
+        ArrowDrawable drawable = ArrowDrawable.create(WIDTH, HEIGHT, BOW_LENGTH);
+        if (volley) {
+            drawable.setVolleyCount(3);
+        }
+        drawable.setPlayTime(0);
+        return drawable;
+    }
+
+    private ArrowDrawable fire(ArrowDrawable drawable) {
+        drawable.setProgress(1);
+        drawable.draw(mCanvas);
+        //两边的线条要一样
+        SharedResources.RANDOM.setSeed(SEED);
+        drawable.fire();
+        return drawable;
+    }
+
+    private void seek(ArrowDrawable drawable, long playTime) {
+        drawable.setPlayTime(playTime);
+        drawable.draw(mCanvas);
+    }
+
+    /**
+     * 按帧播放到指定的时间(最后一帧正好是这个时间)
+     */
+    private void playUntil(ArrowDrawable drawable, long playTime) {
+        for (long time = drawable.getPlayTime() + FRAME_TIME; time < playTime; time += FRAME_TIME) {
+            seek(drawable, time);
+        }
+        seek(drawable, playTime);
+    }
+
+    private static void assertSameState(ArrowDrawable expectedDrawable, ArrowDrawable actualDrawable) {
+        assertEquals(expectedDrawable.getPlayTime(), actualDrawable.getPlayTime());
+        ArrowSnapshot expected = expectedDrawable.saveState(new ArrowSnapshot());
+        ArrowSnapshot actual = actualDrawable.saveState(new ArrowSnapshot());
+        assertEquals(expected.state, actual.state);
+        assertEquals(expected.arrowShrunk, actual.arrowShrunk);
+        assertEquals(expected.tailTop, actual.tailTop, .01F);
+        assertEquals(expected.fireTime, actual.fireTime);
+        assertEquals(expected.shrinkStartTime, actual.shrinkStartTime);
+        assertEquals(expected.moveStartTime, actual.moveStartTime);
+        assertEquals(expected.hitStartTime, actual.hitStartTime);
+        assertEquals(expected.missStartTime, actual.missStartTime);
+        assertEquals(expected.skewStartTime, actual.skewStartTime);
+        assertEquals(expected.moveDistance, actual.moveDistance, .01F);
+        assertEquals(expected.lastMoveDistance, actual.lastMoveDistance, .01F);
+        assertEquals(expected.hitDistance, actual.hitDistance, .01F);
+        assertEquals(expected.skewReversed, actual.skewReversed);
+        assertEquals(expected.skewCount, actual.skewCount);
+        assertEquals(expected.lineCount, actual.lineCount);
+        //命中、未命中之后线条就不再画了，停在哪一帧都一样
+        int lineCount = expected.state == ArrowDrawable.STATE_FIRING ? expected.lineCount : 0;
+        for (int i = 0; i < lineCount; i++) {
+            assertEquals(expected.lineStartTimes[i], actual.lineStartTimes[i]);
+            assertEquals(expected.lineDurations[i], actual.lineDurations[i]);
+            assertEquals(expected.lineSeeds[i], actual.lineSeeds[i]);
+            assertEquals(expected.lineStartX[i], actual.lineStartX[i], 0);
+            assertEquals(expected.lineStartY[i], actual.lineStartY[i], .01F);
+        }
+        if (expected.volley != null) {
+            assertArrayEquals(expected.volley.phases, actual.volley.phases);
+            assertArrayEquals(expected.volley.startTimes, actual.volley.startTimes);
+            assertArrayEquals(expected.volley.offsetY, actual.volley.offsetY, .01F);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.wuyr.arrowdrawable;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 在其他线程发布的命中、未命中指令：箭还没开始上下移动时等待，生效时以最后发布的为准
+ *
+ * @author wuyr
+ * @github https://github.com/wuyr/ArrowDrawable
+ * @since 2026-10-19 下午9:20
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class PostedInputTest {
+
+    private static final long FRAME_TIME = 16;
+
+    private final NoOpCanvas mCanvas = new NoOpCanvas();
+
+    @Test
+    public void pendingHitWaitsForDancing() {
+        ArrowDrawable drawable = fire();
+        drawable.postHit();
+        playUntil(drawable, 50);
+        //箭还在收缩，还不能命中
+        assertEquals(ArrowDrawable.STATE_FIRING, drawable.getAnimationState());
+        playUntil(drawable, 1000);
+        assertEquals(ArrowDrawable.STATE_HITTING, drawable.getAnimationState());
+    }
+
+    @Test
+    public void lastCommandWins() {
+        ArrowDrawable drawable = fire();
+        drawable.postHit();
+        drawable.postMiss();
+        playUntil(drawable, 1000);
+        assertEquals(ArrowDrawable.STATE_MISSING, drawable.getAnimationState());
+
+        //已经在等待的指令也会被之后发布的替换
+        drawable = fire();
+        drawable.postMiss();
+        playUntil(drawable, 50);
+        drawable.postHit();
+        playUntil(drawable, 1000);
+        assertEquals(ArrowDrawable.STATE_HITTING, drawable.getAnimationState());
+    }
+
+    @Test
+    public void resetDropsPendingCommand() {
+        ArrowDrawable drawable = fire();
+        drawable.postHit();
+        playUntil(drawable, 50);
+        drawable.reset();
+        drawable.setProgress(1);
+        drawable.fire();
+        playUntil(drawable, 1000);
+        assertEquals(ArrowDrawable.STATE_FIRING, drawable.getAnimationState());
+    }
+
+    private ArrowDrawable fire() {
+        ArrowDrawable drawable = ArrowDrawable.create(300, 300, 120);
+        drawable.setPlayTime(0);
+        drawable.setProgress(1);
+        drawable.draw(mCanvas);
+        drawable.fire();
+        return drawable;
+    }
+
+    /**
+     * 按帧播放到指定的时间
+     */
+    private void playUntil(ArrowDrawable drawable, long playTime) {
+        for (long time = drawable.getPlayTime(); time <= playTime; time += FRAME_TIME) {
+            drawable.setPlayTime(time);
+            drawable.draw(mCanvas);
+        }
+    }
+}